@@ -19,8 +19,11 @@
 package irccasino;
 
 import irccasino.blackjack.Blackjack;
+import irccasino.texaspoker.EquityCache;
 import irccasino.texaspoker.TexasPoker;
 import irccasino.cardgame.CardGame;
+import irccasino.cardgame.CompactTask;
+import irccasino.cardgame.PlayerStore;
 import irccasino.texastourney.TexasTourney;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -32,6 +35,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.Timer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.pircbotx.Channel;
 import org.pircbotx.PircBotX;
 import org.pircbotx.User;
@@ -47,8 +55,16 @@ import org.pircbotx.hooks.events.*;
 public class CasinoBot extends PircBotX implements GameManager {
     
     protected HashMap<String,String> configMap;
-    protected ArrayList<CardGame> gameList;
+    protected List<CardGame> gameList;
+    // Lower case channel name or nick to game
+    protected ConcurrentHashMap<String,CardGame> channelMap;
+    protected ConcurrentHashMap<String,CardGame> playerMap;
+    protected ConcurrentHashMap<String,CardGame> blacklistMap;
     protected String logFile;
+    protected LogWriter logWriter;
+    protected OutputQueue outputQueue;
+    protected PlayerStore playerStore;
+    protected Timer storeTimer;
     
     /**
      * Listener for CasinoBot initialization commands.
@@ -147,6 +163,10 @@ public class CasinoBot extends PircBotX implements GameManager {
                 botQuit(channel, user, params, msg);
             } else if (command.equalsIgnoreCase("reboot") || command.equalsIgnoreCase("reconnect")) {
                 reboot(channel, user, params, msg);
+            } else if (command.equalsIgnoreCase("queue")) {
+                queue(channel, user, params, msg);
+            } else if (command.equalsIgnoreCase("cache")) {
+                cache(channel, user, params, msg);
             }
         }
         
@@ -239,12 +259,19 @@ public class CasinoBot extends PircBotX implements GameManager {
             if (!bot.hasGame(channel)) {
                 bot.sendMessage(channel, "No game is currently running.");
             } else {
-                CardGame game = bot.getGame(channel);
-                if (game.isInProgress()){
-                    bot.sendMessage(channel, "Please wait for the current round to finish.");
-                } else {
-                    bot.endGame(game);
-                }
+                // Check the game's state on its own thread
+                final Channel gameChannel = channel;
+                final CardGame game = bot.getGame(channel);
+                game.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (game.isInProgress()){
+                            bot.sendMessage(gameChannel, "Please wait for the current round to finish.");
+                        } else {
+                            bot.endGame(game);
+                        }
+                    }
+                });
             }
         }
         
@@ -279,6 +306,36 @@ public class CasinoBot extends PircBotX implements GameManager {
                 bot.quitServer("Reconnecting...");
             }
         }
+        
+        /**
+         * Displays the depth, throughput and latency of the output queue.
+         * @param channel
+         * @param user
+         * @param params
+         * @param msg
+         */
+        public void queue(Channel channel, User user, String[] params, String msg) {
+            OutputQueue q = bot.outputQueue;
+            bot.sendMessage(channel, "Output queue: " + q.getDepth() + " line(s) waiting for " + 
+                            q.getTargets() + " target(s). Sent: " + q.getSent() + 
+                            ", merged: " + q.getMerged() + ". Latency: " + 
+                            q.getAverageLatency() + " ms average, " + 
+                            q.getMaxLatency() + " ms max.");
+        }
+        
+        /**
+         * Displays the size, hits and misses of the poker equity cache.
+         * @param channel
+         * @param user
+         * @param params
+         * @param msg
+         */
+        public void cache(Channel channel, User user, String[] params, String msg) {
+            bot.sendMessage(channel, "Equity cache: " + EquityCache.size() + " of " + 
+                            EquityCache.maxEntries + " result(s). Hits: " + 
+                            EquityCache.getHits() + ", misses: " + 
+                            EquityCache.getMisses() + ".");
+        }
     }
     
     /**
@@ -287,27 +344,80 @@ public class CasinoBot extends PircBotX implements GameManager {
     public CasinoBot(){
         super();
         logFile = "";
-        gameList = new ArrayList<CardGame>();
+        gameList = new CopyOnWriteArrayList<CardGame>();
+        channelMap = new ConcurrentHashMap<String,CardGame>();
+        playerMap = new ConcurrentHashMap<String,CardGame>();
+        blacklistMap = new ConcurrentHashMap<String,CardGame>();
         configMap = new HashMap<String,String>();
+        playerStore = new PlayerStore("players.txt");
     }
     
     /**
      * Retains the original PircBotX.log() functionality, while adding the 
-     * ability to output the log to a file.
+     * ability to output the log to a file. The line is queued for the
+     * LogWriter, so this never waits on the disk.
      * @param line the line to add to the log
      */
     @Override
     public void log(String line){
         super.log(line);
-        if (verbose) {
-            try{
-                PrintWriter out;
-                out = new PrintWriter(new BufferedWriter(new FileWriter(logFile,true)));
-                out.println(System.currentTimeMillis() + " " + line);
-                out.close();
-            } catch(IOException e) {
-                System.err.println("Error: unable to write to " + logFile);
-            }
+        if (verbose && logWriter != null) {
+            logWriter.append(System.currentTimeMillis() + " " + line);
+        }
+    }
+    
+    /**
+     * Queues a message to a channel in the OutputQueue.
+     * @param channel the channel
+     * @param msg the message
+     */
+    @Override
+    public void sendMessage(Channel channel, String msg) {
+        sendMessage(channel.getName(), msg);
+    }
+    
+    /**
+     * Queues a message to a target in the OutputQueue.
+     * @param target a channel name or nick
+     * @param msg the message
+     */
+    @Override
+    public void sendMessage(String target, String msg) {
+        if (outputQueue == null) {
+            super.sendMessage(target, msg);
+        } else {
+            outputQueue.sendMessage(target, msg, false);
+        }
+    }
+    
+    /**
+     * Queues a notice to a target in the OutputQueue.
+     * @param target a channel name or nick
+     * @param msg the notice
+     */
+    @Override
+    public void sendNotice(String target, String msg) {
+        if (outputQueue == null) {
+            super.sendNotice(target, msg);
+        } else {
+            outputQueue.sendNotice(target, msg);
+        }
+    }
+    
+    /**
+     * Queues a message to a channel in the OutputQueue ahead of other
+     * targets' output. Games use it for turn prompts, so the player who must
+     * act next isn't kept waiting behind notices and other tables. Other
+     * output should use sendMessage().
+     * @param channel the channel
+     * @param msg the message
+     */
+    @Override
+    public void sendPriorityMessage(Channel channel, String msg) {
+        if (outputQueue == null) {
+            super.sendMessage(channel, msg);
+        } else {
+            outputQueue.sendMessage(channel.getName(), msg, true);
         }
     }
     
@@ -348,6 +458,11 @@ public class CasinoBot extends PircBotX implements GameManager {
         userNickMap.clear();
         channelListBuilder.finish();
         
+        // Lines queued for the old connection are stale
+        if (outputQueue != null) {
+            outputQueue.clear();
+        }
+        
         //Dispatch event
         getListenerManager().dispatchEvent(new DisconnectEvent(this));
         log("*** Disconnected.");
@@ -365,22 +480,12 @@ public class CasinoBot extends PircBotX implements GameManager {
     
     @Override
     public CardGame getGame(Channel channel) {
-        for (CardGame game : gameList) {
-            if (game.getChannel().equals(channel)){
-                return game;
-            }
-        }
-        return null;
+        return channelMap.get(channel.getName().toLowerCase());
     }
     
     @Override
     public CardGame getGame(String nick) {
-        for (CardGame game : gameList) {
-            if (game.isJoined(nick) || game.isWaitlisted(nick)) {
-                return game;
-            }
-        }
-        return null;
+        return playerMap.get(nick.toLowerCase());
     }
     
     @Override
@@ -390,12 +495,45 @@ public class CasinoBot extends PircBotX implements GameManager {
     
     @Override
     public boolean isBlacklisted(String nick) {
-        for (CardGame game : gameList) {
-            if (game.isBlacklisted(nick)) {
-                return true;
+        return blacklistMap.containsKey(nick.toLowerCase());
+    }
+    
+    @Override
+    public void indexPlayer(String nick, CardGame game) {
+        playerMap.put(nick.toLowerCase(), game);
+    }
+    
+    @Override
+    public void unindexPlayer(String nick, CardGame game) {
+        playerMap.remove(nick.toLowerCase(), game);
+    }
+    
+    @Override
+    public void indexBlacklisted(String nick, CardGame game) {
+        blacklistMap.put(nick.toLowerCase(), game);
+    }
+    
+    @Override
+    public void unindexBlacklisted(String nick, CardGame game) {
+        blacklistMap.remove(nick.toLowerCase(), game);
+    }
+    
+    /**
+     * Removes all nicks indexed for a game.
+     * @param game the game
+     */
+    protected void unindexGame(CardGame game) {
+        removeValue(playerMap, game);
+        removeValue(blacklistMap, game);
+    }
+    
+    private static void removeValue(Map<String,CardGame> map, CardGame game) {
+        Iterator<CardGame> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() == game) {
+                it.remove();
             }
         }
-        return false;
     }
         
     @Override
@@ -411,20 +549,84 @@ public class CasinoBot extends PircBotX implements GameManager {
     @Override
     public void startGame(CardGame game) {
         gameList.add(game);
+        channelMap.put(game.getChannel().getName().toLowerCase(), game);
         getListenerManager().addListener(game);
     }
     
     @Override
-    public void endGame(CardGame game) {
-        game.endGame();
+    public void endGame(final CardGame game) {
         getListenerManager().removeListener(game);
         gameList.remove(game);
+        channelMap.remove(game.getChannel().getName().toLowerCase(), game);
+        game.post(new Runnable() {
+            @Override
+            public void run() {
+                game.endGame();
+                unindexGame(game);
+                compactPlayerStore();
+            }
+        });
+        game.shutdown();
     }
     
     @Override
     public void endAllGames() {
-        while(!gameList.isEmpty()){
-            endGame(gameList.get(0));
+        int timeout = 10000;    // milliseconds
+        List<CardGame> ended = new ArrayList<CardGame>(gameList);
+        for (CardGame game : ended) {
+            endGame(game);
+        }
+        // Let each game finish ending before the caller moves on
+        try {
+            for (CardGame game : ended) {
+                if (!game.awaitShutdown(timeout)) {
+                    log("Error ending the game in " + game.getChannel().getName() + "!");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public PlayerStore getPlayerStore() {
+        return playerStore;
+    }
+    
+    /**
+     * Loads the player records into the PlayerStore, replaying any journal
+     * left over from the last run. Then schedules regular compaction of the
+     * journal into the player file. Nothing is scheduled if the records
+     * could not be read, so that the player file is never overwritten.
+     * @return true if the records were loaded
+     */
+    protected boolean loadPlayerStore() {
+        int compactInt = 300000;    // milliseconds
+        
+        try {
+            playerStore.load();
+            if (playerStore.getPendingChanges() > 0) {
+                log("Replayed " + playerStore.getPendingChanges() + " updates from " + playerStore.getJournalFile() + ".");
+            }
+            compactPlayerStore();
+        } catch (IOException e) {
+            log("Error reading " + playerStore.getDataFile() + "!");
+            return false;
+        }
+        
+        storeTimer = new Timer("Player Store Timer", true);
+        storeTimer.schedule(new CompactTask(playerStore, this), compactInt, compactInt);
+        return true;
+    }
+    
+    /**
+     * Folds the PlayerStore journal into the player file.
+     */
+    protected void compactPlayerStore() {
+        try {
+            playerStore.compact();
+        } catch (IOException e) {
+            log("Error writing to " + playerStore.getDataFile() + "!");
         }
     }
     
@@ -494,13 +696,19 @@ public class CasinoBot extends PircBotX implements GameManager {
     
     /**
      * Initializes bot with custom parameters.
+     * @return false if the player records could not be loaded
      */
-    protected void initBot(String config, String log) {
+    protected boolean initBot(String config, String log) {
         version = "CasinoBot using PircBotX";
         logFile = log;
+        logWriter = new LogWriter(logFile);
+        outputQueue = new OutputQueue(this);
         setMessageDelay(200);
         
         loadConfig(config);
+        if (!loadPlayerStore()) {
+            return false;
+        }
         
         setVerbose(true);
         setAutoNickChange(true);
@@ -511,6 +719,7 @@ public class CasinoBot extends PircBotX implements GameManager {
         
         // Add listener for initialization commands
         getListenerManager().addListener(new InitListener(this, '.'));
+        return true;
     }
     
     /**
@@ -580,14 +789,23 @@ public class CasinoBot extends PircBotX implements GameManager {
      */
     public static void main(String[] args) throws Exception {
         CasinoBot bot = new CasinoBot();
+        boolean ready;
         
         // Check for alternate config file
         if (args.length > 0) {
-            bot.initBot(args[0], "log.txt");
+            ready = bot.initBot(args[0], "log.txt");
         } else {
-            bot.initBot("irccasino.conf", "log.txt");
+            ready = bot.initBot("irccasino.conf", "log.txt");
+        }
+        
+        // Refuse to run with an empty store that would overwrite the records
+        if (!ready) {
+            System.out.println("Error reading " + bot.getPlayerStore().getDataFile() + ". Not starting.");
+            bot.logWriter.close(5000);
+            return;
         }
         
         bot.runBot();
+        bot.logWriter.close(5000);
     }
 }
@@ -19,6 +19,7 @@
 package irccasino;
 
 import irccasino.cardgame.CardGame;
+import irccasino.cardgame.PlayerStore;
 import java.util.List;
 import java.util.Set;
 import org.pircbotx.Channel;
@@ -70,6 +71,34 @@ public interface GameManager {
      * @return true if the player is bankrupt
      */
     public boolean isBlacklisted(String nick);
+    
+    /**
+     * Records that a nick has joined or is on the waitlist of a game.
+     * @param nick the player's nick
+     * @param game the game
+     */
+    public void indexPlayer(String nick, CardGame game);
+    
+    /**
+     * Records that a nick is no longer joined or waitlisted in a game.
+     * @param nick the player's nick
+     * @param game the game
+     */
+    public void unindexPlayer(String nick, CardGame game);
+    
+    /**
+     * Records that a nick is on the blacklist of a game.
+     * @param nick the player's nick
+     * @param game the game
+     */
+    public void indexBlacklisted(String nick, CardGame game);
+    
+    /**
+     * Records that a nick is no longer on the blacklist of a game.
+     * @param nick the player's nick
+     * @param game the game
+     */
+    public void unindexBlacklisted(String nick, CardGame game);
         
     /**
      * Checks if any games have rounds in progress.
@@ -84,7 +113,8 @@ public interface GameManager {
     public void startGame(CardGame game);
     
     /**
-     * Shuts down the specified game.
+     * Shuts down the specified game. The game ends on its own thread after
+     * the events already posted to it.
      * @param game the game to shut down
      */
     public void endGame(CardGame game);
@@ -94,6 +124,12 @@ public interface GameManager {
      */
     public void endAllGames();
     
+    /**
+     * Returns the player records shared by all games.
+     * @return the PlayerStore
+     */
+    public PlayerStore getPlayerStore();
+    
     /**
      * Sends a message to a channel. Automatically implemented by any PircBotX
      * 1.9 which implements this interface.
@@ -101,6 +137,14 @@ public interface GameManager {
      * @param msg the message
      */
     public void sendMessage(Channel channel, String msg);
+    
+    /**
+     * Sends a message to a channel ahead of informational output, such as
+     * a prompt for a player to take a turn.
+     * @param channel the Channel to send message
+     * @param msg the message
+     */
+    public void sendPriorityMessage(Channel channel, String msg);
         
     /**
      * Sends a message to a target. Automatically implemented by any PircBotX
@@ -141,6 +185,13 @@ public interface GameManager {
      */
     public void log(String line);
     
+    /**
+     * Logs an exception along with its stack trace. Automatically implemented
+     * by any PircBotX 1.9 which implements this interface.
+     * @param t the exception
+     */
+    public void logException(Throwable t);
+    
     /**
      * Retrieves the Users in a Channel as a Set. Automatically implemented by
      * any PircBotX 1.9 which implements this interface.
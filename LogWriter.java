@@ -0,0 +1,236 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package irccasino;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes log lines to a file on its own thread, so that callers never wait
+ * on the disk. Lines are queued in a bounded ring buffer. When the buffer is
+ * full, new lines are dropped and counted, and the number of dropped lines
+ * is written to the log once there is room again.
+ * 
+ * The writer thread keeps the file open, writes queued lines in batches and
+ * flushes after each batch. The file is rotated to file.1, file.2 and so on
+ * when it grows past a maximum size or has been written to for a maximum
+ * time.
+ * @author Yizhe Shen
+ */
+public class LogWriter {
+    /** Default number of lines that can be queued. */
+    public static final int defaultCapacity = 8192;
+    /** Default size at which the file is rotated, in bytes. */
+    public static final long defaultMaxSize = 10L * 1024 * 1024;
+    /** Default time after which the file is rotated, in milliseconds. */
+    public static final long defaultMaxAge = 24L * 60 * 60 * 1000;
+    /** Default number of rotated files kept. */
+    public static final int defaultMaxFiles = 5;
+    /** The most lines written before each flush. */
+    private static final int batchSize = 512;
+    /** The longest the writer thread waits for lines, in milliseconds. */
+    private static final long pollInterval = 1000;
+    
+    private final String file;
+    private final long maxSize;
+    private final long maxAge;
+    private final int maxFiles;
+    private final ArrayBlockingQueue<String> queue;
+    private final AtomicLong dropped;
+    private final AtomicLong totalDropped;
+    private final Thread writerThread;
+    private volatile boolean closed;
+    // Only used by the writer thread
+    private FileOutputStream stream;
+    private Writer out;
+    private long size;
+    private long opened;
+    
+    /**
+     * Creates a LogWriter with the default settings and starts its thread.
+     * @param file the path of the log file
+     */
+    public LogWriter(String file) {
+        this(file, defaultCapacity, defaultMaxSize, defaultMaxAge, defaultMaxFiles);
+    }
+    
+    /**
+     * Creates a LogWriter and starts its thread.
+     * @param file the path of the log file
+     * @param capacity the number of lines that can be queued
+     * @param maxSize the size at which the file is rotated, in bytes
+     * @param maxAge the time after which the file is rotated, in milliseconds
+     * @param maxFiles the number of rotated files kept
+     */
+    public LogWriter(String file, int capacity, long maxSize, long maxAge, int maxFiles) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.maxFiles = Math.max(maxFiles, 1);
+        queue = new ArrayBlockingQueue<String>(capacity);
+        dropped = new AtomicLong();
+        totalDropped = new AtomicLong();
+        closed = false;
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "Log Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+    
+    /**
+     * Queues a line to be written. Never blocks. The line is dropped if the
+     * queue is full or the writer has been closed.
+     * @param line the line
+     * @return true if the line was queued
+     */
+    public boolean append(String line) {
+        if (!closed && queue.offer(line)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        totalDropped.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Returns the number of lines dropped since the writer was created.
+     * @return the number of dropped lines
+     */
+    public long getDropped() {
+        return totalDropped.get();
+    }
+    
+    /**
+     * Returns the number of lines waiting to be written.
+     * @return the number of queued lines
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+    
+    /**
+     * Stops accepting lines and waits for the queued lines to be written
+     * and the file to be closed.
+     * @param timeout the maximum time to wait in milliseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void close(long timeout) throws InterruptedException {
+        closed = true;
+        writerThread.join(timeout);
+    }
+    
+    /**
+     * Writes queued lines until the writer is closed and the queue is empty.
+     */
+    private void writeLoop() {
+        ArrayList<String> batch = new ArrayList<String>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                String line = queue.poll(pollInterval, TimeUnit.MILLISECONDS);
+                if (line != null) {
+                    batch.add(line);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                batch.add(System.currentTimeMillis() + " *** Log buffer full, dropped " + lost + " lines.");
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        closeFile();
+    }
+    
+    /**
+     * Writes and flushes a batch of lines, rotating the file first if
+     * required.
+     * @param batch the lines
+     */
+    private void write(ArrayList<String> batch) {
+        try {
+            if (out != null && (size >= maxSize || System.currentTimeMillis() - opened >= maxAge)) {
+                rotate();
+            }
+            if (out == null) {
+                openFile();
+            }
+            for (String line : batch) {
+                out.write(line);
+                out.write('\n');
+            }
+            out.flush();
+            // Lines are encoded as UTF-8, so take the size in bytes from the file
+            size = stream.getChannel().size();
+        } catch (IOException e) {
+            System.err.println("Error: unable to write to " + file);
+            closeFile();
+        }
+    }
+    
+    private void openFile() throws IOException {
+        File f = new File(file);
+        size = f.length();
+        opened = System.currentTimeMillis();
+        stream = new FileOutputStream(f, true);
+        out = new BufferedWriter(new OutputStreamWriter(stream, "UTF-8"));
+    }
+    
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Error: unable to close " + file);
+            }
+            out = null;
+            stream = null;
+        }
+    }
+    
+    /**
+     * Closes the file and shifts it and the older rotated files up by one,
+     * deleting the oldest.
+     */
+    private void rotate() {
+        closeFile();
+        new File(file + "." + maxFiles).delete();
+        for (int ctr = maxFiles - 1; ctr >= 1; ctr--) {
+            new File(file + "." + ctr).renameTo(new File(file + "." + (ctr + 1)));
+        }
+        new File(file).renameTo(new File(file + ".1"));
+    }
+}
@@ -0,0 +1,418 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package irccasino;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import org.pircbotx.Colors;
+import org.pircbotx.PircBotX;
+
+/**
+ * Sends the bot's messages and notices on its own thread, so that a burst of
+ * game output doesn't get the bot kicked for flooding. Lines are queued per
+ * target and sent through two token buckets: one for the target and one for
+ * the whole connection. Targets take turns, but a target with a turn prompt
+ * queued is served before targets with only informational output. Lines for
+ * the same target are always sent in the order they were queued.
+ * 
+ * A channel message queued behind another unsent message to the same channel
+ * is appended to it if the combined line still fits in an IRC line, so a run
+ * of short lines costs one send instead of several. IRC limits lines in
+ * bytes, so lines are measured in the bot's encoding, where each card suit
+ * takes more than one byte. A message too long for one line is split into
+ * several, preferably at a space, before any merging.
+ * @author Yizhe Shen
+ */
+public class OutputQueue {
+    
+    /**
+     * A queued line.
+     */
+    private static class Line {
+        final String type, target;
+        final long queued;
+        String text;
+        int bytes;
+        boolean priority;
+        
+        Line(String type, String target, String text, int bytes, boolean priority) {
+            this.type = type;
+            this.target = target;
+            this.text = text;
+            this.bytes = bytes;
+            this.priority = priority;
+            queued = System.nanoTime();
+        }
+    }
+    
+    /**
+     * A token bucket that holds up to burst tokens and gains one token every
+     * interval.
+     */
+    private static class Bucket {
+        final int burst;
+        final long interval;
+        double tokens;
+        long last;
+        
+        Bucket(int burst, long interval) {
+            this.burst = burst;
+            this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+            tokens = burst;
+            last = System.nanoTime();
+        }
+        
+        /**
+         * Returns how long until a token is available.
+         * @param now the current System.nanoTime()
+         * @return the wait in nanoseconds or 0 if a token is available
+         */
+        long getWait(long now) {
+            tokens = Math.min(burst, tokens + (double) (now - last) / interval);
+            last = now;
+            return tokens >= 1 ? 0 : (long) ((1 - tokens) * interval) + 1;
+        }
+        
+        boolean isFull() {
+            return tokens >= burst;
+        }
+    }
+    
+    /**
+     * The queued lines and bucket of a target.
+     */
+    private static class Target {
+        final ArrayDeque<Line> lines;
+        final Bucket bucket;
+        int priority;
+        
+        Target(Bucket bucket) {
+            lines = new ArrayDeque<Line>();
+            this.bucket = bucket;
+            priority = 0;
+        }
+    }
+    
+    /** Default number of lines that can be sent at once to a target. */
+    public static final int defaultTargetBurst = 4;
+    /** Default time for a target to regain a line, in milliseconds. */
+    public static final long defaultTargetInterval = 400;
+    /** Default number of lines that can be sent at once overall. */
+    public static final int defaultBurst = 5;
+    /** Default time to regain a line overall, in milliseconds. */
+    public static final long defaultInterval = 200;
+    /** The longest IRC line in bytes, including the prefix the server adds and CRLF. */
+    public static final int maxLineLength = 512;
+    /** Bytes left for the nick!login@host prefix the server adds to a line. */
+    private static final int prefixLength = 100;
+    /** Separates merged messages. Formatting is reset before it. */
+    private static final String separator = Colors.NORMAL + " | ";
+    
+    private final PircBotX bot;
+    private final int targetBurst;
+    private final long targetInterval;
+    private final Bucket global;
+    // Lower case target to its lines, in the order targets take turns
+    private final LinkedHashMap<String,Target> targets;
+    private final Thread senderThread;
+    private int depth;
+    private long sent, merged, totalLatency, maxLatency;
+    
+    /**
+     * Creates an OutputQueue with the default rates and starts its thread.
+     * @param bot the bot that sends the lines
+     */
+    public OutputQueue(PircBotX bot) {
+        this(bot, defaultTargetBurst, defaultTargetInterval, defaultBurst, defaultInterval);
+    }
+    
+    /**
+     * Creates an OutputQueue and starts its thread.
+     * @param bot the bot that sends the lines
+     * @param targetBurst the number of lines that can be sent at once to a target
+     * @param targetInterval the time for a target to regain a line, in milliseconds
+     * @param burst the number of lines that can be sent at once overall
+     * @param interval the time to regain a line overall, in milliseconds
+     */
+    public OutputQueue(PircBotX bot, int targetBurst, long targetInterval, int burst, long interval) {
+        this.bot = bot;
+        this.targetBurst = targetBurst;
+        this.targetInterval = targetInterval;
+        global = new Bucket(burst, interval);
+        targets = new LinkedHashMap<String,Target>();
+        depth = 0;
+        sent = merged = totalLatency = maxLatency = 0;
+        senderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sendLoop();
+            }
+        }, "Output Queue");
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+    
+    /**
+     * Queues a PRIVMSG.
+     * @param target a channel name or nick
+     * @param msg the message
+     * @param priority true to send it ahead of other targets' output
+     */
+    public void sendMessage(String target, String msg, boolean priority) {
+        add("PRIVMSG", target, msg, priority);
+    }
+    
+    /**
+     * Queues a NOTICE.
+     * @param target a channel name or nick
+     * @param msg the notice
+     */
+    public void sendNotice(String target, String msg) {
+        add("NOTICE", target, msg, false);
+    }
+    
+    /**
+     * Queues a message, split into as many lines as it needs.
+     */
+    private synchronized void add(String type, String target, String text, boolean priority) {
+        String key = target.toLowerCase();
+        Target t = targets.get(key);
+        if (t == null) {
+            t = new Target(new Bucket(targetBurst, targetInterval));
+            targets.put(key, t);
+        }
+        Charset charset = bot.getEncoding();
+        int maxBytes = getMaxBytes(type, target, charset);
+        int start = 0;
+        while (start < text.length()) {
+            int end = getSplit(text, start, maxBytes, charset);
+            String piece = text.substring(start, end);
+            add(t, type, target, piece, piece.getBytes(charset).length, 
+                separator.getBytes(charset).length, maxBytes, priority);
+            start = end;
+            // Don't start the next line with the space it was split at
+            if (start < text.length() && text.charAt(start) == ' ') {
+                start++;
+            }
+        }
+    }
+    
+    /**
+     * Returns where to end the line that starts at an index so that it fits
+     * in the specified number of bytes. Lines end before a space if there is
+     * one in the second half of the line and never split a character.
+     * @param text the message
+     * @param start the index the line starts at
+     * @param maxBytes the most bytes of text in a line
+     * @param charset the encoding of the line
+     * @return the index after the end of the line
+     */
+    private static int getSplit(String text, int start, int maxBytes, Charset charset) {
+        int end = start, bytes = 0;
+        while (end < text.length()) {
+            int next = end + Character.charCount(text.codePointAt(end));
+            bytes += text.substring(end, next).getBytes(charset).length;
+            if (bytes > maxBytes && end > start) {
+                int space = text.lastIndexOf(' ', end - 1);
+                if (space > start + (end - start) / 2) {
+                    return space;
+                }
+                return end;
+            }
+            end = next;
+        }
+        return end;
+    }
+    
+    /**
+     * Queues a line that fits in an IRC line, appending it to the last
+     * unsent line to the same channel if the two fit together.
+     */
+    private void add(Target t, String type, String target, String text, int bytes, 
+                     int sepBytes, int maxBytes, boolean priority) {
+        Line last = t.lines.peekLast();
+        if (last != null && last.type.equals(type) && isChannel(target) &&
+                last.bytes + sepBytes + bytes <= maxBytes) {
+            last.text += separator + text;
+            last.bytes += sepBytes + bytes;
+            if (priority && !last.priority) {
+                last.priority = true;
+                t.priority++;
+            }
+            merged++;
+        } else {
+            t.lines.add(new Line(type, target, text, bytes, priority));
+            if (priority) {
+                t.priority++;
+            }
+            depth++;
+            notifyAll();
+        }
+    }
+    
+    private static boolean isChannel(String target) {
+        return target.startsWith("#") || target.startsWith("&");
+    }
+    
+    /**
+     * Returns the most bytes of text that fit in a line of a type to a
+     * target, after the spaces, colon and CRLF.
+     */
+    private static int getMaxBytes(String type, String target, Charset charset) {
+        return maxLineLength - prefixLength - type.length() - target.getBytes(charset).length - 5;
+    }
+    
+    /**
+     * Sends lines until the thread is interrupted.
+     */
+    private void sendLoop() {
+        while (true) {
+            Line line;
+            try {
+                line = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            bot.sendRawLineNow(line.type + " " + line.target + " :" + line.text);
+        }
+    }
+    
+    /**
+     * Waits for a line that both buckets allow and removes it from the queue.
+     * @return the line
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private synchronized Line take() throws InterruptedException {
+        while (true) {
+            if (depth == 0) {
+                wait();
+                continue;
+            }
+            long now = System.nanoTime();
+            long wait = global.getWait(now);
+            if (wait == 0) {
+                String nextKey = null;
+                Target next = null;
+                wait = Long.MAX_VALUE;
+                Iterator<String> it = targets.keySet().iterator();
+                while (it.hasNext()) {
+                    String key = it.next();
+                    Target t = targets.get(key);
+                    long w = t.bucket.getWait(now);
+                    if (t.lines.isEmpty()) {
+                        // Keep an idle target until its bucket refills
+                        if (t.bucket.isFull()) {
+                            it.remove();
+                        }
+                    } else if (w > 0) {
+                        wait = Math.min(wait, w);
+                    } else if (next == null || (t.priority > 0 && next.priority == 0)) {
+                        nextKey = key;
+                        next = t;
+                    }
+                }
+                if (next != null) {
+                    Line line = next.lines.poll();
+                    if (line.priority) {
+                        next.priority--;
+                    }
+                    next.bucket.tokens--;
+                    global.tokens--;
+                    depth--;
+                    // Move the target to the back of the line
+                    targets.remove(nextKey);
+                    targets.put(nextKey, next);
+                    long latency = now - line.queued;
+                    sent++;
+                    totalLatency += latency;
+                    maxLatency = Math.max(maxLatency, latency);
+                    return line;
+                }
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, wait);
+        }
+    }
+    
+    /**
+     * Drops all queued lines. Used when the connection is lost.
+     */
+    public synchronized void clear() {
+        targets.clear();
+        depth = 0;
+    }
+    
+    /**
+     * Returns the number of lines waiting to be sent, after merging.
+     * @return the queue depth
+     */
+    public synchronized int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * Returns the number of targets with lines waiting to be sent.
+     * @return the number of targets
+     */
+    public synchronized int getTargets() {
+        int count = 0;
+        for (Target t : targets.values()) {
+            if (!t.lines.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the number of lines sent.
+     * @return the number of lines
+     */
+    public synchronized long getSent() {
+        return sent;
+    }
+    
+    /**
+     * Returns the number of messages appended to another line instead of
+     * being sent on their own.
+     * @return the number of merged messages
+     */
+    public synchronized long getMerged() {
+        return merged;
+    }
+    
+    /**
+     * Returns the average time lines waited in the queue.
+     * @return the latency in milliseconds
+     */
+    public synchronized long getAverageLatency() {
+        return sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatency / sent);
+    }
+    
+    /**
+     * Returns the longest time a line waited in the queue.
+     * @return the latency in milliseconds
+     */
+    public synchronized long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatency);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino;
+
+import java.util.HashMap;
+
+/**
+ * The stats that can be stored in a Stats object. Each stat indexes a slot
+ * in a primitive array, so typed access needs no hashing or boxing. The name
+ * of a stat is the lowercase string used by the string API.
+ * @author Yizhe Shen
+ */
+public enum Stat {
+    // Player stats
+    CASH, BANK, BANKRUPTS, BJROUNDS, BJWINNINGS, TPROUNDS, TPWINNINGS,
+    TTWINS, TTPLAYED, QUIT,
+    // Blackjack player stats
+    INITIALBET, INSUREBET, SURRENDER, CURRENTINDEX,
+    // Poker player stats
+    BET, CHANGE, FOLD, ALLIN, CANCEL, WINS, TIES,
+    // House stats
+    DECKS, ROUNDS, BIGGESTPOT, NUMTOURNEYS;
+    
+    private static final HashMap<String,Stat> names = new HashMap<String,Stat>();
+    static {
+        for (Stat stat : values()) {
+            names.put(stat.getName(), stat);
+        }
+    }
+    private final String name;
+    
+    private Stat() {
+        name = name().toLowerCase();
+    }
+    
+    /**
+     * Returns the name used for this stat by the string API.
+     * @return the lowercase name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns the stat with the specified name.
+     * @param name the lowercase name
+     * @return the stat or null if there is no stat with that name
+     */
+    public static Stat fromName(String name) {
+        return names.get(name);
+    }
+}
@@ -22,24 +22,122 @@ package irccasino;
 import java.util.HashMap;
 
 /**
- * Wrapper class for a HashMap to store stats.
+ * Stores stats as 64-bit values in a primitive array indexed by Stat, so
+ * that the typed methods need no hashing or boxing. The methods that take a
+ * stat name are kept for settings and commands that name stats by string.
+ * Names that are not a Stat are stored in a HashMap.
  * @author Yizhe Shen
  */
 public abstract class Stats {
-    /** Stores the stats. */
-    protected HashMap<String,Integer> statsMap;
+    /** Stores the values of the stats in Stat order. */
+    protected long[] values;
+    /** Marks the stats that have been set. */
+    protected boolean[] present;
+    /** Stores stats that are not a Stat, created when first needed. */
+    protected HashMap<String,Long> statsMap;
     
     public Stats() {
-        statsMap = new HashMap<String,Integer>();
+        values = new long[Stat.values().length];
+        present = new boolean[values.length];
+        statsMap = null;
+    }
+    
+    /////////////////////////
+    //// Typed accessors ////
+    /////////////////////////
+    
+    /**
+     * Sets a new value for a stat.
+     * @param stat the stat
+     * @param value the new value
+     */
+    public void set(Stat stat, long value){
+        values[stat.ordinal()] = value;
+        present[stat.ordinal()] = true;
+    }
+    
+    /**
+     * Gets the value of a stat.
+     * @param stat the stat
+     * @return the value
+     */
+    public long get(Stat stat){
+        return values[stat.ordinal()];
+    }
+    
+    /**
+     * Increments the value of a stat.
+     * @param stat the stat
+     */
+    public void increment(Stat stat){
+        values[stat.ordinal()]++;
+        present[stat.ordinal()] = true;
+    }
+    
+    /**
+     * Decrements the value of a stat.
+     * @param stat the stat
+     */
+    public void decrement(Stat stat){
+        values[stat.ordinal()]--;
+        present[stat.ordinal()] = true;
+    }
+    
+    /**
+     * Adds the specified amount to the value of a stat.
+     * @param stat the stat
+     * @param amount the amount to add
+     */
+    public void add(Stat stat, long amount){
+        values[stat.ordinal()] += amount;
+        present[stat.ordinal()] = true;
+    }
+    
+    /**
+     * Determines whether or not a stat has a positive value.
+     * @param stat the stat
+     * @return true if the value of the stat is greater than 0
+     */
+    public boolean has(Stat stat){
+        return values[stat.ordinal()] > 0;
+    }
+    
+    /**
+     * Sets the value of a stat to 0.
+     * @param stat the stat
+     */
+    public void clear(Stat stat){
+        set(stat, 0);
     }
     
+    /**
+     * Determines whether or not a stat has been set.
+     * @param stat the stat
+     * @return true if the stat has been set
+     */
+    public boolean exists(Stat stat){
+        return present[stat.ordinal()];
+    }
+    
+    //////////////////////////
+    //// String accessors ////
+    //////////////////////////
+    
     /**
      * Sets a new value for a stat.
      * @param stat the stat
      * @param value the new value
      */
-    public void set(String stat, int value){
-        statsMap.put(stat, value);
+    public void set(String stat, long value){
+        Stat s = Stat.fromName(stat);
+        if (s != null) {
+            set(s, value);
+        } else {
+            if (statsMap == null) {
+                statsMap = new HashMap<String,Long>();
+            }
+            statsMap.put(stat, value);
+        }
     }
     
     /**
@@ -47,7 +145,24 @@ public abstract class Stats {
      * @param stat the stat
      * @return the value
      */
-    public int get(String stat){
+    public long get(String stat){
+        Stat s = Stat.fromName(stat);
+        if (s != null && present[s.ordinal()]) {
+            return get(s);
+        }
+        return getOther(stat);
+    }
+    
+    /**
+     * Gets the value of a stat that has not been set as a Stat.
+     * @param stat the stat
+     * @return the value
+     * @throws NullPointerException if the stat has never been set
+     */
+    private long getOther(String stat){
+        if (statsMap == null) {
+            throw new NullPointerException();
+        }
         return statsMap.get(stat);
     }
     
@@ -56,7 +171,7 @@ public abstract class Stats {
      * @param stat the stat
      */
     public void increment(String stat){
-        statsMap.put(stat, get(stat) + 1);
+        set(stat, get(stat) + 1);
     }
     
     /**
@@ -64,7 +179,7 @@ public abstract class Stats {
      * @param stat the stat
      */
     public void decrement(String stat){
-        statsMap.put(stat, get(stat) - 1);
+        set(stat, get(stat) - 1);
     }
     
     /**
@@ -72,8 +187,8 @@ public abstract class Stats {
      * @param stat the stat
      * @param amount the amount to add
      */
-    public void add(String stat, int amount){
-        statsMap.put(stat, get(stat) + amount);
+    public void add(String stat, long amount){
+        set(stat, get(stat) + amount);
     }
     
     /**
@@ -82,7 +197,7 @@ public abstract class Stats {
      * @return true if the value of the stat is greater than 0
      */
     public boolean has(String stat){
-        return statsMap.get(stat) > 0;
+        return get(stat) > 0;
     }
     
     /**
@@ -94,11 +209,15 @@ public abstract class Stats {
     }
     
     /**
-     * Determines whether or not a stat exists in the statsMap.
+     * Determines whether or not a stat exists.
      * @param stat the stat
-     * @return true if statsMap contains the stat key
+     * @return true if the stat has been set
      */
     public boolean exists(String stat){
-        return statsMap.containsKey(stat);
+        Stat s = Stat.fromName(stat);
+        if (s != null && present[s.ordinal()]) {
+            return true;
+        }
+        return statsMap != null && statsMap.containsKey(stat);
     }
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import irccasino.cardgame.Card;
 import irccasino.cardgame.CardDeck;
 import irccasino.cardgame.CardGame;
 import irccasino.cardgame.Hand;
+import irccasino.cardgame.Leaderboard;
 import irccasino.cardgame.Player;
 import irccasino.cardgame.PlayerRecord;
 
@@ -48,9 +49,11 @@ public class Blackjack extends CardGame {
     protected BlackjackPlayer dealer;
     protected ArrayList<HouseStat> houseStatsList;
     protected IdleShuffleTask idleShuffleTask;
+    protected DealerTask dealerTask;
+    protected CleanUpTask cleanUpTask;
     protected HouseStat house;
     // In-game properties
-    protected BlackjackState state;
+    protected volatile BlackjackState state;
     protected boolean insuranceBets;
 
     public Blackjack() {
@@ -87,159 +90,238 @@ public class Blackjack extends CardGame {
         String host = user.getHostmask();
         
         // Commands available in Blackjack.
-        if (command.equalsIgnoreCase("join") || command.equalsIgnoreCase("j")){
-            join(nick, host);
-        } else if (command.equalsIgnoreCase("leave") || command.equalsIgnoreCase("quit") || command.equalsIgnoreCase("l") || command.equalsIgnoreCase("q")){
-            leave(nick, params);
-        } else if (command.equalsIgnoreCase("last")) {
-            last(nick, params);
-        } else if (command.equalsIgnoreCase("start") || command.equalsIgnoreCase("go")){
-            start(nick, params);
-        } else if (command.equalsIgnoreCase("stop")) {
-            stop(nick, params);
-        } else if (command.equalsIgnoreCase("bet") || command.equalsIgnoreCase("b")) {
-            bet(nick, params);
-        } else if (command.equalsIgnoreCase("allin") || command.equalsIgnoreCase("a")){
-            allin(nick, params);
-        } else if (command.equalsIgnoreCase("hit") || command.equalsIgnoreCase("h")) {
-            hit(nick, params);
-        } else if (command.equalsIgnoreCase("stand") || command.equalsIgnoreCase("stay") || command.equalsIgnoreCase("sit")) {
-            stand(nick, params);
-        } else if (command.equalsIgnoreCase("doubledown") || command.equalsIgnoreCase("dd")) {
-            doubledown(nick, params);
-        } else if (command.equalsIgnoreCase("surrender") || command.equalsIgnoreCase("surr")) {
-            surrender(nick, params);
-        } else if (command.equalsIgnoreCase("insure")) {
-            insure(nick, params);
-        } else if (command.equalsIgnoreCase("split")) {
-            split(nick, params);
-        } else if (command.equalsIgnoreCase("table")) {
-            table(nick, params);
-        } else if (command.equalsIgnoreCase("sum")) {
-            sum(nick, params);
-        } else if (command.equalsIgnoreCase("hand")) {
-            hand(nick, params);
-        } else if (command.equalsIgnoreCase("allhands")) {
-            allhands(nick, params);
-        } else if (command.equalsIgnoreCase("turn")) {
-            turn(nick, params);
-        } else if (command.equalsIgnoreCase("zc") || (command.equalsIgnoreCase("zen"))) {
-            zen(nick, params);
-        } else if (command.equalsIgnoreCase("hc") || (command.equalsIgnoreCase("hilo"))) {
-            hilo(nick, params);
-        } else if (command.equalsIgnoreCase("rc") || (command.equalsIgnoreCase("red7"))) {
-            red7(nick, params);
-        } else if (command.equalsIgnoreCase("count") || command.equalsIgnoreCase("c")){
-            count(nick, params);
-        } else if (command.equalsIgnoreCase("numcards") || command.equalsIgnoreCase("ncards")) {
-            numcards(nick, params);
-        } else if (command.equalsIgnoreCase("numdiscards") || command.equalsIgnoreCase("ndiscards")) {
-            numdiscards(nick, params);
-        } else if (command.equalsIgnoreCase("numdecks") || command.equalsIgnoreCase("ndecks")) {
-            numdecks(nick, params);
-        } else if (command.equalsIgnoreCase("players")) {
-            players(nick, params);
-        } else if (command.equalsIgnoreCase("house")) {
-            house(nick, params);
-        } else if (command.equalsIgnoreCase("cash") || command.equalsIgnoreCase("stack")) {
-            cash(nick, params);
-        } else if (command.equalsIgnoreCase("netcash") || command.equalsIgnoreCase("net")) {
-            netcash(nick, params);
-        } else if (command.equalsIgnoreCase("bank")) {
-            bank(nick, params);
-        } else if (command.equalsIgnoreCase("bankrupts")) {
-            bankrupts(nick, params);
-        } else if (command.equalsIgnoreCase("winnings")) {
-            winnings(nick, params);
-        } else if (command.equalsIgnoreCase("winrate")) {
-            winrate(nick, params);
-        } else if (command.equalsIgnoreCase("rounds")) {
-            rounds(nick, params);
-        } else if (command.equalsIgnoreCase("player") || command.equalsIgnoreCase("p")){
-            player(nick, params);
-        } else if (command.equalsIgnoreCase("deposit")) {
-            deposit(nick, params);
-        } else if (command.equalsIgnoreCase("withdraw")) {
-            withdraw(nick, params);
-        } else if (command.equalsIgnoreCase("waitlist")) {
-            waitlist(nick, params);
-        } else if (command.equalsIgnoreCase("blacklist")) {
-            blacklist(nick, params);
-        } else if (command.equalsIgnoreCase("rank")) {
-            rank(nick, params);
-        } else if (command.equalsIgnoreCase("top")) {
-            top(nick, params);
-        } else if (command.equalsIgnoreCase("away")){
-            away(nick, params);
-        } else if (command.equalsIgnoreCase("back")){
-            back(nick, params);
-        } else if (command.equalsIgnoreCase("ping")) {
-            ping(nick, params);
-        } else if (command.equalsIgnoreCase("simple")) {
-            simple(nick, params);
-        } else if (command.equalsIgnoreCase("stats")){
-            stats(nick, params);
-        } else if (command.equalsIgnoreCase("grules") || command.equalsIgnoreCase("gamerules")) {
-            grules(nick, params);
-        } else if (command.equalsIgnoreCase("ghelp") || command.equalsIgnoreCase("gamehelp")) {
-            ghelp(nick, params);
-        } else if (command.equalsIgnoreCase("gcommands") || command.equalsIgnoreCase("gamecommands")) {
-            gcommands(user, nick, params);
-        } else if (command.equalsIgnoreCase("game")) {
-            game(nick, params);
-        /* Op commands */
-            } else if (command.equalsIgnoreCase("fj") || command.equalsIgnoreCase("fjoin")){
-            fjoin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fl") || command.equalsIgnoreCase("fq") || command.equalsIgnoreCase("fquit") || command.equalsIgnoreCase("fleave")){
-            fleave(user, nick, params);
-        } else if (command.equalsIgnoreCase("flast")) {
-            flast(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstart") || command.equalsIgnoreCase("fgo")){
-            fstart(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstop")){
-            fstop(user, nick, params);
-        } else if (command.equalsIgnoreCase("fb") || command.equalsIgnoreCase("fbet")){
-            fbet(user, nick, params);
-        } else if (command.equalsIgnoreCase("fallin") || command.equalsIgnoreCase("fa")){
-            fallin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fhit") || command.equalsIgnoreCase("fh")) {
-            fhit(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstay") || command.equalsIgnoreCase("fstand") || command.equalsIgnoreCase("fsit")) {
-            fstand(user, nick, params);
-        } else if (command.equalsIgnoreCase("fdoubledown") || command.equalsIgnoreCase("fdd")) {
-            fdoubledown(user, nick, params);
-        } else if (command.equalsIgnoreCase("fsurrender") || command.equalsIgnoreCase("fsurr")) {
-            fsurrender(user, nick, params);
-        } else if (command.equalsIgnoreCase("fsplit")) {
-            fsplit(user, nick, params);
-        } else if (command.equalsIgnoreCase("finsure")) {
-            finsure(user, nick, params);
-        } else if (command.equalsIgnoreCase("fdeposit")) {
-            fdeposit(user, nick, params);
-        } else if (command.equalsIgnoreCase("fwithdraw")) {
-            fwithdraw(user, nick, params);
-        } else if (command.equalsIgnoreCase("shuffle")){
-            shuffle(user, nick, params);
-        } else if (command.equalsIgnoreCase("reload")){
-            reload(user, nick, params);
-        } else if (command.equalsIgnoreCase("cards")) {
-            cards(user, nick, params);
-        } else if (command.equalsIgnoreCase("discards")) {
-            discards(user, nick, params);
-        } else if (command.equalsIgnoreCase("settings")) {
-            settings(user, nick, params);
-        } else if (command.equalsIgnoreCase("set")){
-            set(user, nick, params);
-        } else if (command.equalsIgnoreCase("get")) {
-            get(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetaway")){
-            resetaway(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetsimple")) {
-            resetsimple(user, nick, params);
-        } else if (command.equalsIgnoreCase("trim")) {
-            trim(user, nick, params);
-        } else if (command.equalsIgnoreCase("test1")){
-            test1(user, nick, params);
+        switch (command) {
+            case "join":
+                join(nick, host);
+                break;
+            case "quit":
+                leave(nick, params);
+                break;
+            case "last":
+                last(nick, params);
+                break;
+            case "start":
+                start(nick, params);
+                break;
+            case "stop":
+                stop(nick, params);
+                break;
+            case "bet":
+                bet(nick, params);
+                break;
+            case "allin":
+                allin(nick, params);
+                break;
+            case "hit":
+                hit(nick, params);
+                break;
+            case "stand":
+                stand(nick, params);
+                break;
+            case "doubledown":
+                doubledown(nick, params);
+                break;
+            case "surrender":
+                surrender(nick, params);
+                break;
+            case "insure":
+                insure(nick, params);
+                break;
+            case "split":
+                split(nick, params);
+                break;
+            case "table":
+                table(nick, params);
+                break;
+            case "sum":
+                sum(nick, params);
+                break;
+            case "hand":
+                hand(nick, params);
+                break;
+            case "allhands":
+                allhands(nick, params);
+                break;
+            case "turn":
+                turn(nick, params);
+                break;
+            case "zen":
+                zen(nick, params);
+                break;
+            case "hilo":
+                hilo(nick, params);
+                break;
+            case "red7":
+                red7(nick, params);
+                break;
+            case "count":
+                count(nick, params);
+                break;
+            case "numcards":
+                numcards(nick, params);
+                break;
+            case "numdiscards":
+                numdiscards(nick, params);
+                break;
+            case "numdecks":
+                numdecks(nick, params);
+                break;
+            case "players":
+                players(nick, params);
+                break;
+            case "house":
+                house(nick, params);
+                break;
+            case "cash":
+                cash(nick, params);
+                break;
+            case "netcash":
+                netcash(nick, params);
+                break;
+            case "bank":
+                bank(nick, params);
+                break;
+            case "bankrupts":
+                bankrupts(nick, params);
+                break;
+            case "winnings":
+                winnings(nick, params);
+                break;
+            case "winrate":
+                winrate(nick, params);
+                break;
+            case "rounds":
+                rounds(nick, params);
+                break;
+            case "player":
+                player(nick, params);
+                break;
+            case "deposit":
+                deposit(nick, params);
+                break;
+            case "withdraw":
+                withdraw(nick, params);
+                break;
+            case "waitlist":
+                waitlist(nick, params);
+                break;
+            case "blacklist":
+                blacklist(nick, params);
+                break;
+            case "rank":
+                rank(nick, params);
+                break;
+            case "top":
+                top(nick, params);
+                break;
+            case "away":
+                away(nick, params);
+                break;
+            case "back":
+                back(nick, params);
+                break;
+            case "ping":
+                ping(nick, params);
+                break;
+            case "simple":
+                simple(nick, params);
+                break;
+            case "stats":
+                stats(nick, params);
+                break;
+            case "grules":
+                grules(nick, params);
+                break;
+            case "ghelp":
+                ghelp(nick, params);
+                break;
+            case "gcommands":
+                gcommands(user, nick, params);
+                break;
+            case "game":
+                game(nick, params);
+                break;
+            /* Op commands */
+            case "fjoin":
+                fjoin(user, nick, params);
+                break;
+            case "fquit":
+                fleave(user, nick, params);
+                break;
+            case "flast":
+                flast(user, nick, params);
+                break;
+            case "fstart":
+                fstart(user, nick, params);
+                break;
+            case "fstop":
+                fstop(user, nick, params);
+                break;
+            case "fbet":
+                fbet(user, nick, params);
+                break;
+            case "fallin":
+                fallin(user, nick, params);
+                break;
+            case "fhit":
+                fhit(user, nick, params);
+                break;
+            case "fstand":
+                fstand(user, nick, params);
+                break;
+            case "fdoubledown":
+                fdoubledown(user, nick, params);
+                break;
+            case "fsurrender":
+                fsurrender(user, nick, params);
+                break;
+            case "fsplit":
+                fsplit(user, nick, params);
+                break;
+            case "finsure":
+                finsure(user, nick, params);
+                break;
+            case "fdeposit":
+                fdeposit(user, nick, params);
+                break;
+            case "fwithdraw":
+                fwithdraw(user, nick, params);
+                break;
+            case "shuffle":
+                shuffle(user, nick, params);
+                break;
+            case "reload":
+                reload(user, nick, params);
+                break;
+            case "cards":
+                cards(user, nick, params);
+                break;
+            case "discards":
+                discards(user, nick, params);
+                break;
+            case "settings":
+                settings(user, nick, params);
+                break;
+            case "set":
+                set(user, nick, params);
+                break;
+            case "get":
+                get(user, nick, params);
+                break;
+            case "resetaway":
+                resetaway(user, nick, params);
+                break;
+            case "resetsimple":
+                resetsimple(user, nick, params);
+                break;
+            case "trim":
+                trim(user, nick, params);
+                break;
+            case "test1":
+                test1(user, nick, params);
+                break;
+            default:
+                break;
         }
     }
 
@@ -296,7 +378,7 @@ public class Blackjack extends CardGame {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -320,7 +402,7 @@ public class Blackjack extends CardGame {
         } else if (state.equals(BlackjackState.CONTINUE_ROUND)) {
             informPlayer(nick, getMsg("game_lagging"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -428,7 +510,7 @@ public class Blackjack extends CardGame {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                insure(Integer.parseInt(params[0]));
+                insure(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -533,7 +615,7 @@ public class Blackjack extends CardGame {
         } else {
             BlackjackPlayer p = (BlackjackPlayer) currentPlayer;
             if (p.hasSplit()){
-                showTurn(p, p.get("currentindex") + 1);
+                showTurn(p, (int) p.get(Stat.CURRENTINDEX) + 1);
             } else {
                 showTurn(p, 0);
             }
@@ -747,7 +829,7 @@ public class Blackjack extends CardGame {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -770,7 +852,7 @@ public class Blackjack extends CardGame {
         } else if (!state.equals(BlackjackState.BETTING)) {
             informPlayer(nick, getMsg("no_betting"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -893,7 +975,7 @@ public class Blackjack extends CardGame {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                insure(Integer.parseInt(params[0]));
+                insure(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -1099,7 +1181,8 @@ public class Blackjack extends CardGame {
         try {
             BufferedReader in = new BufferedReader(new FileReader("housestats.txt"));
             String str;
-            int ndecks, nrounds, cash;
+            int ndecks, nrounds;
+            long cash;
             StringTokenizer st;
             while (in.ready()) {
                 str = in.readLine();
@@ -1112,7 +1195,7 @@ public class Blackjack extends CardGame {
                         st = new StringTokenizer(str);
                         ndecks = Integer.parseInt(st.nextToken());
                         nrounds = Integer.parseInt(st.nextToken());
-                        cash = Integer.parseInt(st.nextToken());
+                        cash = Long.parseLong(st.nextToken());
                         houseStatsList.add(new HouseStat(ndecks, nrounds, cash));
                     }
                     break;
@@ -1187,7 +1270,7 @@ public class Blackjack extends CardGame {
      */
     private HouseStat getHouseStat(int numDecks) {
         for (HouseStat hs : houseStatsList) {
-            if (hs.get("decks") == numDecks) {
+            if (hs.get(Stat.DECKS) == numDecks) {
                 return hs;
             }
         }
@@ -1198,10 +1281,10 @@ public class Blackjack extends CardGame {
      * Calculates the total number of rounds played by all players.
      * @return the total number of rounds
      */
-    private int getTotalRounds(){
-        int total=0;
+    private long getTotalRounds(){
+        long total=0;
         for (HouseStat hs : houseStatsList) {
-            total += hs.get("rounds");
+            total += hs.get(Stat.ROUNDS);
         }
         return total;
     }
@@ -1210,10 +1293,10 @@ public class Blackjack extends CardGame {
      * Calculates the total amount won by the house.
      * @return the total amount won by the house
      */
-    private int getTotalHouse(){
-        int total=0;
+    private long getTotalHouse(){
+        long total=0;
         for (HouseStat hs : houseStatsList) {
-            total += hs.get("cash");
+            total += hs.get(Stat.CASH);
         }
         return total;
     }
@@ -1230,7 +1313,7 @@ public class Blackjack extends CardGame {
     @Override
     public void addWaitlistPlayer(String nick, String host) {
         Player p = new BlackjackPlayer(nick, host);
-        waitlist.add(p);
+        addWaitlistPlayer(p);
         informPlayer(p.getNick(), getMsg("join_waitlist"));
     }
     
@@ -1262,8 +1345,8 @@ public class Blackjack extends CardGame {
                         setIdleOutTask();
                     }
                 } else {
-                    if (p.has("initialbet")){
-                        p.set("quit", 1);
+                    if (p.has(Stat.INITIALBET)){
+                        p.set(Stat.QUIT, 1);
                         informPlayer(p.getNick(), getMsg("remove_end_round"));
                     } else {
                         removeJoined(p);
@@ -1272,14 +1355,14 @@ public class Blackjack extends CardGame {
                 }
                 break;
             case PLAYING:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 if (p == currentPlayer){
                     stay();
                 }
                 break;
             case CONTINUE_ROUND: case END_ROUND:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 break;
             default:
@@ -1306,7 +1389,7 @@ public class Blackjack extends CardGame {
         state = BlackjackState.CONTINUE_ROUND;
         BlackjackPlayer p = (BlackjackPlayer) currentPlayer;
         
-        if (p.get("currentindex") < p.getNumberHands() - 1) {
+        if (p.get(Stat.CURRENTINDEX) < p.getNumberHands() - 1) {
             p.getNextHand();
             quickEval();
         } else {
@@ -1322,30 +1405,58 @@ public class Blackjack extends CardGame {
     @Override
     public void endRound() {
         state = BlackjackState.END_ROUND;
-        BlackjackPlayer p;
-        BlackjackHand dHand;
 
         if (joined.size() >= 1) {
-            house.increment("rounds");
+            house.increment(Stat.ROUNDS);
             // Make dealer decisions
             if (needDealerPlay()) {
                 showTurn(dealer, 0);
-                dHand = dealer.getHand();
-                showPlayerHand(dealer, dHand, 0, true);
-                while (dHand.calcSum() < 17 || (dHand.isSoft17() && has("soft17hit"))) {
-                    // Add a 1 second delay for dramatic effect
-                    try { Thread.sleep(1000); } catch (InterruptedException e){}
-                    dealCard(dHand);
-                    showPlayerHand(dealer, dHand, 0, true);
-                }
+                showPlayerHand(dealer, dealer.getHand(), 0, true);
                 // Add a 1 second delay for dramatic effect
-                try { Thread.sleep(1000); } catch (InterruptedException e){}
+                setDealerTask();
+            } else {
+                showRoundResults();
             }
-            
-            // Show results
-            showResults();
+        } else {
+            showMsg(getMsg("no_players"));
+            cleanUpRound();
+        }
+    }
+    
+    /**
+     * Deals the dealer's next card or shows the results of the round if the
+     * dealer stands. Called by DealerTask after each dramatic delay so that
+     * the bot isn't blocked while the dealer plays.
+     */
+    public void playDealer() {
+        BlackjackHand dHand = dealer.getHand();
+        if (dHand.calcSum() < 17 || (dHand.isSoft17() && has("soft17hit"))) {
+            dealCard(dHand);
+            showPlayerHand(dealer, dHand, 0, true);
             // Add a 1 second delay for dramatic effect
-            try { Thread.sleep(1000); } catch (InterruptedException e){}
+            setDealerTask();
+        } else {
+            showRoundResults();
+        }
+    }
+    
+    /**
+     * Shows the results of the round and schedules the clean-up.
+     */
+    protected void showRoundResults() {
+        showResults();
+        // Add a 1 second delay for dramatic effect
+        setCleanUpTask();
+    }
+    
+    /**
+     * Shows any insurance results, settles the players and resets the game
+     * for the next round. Called by CleanUpTask after the results are shown.
+     */
+    public void cleanUpRound() {
+        BlackjackPlayer p;
+        
+        if (joined.size() >= 1) {
             if (insuranceBets) {
                 showInsuranceResults();
             }
@@ -1355,13 +1466,15 @@ public class Blackjack extends CardGame {
              * 3. Remove players who have quit mid-round
              * 4. Save player data
              * 5. Reset the player
+             * Player data is saved in one transaction for the whole round.
              */
+            beginPlayerData();
             for (int ctr = 0; ctr < joined.size(); ctr++) {
                 p = (BlackjackPlayer) joined.get(ctr);
-                p.increment("bjrounds");
+                p.increment(Stat.BJROUNDS);
 
-                if (p.has("cash")) {
-                    if (p.has("quit")) {
+                if (p.has(Stat.CASH)) {
+                    if (p.has(Stat.QUIT)) {
                         removeJoined(p.getNick());
                         showMsg(getMsg("unjoin"), p.getNickStr(), joined.size());
                         ctr--;
@@ -1369,22 +1482,22 @@ public class Blackjack extends CardGame {
                         savePlayerData(p);
                     }
                 } else {
-                    if (p.has("bank")){
+                    if (p.has(Stat.BANK)){
                         // Make a withdrawal if the player has a positive bankroll
-                        int amount = Math.min(p.get("bank"), get("cash"));
+                        long amount = Math.min(p.get(Stat.BANK), get("cash"));
                         p.bankTransfer(-amount);
                         savePlayerData(p);
                         informPlayer(p.getNick(), getMsg("auto_withdraw"), amount);
                         // Check if the player has quit
-                        if (p.has("quit")){
+                        if (p.has(Stat.QUIT)){
                             removeJoined(p);
                             showMsg(getMsg("unjoin"), p.getNickStr(), joined.size());
                             ctr--;
                         }
                     } else {
                         // Give penalty to players with no cash in their bankroll
-                        p.increment("bankrupts");
-                        blacklist.add(p);
+                        p.increment(Stat.BANKRUPTS);
+                        addBlacklisted(p);
                         removeJoined(p);
                         showMsg(getMsg("unjoin_bankrupt"), p.getNickStr(), joined.size());
                         setRespawnTask(p);
@@ -1394,9 +1507,8 @@ public class Blackjack extends CardGame {
                 
                 resetPlayer(p);
             }
+            commitPlayerData();
             saveGameStats();
-        } else {
-            showMsg(getMsg("no_players"));
         }
         
         resetGame();
@@ -1424,7 +1536,7 @@ public class Blackjack extends CardGame {
         cancelIdleOutTask();
         cancelRespawnTasks();
         cancelIdleShuffleTask();
-        gameTimer.cancel();
+        cancelEndRoundTasks();
         deck = null;
         dealer = null;
         currentPlayer = null;
@@ -1434,9 +1546,7 @@ public class Blackjack extends CardGame {
         showMsg(getMsg("game_end"), getGameNameStr());
         awayList.clear();
         notSimpleList.clear();
-        joined.clear();
-        waitlist.clear();
-        blacklist.clear();
+        clearPlayers();
         cmdMap.clear();
         opCmdMap.clear();
         aliasMap.clear();
@@ -1454,11 +1564,11 @@ public class Blackjack extends CardGame {
     @Override
     protected void resetPlayer(Player p) {
         discardPlayerHand((BlackjackPlayer) p);
-        p.clear("currentindex");
-        p.clear("initialbet");
-        p.clear("quit");
-        p.clear("surrender");
-        p.clear("insurebet");
+        p.clear(Stat.CURRENTINDEX);
+        p.clear(Stat.INITIALBET);
+        p.clear(Stat.QUIT);
+        p.clear(Stat.SURRENDER);
+        p.clear(Stat.INSUREBET);
     }
     
     /**
@@ -1466,7 +1576,7 @@ public class Blackjack extends CardGame {
      */
     public void setIdleShuffleTask() {
         idleShuffleTask = new IdleShuffleTask(this);
-        gameTimer.schedule(idleShuffleTask, get("idleshuffle")*1000);
+        idleShuffleTask.schedule(get("idleshuffle")*1000);
     }
     
     /**
@@ -1475,7 +1585,34 @@ public class Blackjack extends CardGame {
     public void cancelIdleShuffleTask() {
         if (idleShuffleTask != null){
             idleShuffleTask.cancel();
-            gameTimer.purge();
+        }
+    }
+    
+    /**
+     * Schedules the dealer's next step one second from now.
+     */
+    protected void setDealerTask() {
+        dealerTask = new DealerTask(this);
+        dealerTask.schedule(1000);
+    }
+    
+    /**
+     * Schedules the end of round clean-up one second from now.
+     */
+    protected void setCleanUpTask() {
+        cleanUpTask = new CleanUpTask(this);
+        cleanUpTask.schedule(1000);
+    }
+    
+    /**
+     * Cancels any scheduled steps of the end of a round.
+     */
+    protected void cancelEndRoundTasks() {
+        if (dealerTask != null) {
+            dealerTask.cancel();
+        }
+        if (cleanUpTask != null) {
+            cleanUpTask.cancel();
         }
     }
 
@@ -1529,7 +1666,7 @@ public class Blackjack extends CardGame {
             p = (BlackjackPlayer) joined.get(ctr);
             dealHand(p);
             h = p.getHand();
-            h.setBet(p.get("initialbet"));
+            h.setBet(p.get(Stat.INITIALBET));
             // Send the player his hand in a hole game
             if (has("hole")) {
                 informPlayer(p.getNick(), getMsg("bj_hand"), p.getHand(), p.getHand().getBet());
@@ -1563,22 +1700,22 @@ public class Blackjack extends CardGame {
      * 
      * @param amount the bet on the hand
      */
-    private void bet(int amount) {
+    private void bet(long amount) {
         cancelIdleOutTask();    
         BlackjackPlayer p = (BlackjackPlayer) currentPlayer;
         // Check if amount is greater than the player's stack
-        if (amount > p.get("cash")) {
-            informPlayer(p.getNick(), getMsg("bet_too_high"), p.get("cash"));
+        if (amount > p.get(Stat.CASH)) {
+            informPlayer(p.getNick(), getMsg("bet_too_high"), p.get(Stat.CASH));
             setIdleOutTask();
         // Check if the amount is less than minimum bet
-        } else if (amount < get("minbet") && amount < p.get("cash")) {
+        } else if (amount < get("minbet") && amount < p.get(Stat.CASH)) {
             informPlayer(p.getNick(), getMsg("bet_too_low"), get("minbet"));
             setIdleOutTask();
         } else {
-            p.set("initialbet", amount);
-            p.add("cash", -1 * amount);
-            p.add("bjwinnings", -1 * amount);
-            house.add("cash", amount);
+            p.set(Stat.INITIALBET, amount);
+            p.add(Stat.CASH, -1 * amount);
+            p.add(Stat.BJWINNINGS, -1 * amount);
+            house.add(Stat.CASH, amount);
             currentPlayer = getNextPlayer();
             if (currentPlayer == null) {
                 dealTable();
@@ -1628,15 +1765,15 @@ public class Blackjack extends CardGame {
         if (h.hasHit()) {
             informPlayer(p.getNick(), getMsg("no_dd"));
             setIdleOutTask();
-        } else if (p.get("initialbet") > p.get("cash")) {
+        } else if (p.get(Stat.INITIALBET) > p.get(Stat.CASH)) {
             informPlayer(p.getNick(), getMsg("insufficient_funds"));
             setIdleOutTask();
         } else {			
-            p.add("cash", -1 * h.getBet());
-            p.add("bjwinnings", -1 * h.getBet());
-            house.add("cash", h.getBet());
+            p.add(Stat.CASH, -1 * h.getBet());
+            p.add(Stat.BJWINNINGS, -1 * h.getBet());
+            house.add(Stat.CASH, h.getBet());
             h.addBet(h.getBet());
-            showMsg(getMsg("bj_dd"), p.getNickStr(false), h.getBet(), p.get("cash"));
+            showMsg(getMsg("bj_dd"), p.getNickStr(false), h.getBet(), p.get(Stat.CASH));
             dealCard(h);
             showHitResult(p,h);
             continueRound();
@@ -1658,11 +1795,11 @@ public class Blackjack extends CardGame {
             informPlayer(p.getNick(), getMsg("no_surr"));
             setIdleOutTask();
         } else {
-            p.add("cash", calcHalf(p.get("initialbet")));
-            p.add("bjwinnings", calcHalf(p.get("initialbet")));
-            house.add("cash", -1 * calcHalf(p.get("initialbet")));
-            p.set("surrender", 1);
-            showMsg(getMsg("bj_surr"), p.getNickStr(false), p.get("cash"));
+            p.add(Stat.CASH, calcHalf(p.get(Stat.INITIALBET)));
+            p.add(Stat.BJWINNINGS, calcHalf(p.get(Stat.INITIALBET)));
+            house.add(Stat.CASH, -1 * calcHalf(p.get(Stat.INITIALBET)));
+            p.set(Stat.SURRENDER, 1);
+            showMsg(getMsg("bj_surr"), p.getNickStr(false), p.get(Stat.CASH));
             continueRound();
         }
     }
@@ -1672,11 +1809,11 @@ public class Blackjack extends CardGame {
      * 
      * @param amount the insurance bet
      */
-    private void insure(int amount) {
+    private void insure(long amount) {
         cancelIdleOutTask();
         BlackjackPlayer p = (BlackjackPlayer) currentPlayer;
         BlackjackHand h = p.getHand();
-        if (p.has("insurebet")) {
+        if (p.has(Stat.INSUREBET)) {
             informPlayer(p.getNick(), getMsg("already_insured"));
         } else if (!dealerUpcardAce()) {
             informPlayer(p.getNick(), getMsg("no_insure_no_ace"));
@@ -1684,19 +1821,19 @@ public class Blackjack extends CardGame {
             informPlayer(p.getNick(), getMsg("no_insure_has_hit"));
         } else if (p.hasSplit()){
             informPlayer(p.getNick(), getMsg("no_insure_has_split"));
-        } else if (amount > p.get("cash")) {
+        } else if (amount > p.get(Stat.CASH)) {
             informPlayer(p.getNick(), getMsg("insufficient_funds"));
-        } else if (amount > calcHalf(p.get("initialbet"))) {
-            informPlayer(p.getNick(), getMsg("insure_bet_too_high"), calcHalf(p.get("initialbet")));
+        } else if (amount > calcHalf(p.get(Stat.INITIALBET))) {
+            informPlayer(p.getNick(), getMsg("insure_bet_too_high"), calcHalf(p.get(Stat.INITIALBET)));
         } else if (amount <= 0) {
             informPlayer(p.getNick(), getMsg("insure_bet_too_low"));
         } else {
             insuranceBets = true;
-            p.set("insurebet", amount);
-            p.add("cash", -1 * amount);
-            p.add("bjwinnings", -1 * amount);
-            house.add("cash", amount);
-            showMsg(getMsg("bj_insure"), p.getNickStr(false), p.get("insurebet"), p.get("cash"));
+            p.set(Stat.INSUREBET, amount);
+            p.add(Stat.CASH, -1 * amount);
+            p.add(Stat.BJWINNINGS, -1 * amount);
+            house.add(Stat.CASH, amount);
+            showMsg(getMsg("bj_insure"), p.getNickStr(false), p.get(Stat.INSUREBET), p.get(Stat.CASH));
         }
         setIdleOutTask();
     }
@@ -1712,16 +1849,16 @@ public class Blackjack extends CardGame {
         if (!cHand.isPair()) {
             informPlayer(p.getNick(), getMsg("no_pair"));
             setIdleOutTask();
-        } else if (p.get("cash") < cHand.getBet()) {
+        } else if (p.get(Stat.CASH) < cHand.getBet()) {
             informPlayer(p.getNick(), getMsg("insufficient_funds"));
             setIdleOutTask();
         } else {
-            p.add("cash", -1 * cHand.getBet());
-            p.add("bjwinnings", -1 * cHand.getBet());
-            house.add("cash", cHand.getBet());
+            p.add(Stat.CASH, -1 * cHand.getBet());
+            p.add(Stat.BJWINNINGS, -1 * cHand.getBet());
+            house.add(Stat.CASH, cHand.getBet());
             p.splitHand();
             dealCard(cHand);
-            nHand = p.getHand(p.get("currentindex") + 1);
+            nHand = p.getHand((int) p.get(Stat.CURRENTINDEX) + 1);
             dealCard(nHand);
             nHand.setBet(cHand.getBet());
             showSplitHands(p);
@@ -1742,12 +1879,12 @@ public class Blackjack extends CardGame {
         BlackjackPlayer p = (BlackjackPlayer) currentPlayer;
         
         if (p.hasSplit()) {
-            showTurn(p, p.get("currentindex") + 1);
+            showTurn(p, (int) p.get(Stat.CURRENTINDEX) + 1);
         } else {
             showTurn(p, 0);
         }
         
-        if (p.has("quit")){
+        if (p.has(Stat.QUIT)){
             stay();
         } else {
             setIdleOutTask();
@@ -1759,8 +1896,8 @@ public class Blackjack extends CardGame {
      * @param amount
      * @return half of the amount rounded up
      */
-    private int calcHalf(int amount) {
-        return (int) (Math.ceil((double) (amount) / 2.));
+    private long calcHalf(long amount) {
+        return amount / 2 + (amount % 2 > 0 ? 1 : 0);
     }
     
     /**
@@ -1768,7 +1905,7 @@ public class Blackjack extends CardGame {
      * @param h a hand with Blackjack
      * @return the payout
      */
-    private int calcBlackjackPayout(BlackjackHand h){
+    private long calcBlackjackPayout(BlackjackHand h){
         return (2 * h.getBet() + calcHalf(h.getBet()));
     }
     
@@ -1777,7 +1914,7 @@ public class Blackjack extends CardGame {
      * @param h a winning hand
      * @return the payout
      */
-    private int calcWinPayout(BlackjackHand h){
+    private long calcWinPayout(BlackjackHand h){
         return 2 * h.getBet();
     }
     
@@ -1786,8 +1923,8 @@ public class Blackjack extends CardGame {
      * @param p a player with an insurance bet
      * @return the payout
      */
-    private int calcInsurancePayout(BlackjackPlayer p){
-        return 3 * p.get("insurebet");
+    private long calcInsurancePayout(BlackjackPlayer p){
+        return 3 * p.get(Stat.INSUREBET);
     }
     
     /**
@@ -1824,16 +1961,16 @@ public class Blackjack extends CardGame {
      */
     private void payPlayer(BlackjackPlayer p, BlackjackHand h){
         int result = h.compareTo(dealer.getHand());
-        int payout = 0;
+        long payout = 0;
         switch (result){
             case 2: payout = calcBlackjackPayout(h); break;
             case 1: payout = calcWinPayout(h); break;
             case 0: payout = h.getBet(); break;
             default:
         }
-        p.add("cash", payout);
-        p.add("bjwinnings", payout);
-        house.add("cash", -1 * payout);
+        p.add(Stat.CASH, payout);
+        p.add(Stat.BJWINNINGS, payout);
+        house.add(Stat.CASH, -1 * payout);
     }
     
     /**
@@ -1842,9 +1979,9 @@ public class Blackjack extends CardGame {
      */
     private void payPlayerInsurance(BlackjackPlayer p){
         if (dealer.getHand().isBlackjack()) {
-            p.add("cash", calcInsurancePayout(p));
-            p.add("bjwinnings", calcInsurancePayout(p));
-            house.add("cash", -1 * calcInsurancePayout(p));
+            p.add(Stat.CASH, calcInsurancePayout(p));
+            p.add(Stat.BJWINNINGS, calcInsurancePayout(p));
+            house.add(Stat.CASH, -1 * calcInsurancePayout(p));
         }
     }
 
@@ -1916,21 +2053,7 @@ public class Blackjack extends CardGame {
     
     @Override
     public int getTotalPlayers(){
-        try {
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int total = 0, numLines = records.size();
-            
-            for (PlayerRecord record : records){
-                if (record.has("bjrounds")){
-                    total++;
-                }
-            }
-            return total;
-        } catch (IOException e){
-            manager.log("Error reading players.txt!");
-            return 0;
-        }
+        return manager.getPlayerStore().countRecords("bjrounds");
     }
     
     //////////////////////////////////////////////
@@ -1957,9 +2080,9 @@ public class Blackjack extends CardGame {
      */
     public void showTurn(Player p, int index) {
         if (state.equals(BlackjackState.BETTING)) {
-            showMsg(getMsg("bj_turn_betting"), p.getNickStr(), p.get("cash"), p.get("cash"));
+            showMsg(getMsg("bj_turn_betting"), p.getNickStr(), p.get(Stat.CASH), p.get(Stat.CASH));
         } else if (index == 0) {
-            showMsg(getMsg("bj_turn"), p.getNickStr());
+            showTurnMsg(getMsg("bj_turn"), p.getNickStr());
         } else {
             showMsg(getMsg("bj_turn_split"), p.getNickStr(), index);
         }
@@ -2041,7 +2164,7 @@ public class Blackjack extends CardGame {
             h = p.getHand(ctr);
             showPlayerHandWithBet(p, h, ctr + 1);
         }
-        showMsg(getMsg("bj_stack"), p.getNickStr(), p.get("cash"));
+        showMsg(getMsg("bj_stack"), p.getNickStr(), p.get(Stat.CASH));
     }
     
     /**
@@ -2051,7 +2174,7 @@ public class Blackjack extends CardGame {
      */
     private void showHitResult(BlackjackPlayer p, BlackjackHand h){
         if (p.hasSplit()) {
-            showPlayerHand(p, h, p.get("currentindex") + 1, false);
+            showPlayerHand(p, h, (int) p.get(Stat.CURRENTINDEX) + 1, false);
         } else {
             showPlayerHand(p, h, 0, false);
         }
@@ -2119,7 +2242,7 @@ public class Blackjack extends CardGame {
 
         for (int ctr = 0; ctr < joined.size(); ctr++) {
             p = (BlackjackPlayer) joined.get(ctr);
-            if (p.has("insurebet")) {
+            if (p.has(Stat.INSUREBET)) {
                 payPlayerInsurance(p);
                 showPlayerInsuranceResult(p);
             }
@@ -2153,20 +2276,20 @@ public class Blackjack extends CardGame {
         }
         int result = h.compareTo(dealer.getHand());
         if (p.hasSurrendered()) {
-            showMsg(getMsg("bj_result_surr"), getSurrStr(), nickStr, h.calcSum(), h, p.get("cash"));
+            showMsg(getMsg("bj_result_surr"), getSurrStr(), nickStr, h.calcSum(), h, p.get(Stat.CASH));
         } else {
             switch (result) {
                 case 2: // Blackjack win
-                    showMsg(getMsg("bj_result_bj"), getWinStr(), nickStr, h, calcBlackjackPayout(h), p.get("cash"));
+                    showMsg(getMsg("bj_result_bj"), getWinStr(), nickStr, h, calcBlackjackPayout(h), p.get(Stat.CASH));
                     break;
                 case 1: // Regular win
-                    showMsg(getMsg("bj_result_win"), getWinStr(), nickStr, h.calcSum(), h, calcWinPayout(h), p.get("cash"));
+                    showMsg(getMsg("bj_result_win"), getWinStr(), nickStr, h.calcSum(), h, calcWinPayout(h), p.get(Stat.CASH));
                     break;
                 case 0: // Push
-                    showMsg(getMsg("bj_result_push"), getPushStr(), nickStr, h.calcSum(), h, h.getBet(), p.get("cash"));
+                    showMsg(getMsg("bj_result_push"), getPushStr(), nickStr, h.calcSum(), h, h.getBet(), p.get(Stat.CASH));
                     break;
                 default: // Loss
-                    showMsg(getMsg("bj_result_loss"), getLossStr(), nickStr, h.calcSum(), h, p.get("cash"));
+                    showMsg(getMsg("bj_result_loss"), getLossStr(), nickStr, h.calcSum(), h, p.get(Stat.CASH));
             }
         }
     }
@@ -2177,9 +2300,9 @@ public class Blackjack extends CardGame {
      */
     private void showPlayerInsuranceResult(BlackjackPlayer p) {
         if (dealer.getHand().isBlackjack()) {
-            showMsg(getMsg("bj_insure_win"), getWinStr(), p.getNickStr(), calcInsurancePayout(p), p.get("cash"));
+            showMsg(getMsg("bj_insure_win"), getWinStr(), p.getNickStr(), calcInsurancePayout(p), p.get(Stat.CASH));
         } else {
-            showMsg(getMsg("bj_insure_loss"), getLossStr(), p.getNickStr(), p.get("cash"));
+            showMsg(getMsg("bj_insure_loss"), getLossStr(), p.getNickStr(), p.get(Stat.CASH));
         }
     }
     
@@ -2187,16 +2310,16 @@ public class Blackjack extends CardGame {
     public void showPlayerWinnings(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_winnings"), p.getNick(false), p.get("bjwinnings"), getGameNameStr());
+            showMsg(getMsg("player_winnings"), p.getNick(false), p.get(Stat.BJWINNINGS), getGameNameStr());
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_winnings"), p.getNick(false), p.get("bjwinnings"), getGameNameStr());
+            showMsg(getMsg("player_winnings"), p.getNick(false), p.get(Stat.BJWINNINGS), getGameNameStr());
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_winnings"), record.getNick(false), record.get("bjwinnings"), getGameNameStr());
+                showMsg(getMsg("player_winnings"), record.getNick(false), record.get(Stat.BJWINNINGS), getGameNameStr());
             }
         }
     }
@@ -2205,26 +2328,26 @@ public class Blackjack extends CardGame {
     public void showPlayerWinRate(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            if (p.get("bjrounds") == 0) {
+            if (p.get(Stat.BJROUNDS) == 0) {
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get("bjwinnings")/(double) p.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get(Stat.BJWINNINGS)/(double) p.get(Stat.BJROUNDS), getGameNameStr());
             }
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            if (p.get("bjrounds") == 0) {
+            if (p.get(Stat.BJROUNDS) == 0) {
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get("bjwinnings")/(double) p.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get(Stat.BJWINNINGS)/(double) p.get(Stat.BJROUNDS), getGameNameStr());
             }
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
-            } else if (record.get("bjrounds") == 0){
+            } else if (record.get(Stat.BJROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), record.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), record.getNick(false), (double) record.get("bjwinnings")/(double) record.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), record.getNick(false), (double) record.get(Stat.BJWINNINGS)/(double) record.get(Stat.BJROUNDS), getGameNameStr());
             }  
         }
     }
@@ -2233,26 +2356,26 @@ public class Blackjack extends CardGame {
     public void showPlayerRounds(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            if (p.get("bjrounds") == 0) {
+            if (p.get(Stat.BJROUNDS) == 0) {
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), p.getNick(false), p.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), p.getNick(false), p.get(Stat.BJROUNDS), getGameNameStr());
             }
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            if (p.get("bjrounds") == 0) {
+            if (p.get(Stat.BJROUNDS) == 0) {
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), p.getNick(false), p.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), p.getNick(false), p.get(Stat.BJROUNDS), getGameNameStr());
             }
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
-            } else if (record.get("bjrounds") == 0){
+            } else if (record.get(Stat.BJROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), record.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), record.getNick(false), record.get("bjrounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), record.getNick(false), record.get(Stat.BJROUNDS), getGameNameStr());
             }  
         }
     } 
@@ -2261,16 +2384,16 @@ public class Blackjack extends CardGame {
     public void showPlayerAllStats(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get("cash"), p.get("bank"), p.get("netcash"), p.get("bankrupts"), p.get("bjwinnings"), p.get("bjrounds"));
+            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get(Stat.CASH), p.get(Stat.BANK), p.get("netcash"), p.get(Stat.BANKRUPTS), p.get(Stat.BJWINNINGS), p.get(Stat.BJROUNDS));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get("cash"), p.get("bank"), p.get("netcash"), p.get("bankrupts"), p.get("bjwinnings"), p.get("bjrounds"));
+            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get(Stat.CASH), p.get(Stat.BANK), p.get("netcash"), p.get(Stat.BANKRUPTS), p.get(Stat.BJWINNINGS), p.get(Stat.BJROUNDS));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_all_stats"), record.getNick(false), record.get("cash"), record.get("bank"), record.get("netcash"), record.get("bankrupts"), record.get("bjwinnings"), record.get("bjrounds"));
+                showMsg(getMsg("player_all_stats"), record.getNick(false), record.get(Stat.CASH), record.get(Stat.BANK), record.get("netcash"), record.get(Stat.BANKRUPTS), record.get(Stat.BJWINNINGS), record.get(Stat.BJROUNDS));
             }
         }
     }
@@ -2282,95 +2405,53 @@ public class Blackjack extends CardGame {
             return;
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int length = records.size();
-            String line = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex, rank = 0;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Double> winrates = new ArrayList<Double>();
-  
-                for (int ctr = 0; ctr < length; ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("bjrounds") == 0){
-                        winrates.add(0.);
-                    } else {
-                        winrates.add((double) aRecord.get("bjwinnings") / (double) aRecord.get("bjrounds"));
-                    }
-                }
-                
-                line += "Blackjack Win Rate: ";
-                
-                // Find the player with the highest value and check if it is 
-                // the requested player. Repeat until found or end.
-                for (int ctr = 0; ctr < length; ctr++){
-                    highIndex = 0;
-                    rank++;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    if (nick.equalsIgnoreCase(nicks.get(highIndex))){
-                        line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " $" + formatDecimal(winrates.get(highIndex)) + " ";
-                        break;
-                    } else {
-                        nicks.remove(highIndex);
-                        winrates.remove(highIndex);
-                    }
-                }
-            } else {
-                String statName = "";
-                if (stat.equalsIgnoreCase("cash")) {
-                    statName = "cash";
-                    line += "Cash: ";
-                } else if (stat.equalsIgnoreCase("bank")) {
-                    statName = "bank";
-                    line += "Bank: ";
-                } else if (stat.equalsIgnoreCase("bankrupts")) {
-                    statName = "bankrupts";
-                    line += "Bankrupts: ";
-                } else if (stat.equalsIgnoreCase("net") || stat.equals("netcash")) {
-                    statName = "netcash";
-                    line += "Net Cash: ";
-                } else if (stat.equalsIgnoreCase("winnings")){
-                    statName = "bjwinnings";
-                    line += "Blackjack Winnings: ";
-                } else if (stat.equalsIgnoreCase("rounds")) {
-                    statName = "bjrounds";
-                    line += "Blackjack Rounds: ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-                
-                // Find the rank of the player
-                for (int ctr = 0; ctr < length; ctr++){
-                    aRecord = records.get(ctr);
-                    if (nick.equalsIgnoreCase(aRecord.getNick())){
-                        if (stat.equalsIgnoreCase("rounds") || stat.equalsIgnoreCase("bankrupts")) {
-                            line += "#" + (ctr+1) + " " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " ";
-                        } else {
-                            line += "#" + (ctr+1) + " " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " $" + formatNumber(aRecord.get(statName)) + " ";
-                        }
-                        break;
-                    }
-                }
-            }
-            
-            // Show rank
-            showMsg(line);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
+        String statName;
+        String line = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "bjwinrate";
+            line += "Blackjack Win Rate: ";
+        } else if (stat.equalsIgnoreCase("cash")) {
+            statName = "cash";
+            line += "Cash: ";
+        } else if (stat.equalsIgnoreCase("bank")) {
+            statName = "bank";
+            line += "Bank: ";
+        } else if (stat.equalsIgnoreCase("bankrupts")) {
+            statName = "bankrupts";
+            line += "Bankrupts: ";
+        } else if (stat.equalsIgnoreCase("net") || stat.equals("netcash")) {
+            statName = "netcash";
+            line += "Net Cash: ";
+        } else if (stat.equalsIgnoreCase("winnings")){
+            statName = "bjwinnings";
+            line += "Blackjack Winnings: ";
+        } else if (stat.equalsIgnoreCase("rounds")) {
+            statName = "bjrounds";
+            line += "Blackjack Rounds: ";
+        } else {
+            throw new IllegalArgumentException();
         }
+        
+        // Look up the rank of the player
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int rank = board.getRank(nick);
+        Leaderboard.Entry entry = board.getEntry(nick);
+        if (rank == 0 || entry == null) {
+            showMsg(getMsg("no_data"), formatNoPing(nick));
+            return;
+        }
+        
+        if (statName.equals("bjwinrate")) {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatDecimal(entry.getScore()) + " ";
+        } else if (statName.equals("bjrounds") || statName.equals("bankrupts")) {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " ";
+        } else {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatNumber(entry.getValue()) + " ";
+        }
+        
+        // Show rank
+        showMsg(line);
     }
         
     @Override
@@ -2379,98 +2460,56 @@ public class Blackjack extends CardGame {
             throw new IllegalArgumentException();
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int end = Math.min(n, records.size());
-            int start = Math.max(end - 10, 0);
-            String title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end;
-            String list = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Double> winrates = new ArrayList<Double>();
-                
-                for (int ctr = 0; ctr < records.size(); ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("bjrounds") == 0){
-                        winrates.add(0.);
-                    } else {
-                        winrates.add((double) aRecord.get("bjwinnings") / (double) aRecord.get("bjrounds"));
-                    }
-                }
-                
-                title += " Blackjack Win Rate ";
-                
-                // Find the player with the highest value, add to output string and remove.
-                for (int ctr = 0; ctr < records.size(); ctr++){
-                    highIndex = 0;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    // Only add those in the required range.
-                    if (ctr >= start) {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " $" + formatDecimal(winrates.get(highIndex)) + " " + Colors.BLACK + ",08";
-                    }
-                    
-                    nicks.remove(highIndex);
-                    winrates.remove(highIndex);
-                    
-                    // Break when we've reached the end of required range
-                    if (ctr + 1 == end) {
-                        break;
-                    }
-                }
+        String statName;
+        String title;
+        String list = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "bjwinrate";
+            title = " Blackjack Win Rate ";
+        } else if (stat.equalsIgnoreCase("cash")) {
+            statName = "cash";
+            title = " Cash ";
+        } else if (stat.equalsIgnoreCase("bank")) {
+            statName = "bank";
+            title = " Bank ";
+        } else if (stat.equalsIgnoreCase("bankrupts")) {
+            statName = "bankrupts";
+            title = " Bankrupts ";
+        } else if (stat.equalsIgnoreCase("net") || stat.equalsIgnoreCase("netcash")) {
+            statName = "netcash";
+            title = " Net Cash ";
+        } else if (stat.equalsIgnoreCase("winnings")){
+            statName = "bjwinnings";
+            title = " Blackjack Winnings ";
+        } else if (stat.equalsIgnoreCase("rounds")) {
+            statName = "bjrounds";
+            title = " Blackjack Rounds ";
+        } else {
+            throw new IllegalArgumentException();
+        }
+        
+        // Only fetch the players in the required range
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int end = Math.min(n, board.size());
+        int start = Math.max(end - 10, 0);
+        title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end + title;
+        
+        int rank = start;
+        for (Leaderboard.Entry entry : board.getEntries(start, end)) {
+            rank++;
+            if (statName.equals("bjwinrate")) {
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatDecimal(entry.getScore()) + " " + Colors.BLACK + ",08";
+            } else if (statName.equals("bjrounds") || statName.equals("bankrupts")) {
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " " + Colors.BLACK + ",08";
             } else {
-                String statName = "";
-                if (stat.equalsIgnoreCase("cash")) {
-                    statName = "cash";
-                    title += " Cash ";
-                } else if (stat.equalsIgnoreCase("bank")) {
-                    statName = "bank";
-                    title += " Bank ";
-                } else if (stat.equalsIgnoreCase("bankrupts")) {
-                    statName = "bankrupts";
-                    title += " Bankrupts ";
-                } else if (stat.equalsIgnoreCase("net") || stat.equalsIgnoreCase("netcash")) {
-                    statName = "netcash";
-                    title += " Net Cash ";
-                } else if (stat.equalsIgnoreCase("winnings")){
-                    statName = "bjwinnings";
-                    title += " Blackjack Winnings ";
-                } else if (stat.equalsIgnoreCase("rounds")) {
-                    statName = "bjrounds";
-                    title += " Blackjack Rounds ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-
-                // Add the players in the required range
-                for (int ctr = start; ctr < end; ctr++){
-                    aRecord = records.get(ctr);
-                    if (stat.equalsIgnoreCase("rounds") || stat.equalsIgnoreCase("bankrupts")) {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " " + Colors.BLACK + ",08";
-                    } else {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " $" + formatNumber(aRecord.get(statName)) + " " + Colors.BLACK + ",08";
-                    }
-                }
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatNumber(entry.getValue()) + " " + Colors.BLACK + ",08";
             }
-            
-            // Output title and the list
-            showMsg(title);
-            showMsg(list);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
         }
+        
+        // Output title and the list
+        showMsg(title);
+        showMsg(list);
     }
     
     ///////////////////////////
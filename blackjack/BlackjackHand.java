@@ -28,7 +28,7 @@ import irccasino.cardgame.Hand;
  */
 class BlackjackHand extends Hand implements Comparable<BlackjackHand>{
     /** Stores the bet on the BlackjackHand. */
-    private int bet;
+    private long bet;
 
     /**
      * Creates a Blackjack hand with no initial bet.
@@ -44,7 +44,7 @@ class BlackjackHand extends Hand implements Comparable<BlackjackHand>{
      * Sets the bet on this Hand to the specified amount.
      * @param amount the amount to set
      */
-    protected void setBet(int amount){
+    protected void setBet(long amount){
         bet = amount;
     }
 
@@ -52,7 +52,7 @@ class BlackjackHand extends Hand implements Comparable<BlackjackHand>{
      * Adds the specified amount to the existing bet.
      * @param amount the amount to add
      */
-    protected void addBet(int amount){
+    protected void addBet(long amount){
         bet += amount;
     }
 
@@ -60,7 +60,7 @@ class BlackjackHand extends Hand implements Comparable<BlackjackHand>{
      * Returns the bet on this Hand.
      * @return the bet on this Hand.
      */
-    protected int getBet(){
+    protected long getBet(){
         return bet;
     }
 
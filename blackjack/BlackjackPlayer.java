@@ -19,6 +19,7 @@
 
 package irccasino.blackjack;
 
+import irccasino.Stat;
 import irccasino.cardgame.Player;
 import java.util.ArrayList;
 
@@ -40,10 +41,10 @@ class BlackjackPlayer extends Player{
     public BlackjackPlayer(String nick, String host){
         super(nick, host);
         hands = new ArrayList<BlackjackHand>();
-        set("initialbet", 0);
-        set("insurebet", 0);
-        set("surrender", 0);
-        set("currentindex", 0);
+        set(Stat.INITIALBET, 0);
+        set(Stat.INSUREBET, 0);
+        set(Stat.SURRENDER, 0);
+        set(Stat.CURRENTINDEX, 0);
     }
 
     /* Blackjack-specific card/hand manipulation methods */
@@ -68,7 +69,7 @@ class BlackjackPlayer extends Player{
      * @return the BlackjackHand at the current index
      */
     protected BlackjackHand getHand(){
-        return hands.get(get("currentindex"));
+        return hands.get((int) get(Stat.CURRENTINDEX));
     }
 
     /**
@@ -76,8 +77,8 @@ class BlackjackPlayer extends Player{
      * @return the BlackjackHand at the incremented index
      */
     protected BlackjackHand getNextHand(){
-        increment("currentindex");
-        return getHand(get("currentindex"));
+        increment(Stat.CURRENTINDEX);
+        return getHand((int) get(Stat.CURRENTINDEX));
     }
 
     /**
@@ -108,7 +109,7 @@ class BlackjackPlayer extends Player{
      * @return true if the player has surrendered.
      */
     protected boolean hasSurrendered(){
-        return get("surrender") == 1;
+        return get(Stat.SURRENDER) == 1;
     }
 
     /* Methods related to splitting hands */
@@ -132,6 +133,6 @@ class BlackjackPlayer extends Player{
         tHand.add(cHand.get(1));
         cHand.remove(1);
 
-        hands.add(get("currentindex") + 1, tHand);
+        hands.add((int) get(Stat.CURRENTINDEX) + 1, tHand);
     }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 
 package irccasino.blackjack;
 
+import irccasino.Stat;
 import irccasino.Stats;
 import irccasino.cardgame.CardGame;
 
@@ -31,21 +32,21 @@ class HouseStat extends Stats {
         this(0, 0, 0);
     }
 
-    public HouseStat(int a, int b, int c) {
+    public HouseStat(int a, int b, long c) {
         super();
-        set("decks", a);
-        set("rounds", b);
-        set("cash", c);
+        set(Stat.DECKS, a);
+        set(Stat.ROUNDS, b);
+        set(Stat.CASH, c);
     }
 
     protected String toFileString() {
-        return get("decks") + " " + get("rounds") + " " + get("cash");
+        return get(Stat.DECKS) + " " + get(Stat.ROUNDS) + " " + get(Stat.CASH);
     }
 
     @Override
     public String toString() {
-        return CardGame.formatNumber(get("rounds")) + " round(s) have been played using " 
-            + CardGame.formatNumber(get("decks")) + " deck shoes. The house has won $"
-            + CardGame.formatNumber(get("cash")) + " during those round(s).";
+        return CardGame.formatNumber(get(Stat.ROUNDS)) + " round(s) have been played using " 
+            + CardGame.formatNumber(get(Stat.DECKS)) + " deck shoes. The house has won $"
+            + CardGame.formatNumber(get(Stat.CASH)) + " during those round(s).";
     }
 }
\ No newline at end of file
@@ -19,21 +19,22 @@
 
 package irccasino.blackjack;
 
-import java.util.TimerTask;
+import irccasino.cardgame.GameTask;
 
 /**
  * Idle shuffle task for shuffling the shoe when nobody is playing.
  * @author Yizhe Shen
  */
-class IdleShuffleTask extends TimerTask {
+class IdleShuffleTask extends GameTask {
     private final Blackjack game;
     
     public IdleShuffleTask(Blackjack g) {
+        super(g);
         game = g;
     }
 
     @Override
-    public void run() {
+    protected void execute() {
         game.shuffleShoe();
     }
 }
\ No newline at end of file
@@ -22,24 +22,109 @@ package irccasino.cardgame;
 import org.pircbotx.Colors;
 
 /**
- * An object that represents a card. 
+ * An object that represents a card. A card is stored as a single int, its
+ * face value times 4 plus its suit value, and the 52 possible cards are
+ * created once and shared. Faces, suits, blackjack values and strings are
+ * looked up in tables built when the class is loaded.
  * @author Yizhe Shen
  */
 public class Card implements Comparable<Card>{
-    /** The card's suit. */
-    private String suit;
-    /** The card's face. */
-    private String face;
+    /** The shared cards indexed by face value * 4 + suit value. */
+    private static final Card[] cards = new Card[52];
+    /** The blackjack value of each face. */
+    private static final int[] blackjackValues = new int[13];
+    /** The IRC colour formatted string of each card. */
+    private static final String[] strings = new String[52];
+    /** The card's face value * 4 + suit value. */
+    private final int code;
+    
+    static {
+        String color;
+        for (int ctr = 0; ctr < 52; ctr++) {
+            if (ctr % 4 == 0) {
+                color = Colors.RED;
+            } else if (ctr % 4 == 1) {
+                color = Colors.BROWN;
+            } else if (ctr % 4 == 2) {
+                color = Colors.DARK_BLUE;
+            } else {
+                color = Colors.BLACK;
+            }
+            strings[ctr] = color + ",00" + CardDeck.faces[ctr / 4] + CardDeck.suits[ctr % 4];
+            cards[ctr] = new Card(ctr);
+        }
+        for (int ctr = 0; ctr < 13; ctr++) {
+            if (CardDeck.faces[ctr].equals("A")) {
+                blackjackValues[ctr] = 11; // Give aces a default value of 11
+            } else if (ctr < 8) {
+                blackjackValues[ctr] = Integer.parseInt(CardDeck.faces[ctr]);
+            } else {
+                blackjackValues[ctr] = 10;
+            }
+        }
+    }
     
     /**
-     * Creates a new Card with suit and face.
+     * Creates a new Card with suit and face. getCard() should be used instead
+     * so that the shared instance is returned.
      * 
      * @param s Card suit.
      * @param f Card face.
+     * @throws IllegalArgumentException if the suit or face is not valid
      */
     public Card(String s, String f){
-        suit = s;
-        face = f;
+        this(getCode(s, f));
+    }
+    
+    private Card(int code) {
+        this.code = code;
+    }
+    
+    /**
+     * Returns the shared card with the specified face and suit values.
+     * 
+     * @param faceValue the index in CardDeck.faces
+     * @param suitValue the index in CardDeck.suits
+     * @return the card
+     */
+    public static Card getCard(int faceValue, int suitValue) {
+        return cards[faceValue * 4 + suitValue];
+    }
+    
+    /**
+     * Returns the shared card with the specified suit and face.
+     * 
+     * @param s Card suit.
+     * @param f Card face.
+     * @return the card
+     * @throws IllegalArgumentException if the suit or face is not valid
+     */
+    public static Card getCard(String s, String f) {
+        return cards[getCode(s, f)];
+    }
+    
+    /**
+     * Returns the code of the card with the specified suit and face.
+     * @param s Card suit.
+     * @param f Card face.
+     * @return face value * 4 + suit value
+     */
+    private static int getCode(String s, String f) {
+        int faceValue = -1, suitValue = -1;
+        for (int ctr = 0; ctr < CardDeck.faces.length; ctr++) {
+            if (f.equals(CardDeck.faces[ctr])) {
+                faceValue = ctr;
+            }
+        }
+        for (int ctr = 0; ctr < CardDeck.suits.length; ctr++) {
+            if (s.equals(CardDeck.suits[ctr])) {
+                suitValue = ctr;
+            }
+        }
+        if (faceValue == -1 || suitValue == -1) {
+            throw new IllegalArgumentException();
+        }
+        return faceValue * 4 + suitValue;
     }
     
     /* Accessor methods */
@@ -49,7 +134,7 @@ public class Card implements Comparable<Card>{
      * @return the card's face
      */
     public String getFace(){
-        return face;
+        return CardDeck.faces[code >> 2];
     }
     
     /**
@@ -58,7 +143,17 @@ public class Card implements Comparable<Card>{
      * @return the card's suit
      */
     public String getSuit(){
-        return suit;
+        return CardDeck.suits[code & 3];
+    }
+    
+    /**
+     * Returns the card's face value * 4 + suit value, which is unique among
+     * the 52 cards.
+     * 
+     * @return the code
+     */
+    public int getCode(){
+        return code;
     }
     
     /**
@@ -67,47 +162,27 @@ public class Card implements Comparable<Card>{
      * @return 10 for face card, 11 for ace or the parsed Integer of the face
      */
     public int getBlackjackValue() {
-        int num;
-        if (face.equals("A")){
-            num = 11; // Give aces a default value of 11
-        } else {
-            try {
-                num = Integer.parseInt(face);
-            } catch (NumberFormatException e) {
-                num = 10;
-            }
-        }
-        return num;
+        return blackjackValues[code >> 2];
     }
     
     /**
      * Returns the index in the static array CardDeck.faces that matches this
      * card's face.
      * 
-     * @return the index or -1 if not found
+     * @return the index
      */
     public int getFaceValue(){
-        for (int ctr=0; ctr < CardDeck.faces.length; ctr++){
-            if (face.equals(CardDeck.faces[ctr])){
-                return ctr;
-            }
-        }
-        return -1;
+        return code >> 2;
     }
     
     /**
      * Returns the index in the static array CardDeck.suits that matches this
      * card's suit.
      * 
-     * @return the index or -1 if not found
+     * @return the index
      */
     public int getSuitValue(){
-        for (int ctr=0; ctr < CardDeck.suits.length; ctr++){
-            if (suit.equals(CardDeck.suits[ctr])){
-                return ctr;
-            }
-        }
-        return -1;
+        return code & 3;
     }
     
     /**
@@ -116,7 +191,7 @@ public class Card implements Comparable<Card>{
      * @return true if they have the same suit
      */
     public boolean sameSuit(Card c) {
-        return isSuit(c.suit);
+        return (code & 3) == (c.code & 3);
     }
     
     /**
@@ -125,7 +200,7 @@ public class Card implements Comparable<Card>{
      * @return true if they have the same face
      */
     public boolean sameFace(Card c) {
-        return isFace(c.face);
+        return (code >> 2) == (c.code >> 2);
     }
     
     /**
@@ -134,7 +209,7 @@ public class Card implements Comparable<Card>{
      * @return true if this card of that suit
      */
     public boolean isSuit(String tsuit) {
-        return suit.equals(tsuit);
+        return getSuit().equals(tsuit);
     }
     
     /**
@@ -143,7 +218,7 @@ public class Card implements Comparable<Card>{
      * @return true if this card has that face
      */
     public boolean isFace(String tface) {
-        return face.equals(tface);
+        return getFace().equals(tface);
     }
     
     /** 
@@ -159,13 +234,7 @@ public class Card implements Comparable<Card>{
         if (c == null) {
             throw new NullPointerException();
         }
-        int valueDiff = getFaceValue() - c.getFaceValue();
-        int suitDiff = getSuitValue() - c.getSuitValue();
-        if (valueDiff == 0){
-            return suitDiff;
-        } else {
-            return valueDiff;
-        }
+        return code - c.code;
     }
     
     /**
@@ -176,18 +245,7 @@ public class Card implements Comparable<Card>{
      */
     @Override
     public String toString(){
-        String color;
-        if (suit.equals(CardDeck.suits[0])){
-            color = Colors.RED;
-        } else if ( suit.equals(CardDeck.suits[1])){
-            color = Colors.BROWN;
-        } else if ( suit.equals(CardDeck.suits[2])){
-            color = Colors.DARK_BLUE;
-        } else {
-            color = Colors.BLACK;
-        }
-        
-        return color+",00"+face+suit;
+        return strings[code];
     }
     
     /**
@@ -197,14 +255,7 @@ public class Card implements Comparable<Card>{
      */
     @Override
     public boolean equals(Object o) {
-        if (o != null && o instanceof Card) {
-            Card c = (Card) o;
-            if (face.equals(c.face) && suit.equals(c.suit) &&
-                hashCode() == c.hashCode()) {
-                return true;
-            }
-        }
-        return false;
+        return o instanceof Card && ((Card) o).code == code;
     }
 
     /**
@@ -213,9 +264,6 @@ public class Card implements Comparable<Card>{
      */
     @Override
     public int hashCode() {
-        int hash = 5;
-        hash = 83 * hash + suit.hashCode();
-        hash = 83 * hash + face.hashCode();
-        return hash;
+        return code;
     }
 }
\ No newline at end of file
@@ -20,10 +20,17 @@
 package irccasino.cardgame;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 /**
  * A class for a deck of playing cards.
+ * The cards are kept in an array with a cursor pointing at the next card to
+ * be dealt, so dealing doesn't move the rest of the deck. The positions of
+ * the undealt cards are indexed by card code, so a specific card can be
+ * taken without searching the deck.
  * @author Yizhe Shen
  */
 public class CardDeck {
@@ -31,10 +38,20 @@ public class CardDeck {
     public static final String[] suits = {"\u2665","\u2666","\u2663","\u2660"};
     /** Card faces with T being 10. */
     public static final String[] faces = {"2","3","4","5","6","7","8","9","T","J","Q","K","A"};
-    /** The main pile of cards. */
-    private ArrayList<Card> cards;
+    /** The main pile of cards. The undealt cards are from top to the end. */
+    private Card[] cards;
+    /** The index of the next card to be dealt. */
+    private int top;
     /** The discard pile. */
-    private ArrayList<Card> discards;
+    private Card[] discards;
+    /** The number of cards in the discard pile. */
+    private int numDiscards;
+    /** The array indices of the undealt cards of each card code. */
+    private int[][] positions;
+    /** The number of undealt cards of each card code. */
+    private int[] counts;
+    /** The entry in positions for the card at each array index. */
+    private int[] slots;
     /** The number of sets of cards in this deck. */
     private int numDecks;
     /** Random number generator. */
@@ -54,9 +71,12 @@ public class CardDeck {
      */
     public CardDeck(int n){
         numDecks = n;
-        cards = new ArrayList<Card>();
-        discards = new ArrayList<Card>();
+        cards = new Card[52 * n];
+        top = 0;
+        discards = new Card[52 * n];
+        numDiscards = 0;
         makeCards();
+        indexCards();
         randGen = new Random();
     }
     
@@ -71,71 +91,90 @@ public class CardDeck {
     }
     
     /**
-     * Returns the number of cards in the cards ArrayList.
+     * Returns the number of undealt cards.
      * 
-     * @return the number of cards in the cards ArrayList
+     * @return the number of undealt cards
      */
     public int getNumberCards(){
-        return cards.size();
+        return cards.length - top;
     }
     
     /**
-     * Returns the number of cards in the discards ArrayList.
+     * Returns the number of cards in the discards.
      * 
-     * @return the number of cards in the discards ArrayList.
+     * @return the number of cards in the discards.
      */
     public int getNumberDiscards(){
-        return discards.size();
+        return numDiscards;
     }
     
     /**
-     * Returns the cards ArrayList.
+     * Returns a read-only view of the undealt cards in the order they will be
+     * dealt.
      * 
      * @return the cards
      */
-    public ArrayList<Card> getCards(){
-        return cards;
+    public List<Card> getCards(){
+        return Collections.unmodifiableList(Arrays.asList(cards).subList(top, cards.length));
     }
     
     /**
-     * Returns the discards ArrayList.
+     * Returns a read-only view of the discards.
      * 
      * @return the discards
      */
-    public ArrayList<Card> getDiscards(){
-        return discards;
+    public List<Card> getDiscards(){
+        return Collections.unmodifiableList(Arrays.asList(discards).subList(0, numDiscards));
     }
     
     /* Card manipulation methods for the deck */
     /**
-     * Takes the first Card from the cards ArrayList.
+     * Takes the next undealt Card.
      * 
      * @return the card taken
+     * @throws IndexOutOfBoundsException if there are no cards left
      */
     public Card takeCard(){
-        return cards.remove(0);
+        if (top == cards.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        Card c = cards[top];
+        unindex(top);
+        cards[top++] = null;
+        return c;
     }
     
     /**
-     * Takes the Card from this deck that matches the specified card.
+     * Takes the Card from this deck that matches the specified card. The
+     * card that was next to be dealt takes its place in the deck.
      * @param c the card to match to
      * @return the matched card or null if not found
      */
     public Card takeCard(Card c){
-        int index = cards.indexOf(c);
-        if (index == -1) {
+        int code = c.getCode();
+        if (counts[code] == 0) {
             return null;
         }
-        return cards.remove(index);
+        return takeCard(positions[code][counts[code] - 1]);
     }
     
     /**
      * Takes a random card from this deck.
-     * @return 
+     * @return the card taken
      */
     public Card takeRandomCard() {
-        int index = randGen.nextInt(cards.size());
-        return cards.remove(index);
+        return takeCard(top + randGen.nextInt(cards.length - top));
+    }
+    
+    /**
+     * Removes the undealt card at the specified array index by swapping it
+     * with the next card to be dealt and dealing it.
+     * @param index the array index
+     * @return the card taken
+     */
+    private Card takeCard(int index) {
+        swap(index, top);
+        return takeCard();
     }
     
     /**
@@ -144,7 +183,10 @@ public class CardDeck {
      * @return the Card at the index
      */
     public Card peekCard(int index) {
-        return cards.get(index);
+        if (index < 0 || index >= cards.length - top) {
+            throw new IndexOutOfBoundsException();
+        }
+        return cards[top + index];
     }
     
     /**
@@ -153,7 +195,9 @@ public class CardDeck {
      * @param cards the ArrayList<Card> to add to discards
      */
     public void addToDiscard(ArrayList<Card> cards){
-        discards.addAll(cards);
+        for (Card c : cards) {
+            addToDiscard(c);
+        }
     }
     
     /**
@@ -162,33 +206,43 @@ public class CardDeck {
      * @param c the Card to discard
      */
     public void addToDiscard(Card c){
-        discards.add(c);
+        if (numDiscards == discards.length) {
+            discards = Arrays.copyOf(discards, discards.length * 2);
+        }
+        discards[numDiscards++] = c;
     }
     
     /**
-     * Merges the discards back into cards.
+     * Merges the discards back into cards. The discards are placed after the
+     * undealt cards.
      */
     public void mergeDiscards(){
-        if (discards.size() > 0){
-            cards.addAll(discards);
-            discards.clear();
+        if (numDiscards > 0){
+            int numCards = cards.length - top;
+            if (numDiscards > top) {
+                // More cards were discarded than dealt
+                Card[] tCards = new Card[numCards + numDiscards];
+                System.arraycopy(cards, top, tCards, 0, numCards);
+                cards = tCards;
+            } else {
+                System.arraycopy(cards, top, cards, top - numDiscards, numCards);
+            }
+            top = cards.length - numCards - numDiscards;
+            System.arraycopy(discards, 0, cards, top + numCards, numDiscards);
+            Arrays.fill(discards, 0, numDiscards, null);
+            numDiscards = 0;
+            indexCards();
         }
     }
     
     /**
-     * Shuffles the cards in the deck.
-     * A temporary ArrayList is created with the existing cards. The cards
-     * ArrayList is then emptied. Cards are then randomly drawn one at a time 
-     * from the temporary ArrayList and added back to the cards ArrayList in the 
-     * order they are drawn. 
+     * Shuffles the undealt cards in the deck.
+     * Uses a Fisher-Yates shuffle in place, swapping each card from the end
+     * of the deck with a randomly chosen card at or before it.
      */
     public void shuffleCards(){
-        ArrayList<Card> tCards = new ArrayList<Card>(cards);
-        int index;
-        cards.clear();
-        while(!tCards.isEmpty()){
-            index = randGen.nextInt(tCards.size());
-            cards.add(tCards.remove(index));
+        for (int ctr = cards.length - 1; ctr > top; ctr--) {
+            swap(ctr, top + randGen.nextInt(ctr - top + 1));
         }
     }
     
@@ -205,12 +259,64 @@ public class CardDeck {
      * Generates numDecks sets of cards.
      */
     private void makeCards(){
+        int index = 0;
         for (int n = 0; n < numDecks; n++){
-            for (String suit : suits) {
-                for (String face : faces) {
-                    cards.add(new Card(suit, face));
+            for (int suit = 0; suit < suits.length; suit++) {
+                for (int face = 0; face < faces.length; face++) {
+                    cards[index++] = Card.getCard(face, suit);
                 }
             }
         }
     }
+    
+    /**
+     * Rebuilds the index of the positions of the undealt cards.
+     */
+    private void indexCards(){
+        counts = new int[52];
+        slots = new int[cards.length];
+        for (int ctr = top; ctr < cards.length; ctr++) {
+            counts[cards[ctr].getCode()]++;
+        }
+        positions = new int[52][];
+        for (int code = 0; code < 52; code++) {
+            positions[code] = new int[Math.max(counts[code], numDecks)];
+            counts[code] = 0;
+        }
+        for (int ctr = top; ctr < cards.length; ctr++) {
+            int code = cards[ctr].getCode();
+            positions[code][counts[code]] = ctr;
+            slots[ctr] = counts[code]++;
+        }
+    }
+    
+    /**
+     * Removes the card at an array index from the index of positions.
+     * @param index the array index
+     */
+    private void unindex(int index){
+        int code = cards[index].getCode();
+        int last = positions[code][--counts[code]];
+        positions[code][slots[index]] = last;
+        slots[last] = slots[index];
+    }
+    
+    /**
+     * Swaps two undealt cards and updates their positions.
+     * @param a an array index
+     * @param b another array index
+     */
+    private void swap(int a, int b){
+        if (a == b) {
+            return;
+        }
+        Card c = cards[a];
+        cards[a] = cards[b];
+        cards[b] = c;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+        positions[cards[a].getCode()][slots[a]] = a;
+        positions[cards[b].getCode()][slots[b]] = b;
+    }
 }
\ No newline at end of file
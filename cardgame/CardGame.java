@@ -19,6 +19,7 @@
 package irccasino.cardgame;
 
 import irccasino.GameManager;
+import irccasino.Stat;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileReader;
@@ -29,8 +30,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.StringTokenizer;
-import java.util.Timer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import org.pircbotx.Channel;
 import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
@@ -55,9 +61,13 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected ArrayList<Player> joined;
     protected ArrayList<Player> blacklist;
     protected ArrayList<Player> waitlist;
+    // Lower case nick to player for each list
+    protected HashMap<String,Player> joinedMap;
+    protected HashMap<String,Player> blacklistMap;
+    protected HashMap<String,Player> waitlistMap;
     protected CardDeck deck; //the deck of cards
     protected Player currentPlayer; //stores the player whose turn it is
-    protected Timer gameTimer;
+    protected ExecutorService mailbox; //handles every event for this game
     /** INI file settings **/
     protected HashMap<String,Integer> settings;
     // Game properties
@@ -70,14 +80,18 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected HashMap<String,String> cmdMap;
     protected HashMap<String,String> opCmdMap;
     protected HashMap<String,String> aliasMap;
+    // Lower case command or alias to command, rebuilt by loadHelp
+    protected volatile HashMap<String,String> dispatchMap;
     protected HashMap<String,String> msgMap;
     protected ArrayList<String> awayList;
     protected ArrayList<String> notSimpleList;
-    // TimerTasks
+    // GameTasks
     protected IdleOutTask idleOutTask;
     protected IdleWarningTask idleWarningTask;
     protected StartRoundTask startRoundTask;
     protected ArrayList<RespawnTask> respawnTasks;
+    // Player saves batched until the end of a round
+    protected PlayerTransaction transaction;
 
     public CardGame() {
         super();
@@ -104,6 +118,12 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     ////////////////////
     //// IRC events ////
     ////////////////////
+    /*
+     * IRC events arrive on the bot's listener threads. Each one is posted to
+     * the game's mailbox so that game state is only touched by the game's
+     * own thread.
+     */
+    
     /**
      * Occurs when a message is sent to the game channel.
      * @param event message event
@@ -115,14 +135,29 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         // Parse the message if it is a command
         if (msg.length() > 1 && msg.charAt(0) == commandChar && 
                 msg.charAt(1) != ' ' && event.getChannel().equals(channel)){
-            StringTokenizer st = new StringTokenizer(msg.substring(1));
-            String command = st.nextToken();
-            String[] params = new String[st.countTokens()];
+            // Ignore anything that isn't a command of this game
+            int end = 1;
+            while (end < msg.length() && !Character.isWhitespace(msg.charAt(end))) {
+                end++;
+            }
+            final String command = getCommand(msg.substring(1, end));
+            if (command == null) {
+                return;
+            }
+            
+            StringTokenizer st = new StringTokenizer(msg.substring(end));
+            final User user = event.getUser();
+            final String[] params = new String[st.countTokens()];
             for (int ctr = 0; ctr < params.length; ctr++){
                 params[ctr] = st.nextToken();
             }
             
-            processCommand(event.getUser(), command, params);
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    processCommand(user, command, params);
+                }
+            });
         }
     }
     
@@ -133,7 +168,13 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     @Override
     public void onPart(PartEvent<PircBotX> event){
         if (event.getChannel().equals(channel)){
-            processPart(event.getUser());
+            final User user = event.getUser();
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    processPart(user);
+                }
+            });
         }
     }
 
@@ -143,7 +184,13 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     @Override
     public void onQuit(QuitEvent<PircBotX> event){
-        processQuit(event.getUser());
+        final User user = event.getUser();
+        post(new Runnable() {
+            @Override
+            public void run() {
+                processQuit(user);
+            }
+        });
     }
 
     /**
@@ -152,7 +199,15 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     @Override
     public void onNickChange(NickChangeEvent<PircBotX> event){
-        processNickChange(event.getUser(), event.getOldNick(), event.getNewNick());
+        final User user = event.getUser();
+        final String oldNick = event.getOldNick();
+        final String newNick = event.getNewNick();
+        post(new Runnable() {
+            @Override
+            public void run() {
+                processNickChange(user, oldNick, newNick);
+            }
+        });
     }
     
     /**
@@ -162,10 +217,58 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     @Override
     public void onKick(KickEvent<PircBotX> event) {
         if (event.getChannel().equals(channel)) {
-            processKick(event.getRecipient());
+            final User recip = event.getRecipient();
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    processKick(recip);
+                }
+            });
         }
     }
     
+    /**
+     * Queues an event to be handled by the game's thread. Events are handled
+     * one at a time in the order they were posted. Events posted after the
+     * game has been shut down are dropped.
+     * @param event the event
+     */
+    public void post(final Runnable event) {
+        try {
+            mailbox.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        event.run();
+                    } catch (RuntimeException e) {
+                        manager.log("Error handling an event for " + channel.getName() + "!");
+                        manager.logException(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The game has been shut down
+        }
+    }
+    
+    /**
+     * Stops the game's thread once the events already posted, such as the
+     * one ending the game, have been handled.
+     */
+    public void shutdown() {
+        mailbox.shutdown();
+    }
+    
+    /**
+     * Waits for the game's thread to stop after shutdown() is called.
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if the thread stopped
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitShutdown(long timeout) throws InterruptedException {
+        return mailbox.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+    
     /////////////////////////////////////////
     //// Methods that process IRC events ////
     /////////////////////////////////////////
@@ -173,7 +276,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * Processes commands in the channel where the game is running.
      * 
      * @param user IRC user who issued the command.
-     * @param command The command that was issued.
+     * @param command The command that was issued, as named in the help file.
      * @param params A list of parameters that were passed along.
      */
     abstract protected void processCommand(User user, String command, String[] params);
@@ -298,7 +401,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("no_start"));
         } else {
             Player p = findJoined(nick);
-            p.set("quit", 1);
+            p.set(Stat.QUIT, 1);
             informPlayer(p.getNick(), getMsg("remove_end_round"));
         }
     }
@@ -439,7 +542,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                transfer(nick, Integer.parseInt(params[0]));
+                transfer(nick, Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -460,7 +563,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                transfer(nick, -Integer.parseInt(params[0]));
+                transfer(nick, -Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -491,9 +594,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @param params 
      */
     protected void rank(String nick, String[] params) {
-        if (isInProgress()) {
-            informPlayer(nick, getMsg("wait_round_end"));
-        } else if (params.length > 1){
+        if (params.length > 1){
             try {
                 showPlayerRank(params[1], params[0]);
             } catch (IllegalArgumentException e) {
@@ -516,9 +617,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @param params 
      */
     protected void top(String nick, String[] params) {
-        if (isInProgress()) {
-            informPlayer(nick, getMsg("wait_round_end"));
-        } else if (params.length > 1){
+        if (params.length > 1){
             try {
                 showTopPlayers(params[1], Integer.parseInt(params[0]));
             } catch (IllegalArgumentException e) {
@@ -760,7 +859,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("no_start"));
         } else {
             Player p = findJoined(params[0]);
-            p.set("quit", 1);
+            p.set(Stat.QUIT, 1);
             informPlayer(nick, getMsg("remove_end_round_nick"), params[0]);
         }
     }
@@ -782,7 +881,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("wait_round_end"));
         } else {
             try {
-                transfer(params[0], Integer.parseInt(params[1]));
+                transfer(params[0], Long.parseLong(params[1]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -806,7 +905,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             informPlayer(nick, getMsg("wait_round_end"));
         } else {
             try {
-                transfer(params[0], -Integer.parseInt(params[1]));
+                transfer(params[0], -Long.parseLong(params[1]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -961,7 +1060,8 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     }
     
     /**
-     * Removes players who haven't played a round of any game from players.txt.
+     * Removes players who haven't played a round of any game from the player
+     * files. players.txt is exported again afterwards.
      * @param user
      * @param nick
      * @param params 
@@ -972,20 +1072,27 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         } else if (manager.gamesInProgress()) {
             informPlayer(nick, getMsg("no_trim"));
         } else {
-            try {
-                ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-                ArrayList<PlayerRecord> newRecords = new ArrayList<PlayerRecord>();
-                loadPlayerFile(records);
-                for (PlayerRecord record : records) {
-                    if (record.has("bjrounds") || record.has("tprounds") || record.has("ttplayed")) {
-                        newRecords.add(record);
-                    }
+            PlayerStore store = manager.getPlayerStore();
+            ArrayList<PlayerRecord> newRecords = new ArrayList<PlayerRecord>();
+            for (PlayerRecord record : store.getRecords()) {
+                if (record.has(Stat.BJROUNDS) || record.has(Stat.TPROUNDS) || record.has(Stat.TTPLAYED)) {
+                    newRecords.add(record);
                 }
-                savePlayerFile(newRecords);
+            }
+            store.setRecords(newRecords);
+            try {
+                store.compact();
+            } catch (IOException e) {
+                manager.log("Error writing to " + store.getDataFile() + "!");
+                informPlayer(nick, "Error writing to " + store.getDataFile() + "!");
+                return;
+            }
+            try {
+                store.exportText();
                 showMsg("Player data has been trimmed.");
             } catch (IOException e) {
-                manager.log("Error reading players.txt!");
-                informPlayer(nick, "Error reading players.txt!");
+                manager.log("Error writing to " + store.getFile() + "!");
+                informPlayer(nick, "Error writing to " + store.getFile() + "!");
             }
         }
     }
@@ -1002,7 +1109,8 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     }
     
     /**
-     * Public accessor required for GameManager.
+     * Public accessor required for GameManager. It is called from the bot's
+     * listener thread, so the state it reads must be volatile.
      * @return true if a game is in progress
      */
     abstract public boolean isInProgress();
@@ -1057,11 +1165,20 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         joined = new ArrayList<Player>();
         blacklist = new ArrayList<Player>();
         waitlist = new ArrayList<Player>();
-        gameTimer = new Timer("Game Timer");
+        joinedMap = new HashMap<String,Player>();
+        blacklistMap = new HashMap<String,Player>();
+        waitlistMap = new HashMap<String,Player>();
+        mailbox = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "Game " + channel.getName());
+            }
+        });
         settings = new HashMap<String,Integer>();
         cmdMap = new HashMap<String,String>();
         opCmdMap = new HashMap<String,String>();
         aliasMap = new HashMap<String,String>();
+        dispatchMap = new HashMap<String,String>();
         msgMap = new HashMap<String,String>();
         awayList = new ArrayList<String>();
         notSimpleList = new ArrayList<String>();
@@ -1071,7 +1188,6 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         loadStrLib(strFile);
         loadHostList("away.txt", awayList);
         loadHostList("simple.txt", notSimpleList);
-        checkPlayerFile();
         initCustom();
     }
     
@@ -1220,6 +1336,31 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         } catch (IOException e) {
             manager.log("Error reading from " + file + "!");
         }
+        
+        // Build the table used to dispatch commands
+        HashMap<String,String> dispatch = new HashMap<String,String>();
+        for (String cmd : cmdMap.keySet()) {
+            dispatch.put(cmd.toLowerCase(), cmd);
+        }
+        for (String cmd : opCmdMap.keySet()) {
+            dispatch.put(cmd.toLowerCase(), cmd);
+        }
+        for (String a : aliasMap.keySet()) {
+            dispatch.put(a.toLowerCase(), aliasMap.get(a));
+        }
+        dispatch.remove("---");
+        dispatchMap = dispatch;
+    }
+    
+    /**
+     * Returns the command that a name or alias issued by a user refers to.
+     * Names are not case sensitive.
+     * @param name the name or alias
+     * @return the command as named in the help file or null if there is no
+     * such command
+     */
+    protected String getCommand(String name) {
+        return dispatchMap.get(name.toLowerCase());
     }
     
     /**
@@ -1244,6 +1385,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             addPlayer(p);
         }
         waitlist.clear();
+        waitlistMap.clear();
     }
     
     /**
@@ -1252,10 +1394,10 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     protected void setRespawnTask(Player p) {
         // Calculate extra time penalty for players with debt
-        int penalty = Math.max(-1 * p.get("bank") / 1000 * 60, 0);
+        long penalty = Math.max(-1 * p.get(Stat.BANK) / 1000 * 60, 0);
         informPlayer(p.getNick(), getMsg("bankrupt_info"), (get("respawn") + penalty)/60.);
         RespawnTask task = new RespawnTask(p, this);
-        gameTimer.schedule(task, (get("respawn")+penalty)*1000);
+        task.schedule((get("respawn")+penalty)*1000);
         respawnTasks.add(task);
     }
     
@@ -1267,11 +1409,10 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
             task.cancel();
         }
         respawnTasks.clear();
-        gameTimer.purge();
         // Fast-track loans
         for (Player p : blacklist) {
-            p.set("cash", get("cash"));
-            p.add("bank", -get("cash"));
+            p.set(Stat.CASH, get("cash"));
+            p.add(Stat.BANK, -get("cash"));
             savePlayerData(p);
         }
     }
@@ -1289,7 +1430,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     protected void setStartRoundTask(){
         startRoundTask = new StartRoundTask(this);
-        gameTimer.schedule(startRoundTask, get("startwait") * 1000);
+        startRoundTask.schedule(get("startwait") * 1000);
     }
     
     /**
@@ -1298,7 +1439,6 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void cancelStartRoundTask(){
         if (startRoundTask != null){
             startRoundTask.cancel();
-            gameTimer.purge();
         }
     }
     
@@ -1308,20 +1448,21 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void setIdleOutTask() {
         if (get("idlewarning") < get("idle")) {
             idleWarningTask = new IdleWarningTask(currentPlayer, this);
-            gameTimer.schedule(idleWarningTask, get("idlewarning")*1000);
+            idleWarningTask.schedule(get("idlewarning")*1000);
         }
         idleOutTask = new IdleOutTask(currentPlayer, this);
-        gameTimer.schedule(idleOutTask, get("idle")*1000);
+        idleOutTask.schedule(get("idle")*1000);
     }
     
     /**
      * Cancels any scheduled idleOutTask.
      */
     protected void cancelIdleOutTask() {
-        if (idleOutTask != null){
+        if (idleWarningTask != null){
             idleWarningTask.cancel();
+        }
+        if (idleOutTask != null){
             idleOutTask.cancel();
-            gameTimer.purge();
         }
     }
     
@@ -1352,6 +1493,8 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void addPlayer(Player p){
         User user = findUser(p.getNick());
         joined.add(p);
+        joinedMap.put(p.getNick().toLowerCase(), p);
+        manager.indexPlayer(p.getNick(), this);
         loadPlayerData(p);
         if (user != null){
             manager.voice(channel, user);
@@ -1359,6 +1502,26 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         showMsg(getMsg("join"), p.getNickStr(), joined.size());
     }
     
+    /**
+     * Adds a player to the waitlist.
+     * @param p the player
+     */
+    protected void addWaitlistPlayer(Player p){
+        waitlist.add(p);
+        waitlistMap.put(p.getNick().toLowerCase(), p);
+        manager.indexPlayer(p.getNick(), this);
+    }
+    
+    /**
+     * Adds a player to the end of the blacklist.
+     * @param p the player
+     */
+    protected void addBlacklisted(Player p){
+        blacklist.add(p);
+        blacklistMap.put(p.getNick().toLowerCase(), p);
+        manager.indexBlacklisted(p.getNick(), this);
+    }
+    
     /**
      * Checks if the player is on the joined list.
      * @param nick the player's nick
@@ -1402,6 +1565,8 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void removeJoined(Player p){
         User user = findUser(p.getNick());
         joined.remove(p);
+        joinedMap.remove(p.getNick().toLowerCase());
+        manager.unindexPlayer(p.getNick(), this);
         savePlayerData(p);
         if (user != null){
             manager.deVoice(channel, user);
@@ -1423,6 +1588,8 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     protected void removeWaitlisted(Player p){
         waitlist.remove(p);
+        waitlistMap.remove(p.getNick().toLowerCase());
+        manager.unindexPlayer(p.getNick(), this);
     }
 
     /**
@@ -1431,6 +1598,29 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      */
     protected void removeBlacklisted(Player p){
         blacklist.remove(p);
+        blacklistMap.remove(p.getNick().toLowerCase());
+        manager.unindexBlacklisted(p.getNick(), this);
+    }
+    
+    /**
+     * Removes all players from the joined list, waitlist and blacklist.
+     */
+    protected void clearPlayers(){
+        for (Player p : joined) {
+            manager.unindexPlayer(p.getNick(), this);
+        }
+        for (Player p : waitlist) {
+            manager.unindexPlayer(p.getNick(), this);
+        }
+        for (Player p : blacklist) {
+            manager.unindexBlacklisted(p.getNick(), this);
+        }
+        joined.clear();
+        waitlist.clear();
+        blacklist.clear();
+        joinedMap.clear();
+        waitlistMap.clear();
+        blacklistMap.clear();
     }
     
     /**
@@ -1453,12 +1643,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @return the Player instance or null if not found
      */
     protected Player findJoined(String nick){
-        for (Player p : joined) {
-            if (p.getNick().equalsIgnoreCase(nick)){
-                return p;
-            }  
-        }
-        return null;
+        return joinedMap.get(nick.toLowerCase());
     }
     
     /**
@@ -1467,12 +1652,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @return the Player instance or null if not found
      */
     protected Player findWaitlisted(String nick){
-        for (Player p : waitlist) {
-            if (p.getNick().equalsIgnoreCase(nick)){
-                return p;
-            }  
-        }
-        return null;
+        return waitlistMap.get(nick.toLowerCase());
     }
     
     /**
@@ -1481,12 +1661,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @return the Player instance or null if not found
      */
     protected Player findBlacklisted(String nick){
-        for (Player p : blacklist) {
-            if (p.getNick().equalsIgnoreCase(nick)){
-                return p;
-            }  
-        }
-        return null;
+        return blacklistMap.get(nick.toLowerCase());
     }
     
     /**
@@ -1517,27 +1692,27 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * @param nick the player's nick
      * @param amount the amount to transfer
      */
-    protected void transfer(String nick, int amount){
+    protected void transfer(String nick, long amount){
         Player p = findJoined(nick);
         // Ignore a transfer of $0
         if (amount == 0){
             informPlayer(nick, getMsg("no_transaction"));
         // Disallow withdrawals for bankrolls with insufficient funds
-        } else if (amount < 0 && p.get("bank") < -amount){
+        } else if (amount < 0 && p.get(Stat.BANK) < -amount){
             informPlayer(nick, getMsg("no_withdrawal"));
         // Disallow deposits of amounts larger than cash
-        } else if (amount > 0 && amount > p.get("cash")){
+        } else if (amount > 0 && amount > p.get(Stat.CASH)){
             informPlayer(nick, getMsg("no_deposit_cash"));
         // Disallow deposits that leave the player with $0 cash
-        } else if (amount > 0 && amount == p.get("cash")){
+        } else if (amount > 0 && amount == p.get(Stat.CASH)){
             informPlayer(nick, getMsg("no_deposit_bankrupt"));
         } else {
             p.bankTransfer(amount);
             savePlayerData(p);
             if (amount > 0){
-                showMsg(getMsg("deposit"), p.getNickStr(), amount, p.get("cash"), p.get("bank"));
+                showMsg(getMsg("deposit"), p.getNickStr(), amount, p.get(Stat.CASH), p.get(Stat.BANK));
             } else {
-                showMsg(getMsg("withdraw"), p.getNickStr(), -amount, p.get("cash"), p.get("bank"));
+                showMsg(getMsg("withdraw"), p.getNickStr(), -amount, p.get(Stat.CASH), p.get(Stat.BANK));
             }
         }
     }
@@ -1576,20 +1751,20 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
      * Counts the number of players who have played more than one round of this
      * game.
      * 
-     * @return the total counted from players.txt
+     * @return the total counted from the PlayerStore
      */
     abstract protected int getTotalPlayers();
     
     /**
      * Returns the specified statistic for a nick.
      * If a player is already joined or blacklisted, the value is read from the
-     * Player object. Otherwise, a search is done in players.txt.
+     * Player object. Otherwise, the value is read from the PlayerStore.
      * 
      * @param nick IRC user's nick
      * @param stat the statistic's name
      * @return the desired statistic
      */
-    protected int getPlayerStat(String nick, String stat){
+    protected long getPlayerStat(String nick, String stat){
         if (isBlacklisted(nick)) {
             return findBlacklisted(nick).get(stat);
         } else if (isJoined(nick)) {
@@ -1597,7 +1772,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
-                return Integer.MIN_VALUE;
+                return Long.MIN_VALUE;
             } else {
                 return record.get(stat);
             }
@@ -1605,28 +1780,17 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     }
     
     /**
-     * Returns the player record for the specified nick from players.txt.
+     * Returns a copy of the player record for the specified nick from the
+     * PlayerStore.
      * @param nick
-     * @return 
+     * @return the record or null if the nick has no record
      */
     protected PlayerRecord loadPlayerRecord(String nick) {
-        try {
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            for (PlayerRecord record : records) {
-                if (nick.equalsIgnoreCase(record.getNick())){
-                    return record;
-                }
-            }
-            return null;
-        } catch (IOException e){
-            manager.log("Error reading players.txt!");
-            return null;
-        }
+        return manager.getPlayerStore().getRecord(nick);
     }
     
     /**
-     * Loads a Player's data from players.txt.
+     * Loads a Player's data from the PlayerStore.
      * If a matching nick is found then all statistics are loaded. Otherwise,
      * the player is loaded with default values.
      * 
@@ -1635,134 +1799,93 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void loadPlayerData(Player p) {
         PlayerRecord record = loadPlayerRecord(p.getNick());
         if (record == null) {
-            p.set("cash", get("cash"));
+            p.set(Stat.CASH, get("cash"));
             informPlayer(p.getNick(), getMsg("new_player"), getGameNameStr(), get("cash"));
         } else {
-            if (record.get("cash") <= 0) {
-                p.set("cash", get("cash"));
+            if (record.get(Stat.CASH) <= 0) {
+                p.set(Stat.CASH, get("cash"));
             } else {
-                p.set("cash", record.get("cash"));
+                p.set(Stat.CASH, record.get(Stat.CASH));
             }
-            p.set("bank", record.get("bank"));
-            p.set("bankrupts", record.get("bankrupts"));
-            p.set("bjwinnings", record.get("bjwinnings"));
-            p.set("bjrounds", record.get("bjrounds"));
-            p.set("tpwinnings", record.get("tpwinnings"));
-            p.set("tprounds", record.get("tprounds"));
-            p.set("ttwins", record.get("ttwins"));
-            p.set("ttplayed", record.get("ttplayed"));
+            p.set(Stat.BANK, record.get(Stat.BANK));
+            p.set(Stat.BANKRUPTS, record.get(Stat.BANKRUPTS));
+            p.set(Stat.BJWINNINGS, record.get(Stat.BJWINNINGS));
+            p.set(Stat.BJROUNDS, record.get(Stat.BJROUNDS));
+            p.set(Stat.TPWINNINGS, record.get(Stat.TPWINNINGS));
+            p.set(Stat.TPROUNDS, record.get(Stat.TPROUNDS));
+            p.set(Stat.TTWINS, record.get(Stat.TTWINS));
+            p.set(Stat.TTPLAYED, record.get(Stat.TTPLAYED));
         }
     }
     
     /**
-     * Saves a Player's data into players.txt.
-     * If a matching nick is found, the existing data is overwritten. Otherwise,
-     * a new line is added for the Player.
+     * Returns the record to be saved for a Player.
+     * @param p the Player
+     * @return a new PlayerRecord
+     */
+    protected PlayerRecord getPlayerRecord(Player p) {
+        return new PlayerRecord(p.getNick(), p.get(Stat.CASH),
+                                p.get(Stat.BANK), p.get(Stat.BANKRUPTS),
+                                p.get(Stat.BJWINNINGS), p.get(Stat.BJROUNDS),
+                                p.get(Stat.TPWINNINGS), p.get(Stat.TPROUNDS),
+                                p.get(Stat.TTWINS), p.get(Stat.TTPLAYED));
+    }
+    
+    /**
+     * Returns the stats this game saves for a Player. The rest are kept from
+     * the stored record, so that games saving the same nick at once don't
+     * overwrite each other's stats.
+     * @return the stats to save, or null to save the whole record
+     */
+    protected Stat[] getSavedStats() {
+        return null;
+    }
+    
+    /**
+     * Saves a Player's data into the PlayerStore and appends it to the
+     * journal. If a matching nick is found, the existing data is overwritten.
+     * Otherwise, a new record is added for the Player. While a transaction is
+     * open, the data is held until commitPlayerData() is called.
      * 
      * @param p the Player to save
      */
     protected void savePlayerData(Player p){
-        boolean found = false;
-        ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-        
-        try {
-            loadPlayerFile(records);
-            for (PlayerRecord record : records) {
-                if (p.getNick().equalsIgnoreCase(record.getNick())) {
-                    record.set("cash", p.get("cash"));
-                    record.set("bank", p.get("bank"));
-                    record.set("bankrupts", p.get("bankrupts"));
-                    record.set("bjwinnings", p.get("bjwinnings"));
-                    record.set("bjrounds", p.get("bjrounds"));
-                    record.set("tpwinnings", p.get("tpwinnings"));
-                    record.set("tprounds", p.get("tprounds"));
-                    record.set("ttwins", p.get("ttwins"));
-                    record.set("ttplayed", p.get("ttplayed"));
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                records.add(new PlayerRecord(p.getNick(), p.get("cash"),
-                                        p.get("bank"), p.get("bankrupts"),
-                                        p.get("bjwinnings"), p.get("bjrounds"),
-                                        p.get("tpwinnings"), p.get("tprounds"),
-                                        p.get("ttwins"), p.get("ttplayed")));
-            }
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
+        if (transaction != null) {
+            transaction.add(getPlayerRecord(p), getSavedStats());
+            return;
         }
-
+        
+        PlayerStore store = manager.getPlayerStore();
         try {
-            savePlayerFile(records);
+            store.update(getPlayerRecord(p), getSavedStats());
         } catch (IOException e) {
-            manager.log("Error writing to players.txt!");
+            manager.log("Error writing to " + store.getJournalFile() + "!");
         }
     }
     
     /**
-     * Checks if players.txt exists and creates it if it doesn't exist.
+     * Opens a transaction so that all player data saved until 
+     * commitPlayerData() is written at once.
      */
-    protected final void checkPlayerFile(){
-        try {
-            BufferedReader out = new BufferedReader(new FileReader("players.txt"));
-            out.close();
-        } catch (IOException e){
-            manager.log("players.txt not found! Creating new players.txt...");
-            try {
-                PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter("players.txt")));
-                out.close();
-            } catch (IOException f){
-                manager.log("Error creating players.txt.");
-            }
-        }
+    protected void beginPlayerData() {
+        transaction = manager.getPlayerStore().begin();
     }
     
     /**
-     * Loads players.txt.
-     * Reads the file's contents into an ArrayList of PlayerRecord.
-     * 
-     * @param records stores the records read from file
-     * @throws IOException
-     */
-    protected void loadPlayerFile(ArrayList<PlayerRecord> records) throws IOException {
-        String nick;
-        int cash, bank, bankrupts, bjwinnings, bjrounds, tpwinnings, tprounds, ttwins, ttplayed;
-        
-        BufferedReader in = new BufferedReader(new FileReader("players.txt"));
-        StringTokenizer st;
-        while (in.ready()){
-            st = new StringTokenizer(in.readLine());
-            nick = st.nextToken();
-            cash = Integer.parseInt(st.nextToken());
-            bank = Integer.parseInt(st.nextToken());
-            bankrupts = Integer.parseInt(st.nextToken());
-            bjwinnings = Integer.parseInt(st.nextToken());
-            bjrounds = Integer.parseInt(st.nextToken());
-            tpwinnings = Integer.parseInt(st.nextToken());
-            tprounds = Integer.parseInt(st.nextToken());
-            ttwins = Integer.parseInt(st.nextToken());
-            ttplayed = Integer.parseInt(st.nextToken());
-            records.add(new PlayerRecord(nick, cash, bank, bankrupts, bjwinnings, 
-                                        bjrounds, tpwinnings, tprounds, ttwins, ttplayed));
-        }
-        in.close();
-    }
-    
-    /**
-     * Saves data to players.txt.
-     * Saves an ArrayList of StatFileLine to the file.
-     * 
-     * @param records
-     * @throws IOException
+     * Writes all player data saved since beginPlayerData() as one atomic
+     * step and closes the transaction.
      */
-    protected void savePlayerFile(ArrayList<PlayerRecord> records) throws IOException {
-        PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter("players.txt")));
-        
-        for (PlayerRecord record : records) {
-            out.println(record);
+    protected void commitPlayerData() {
+        PlayerTransaction t = transaction;
+        transaction = null;
+        if (t == null) {
+            return;
+        }
+        try {
+            t.commit();
+        } catch (IOException e) {
+            manager.log("Error writing to " + manager.getPlayerStore().getJournalFile() + "!");
         }
-        out.close();
     }
     
     ////////////////////////////////////////
@@ -1891,6 +2014,15 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         manager.sendMessage(channel, String.format(msg, args));
     }
     
+    /**
+     * Sends a turn prompt to the game channel ahead of informational output.
+     * @param msg the message to send
+     * @param args the parameters for the message
+     */
+    protected final void showTurnMsg(String msg, Object... args){
+        manager.sendPriorityMessage(channel, String.format(msg, args));
+    }
+    
     /**
      * Outputs the start round message to the game channel.
      */
@@ -1909,16 +2041,16 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void showPlayerCash(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_cash"), p.getNick(false), p.get("cash"));
+            showMsg(getMsg("player_cash"), p.getNick(false), p.get(Stat.CASH));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_cash"), p.getNick(false), p.get("cash"));
+            showMsg(getMsg("player_cash"), p.getNick(false), p.get(Stat.CASH));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_cash"), record.getNick(false), record.get("cash"));
+                showMsg(getMsg("player_cash"), record.getNick(false), record.get(Stat.CASH));
             }
         }
     }
@@ -1951,16 +2083,16 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void showPlayerBank(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_bank"), p.getNick(false), p.get("bank"));
+            showMsg(getMsg("player_bank"), p.getNick(false), p.get(Stat.BANK));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_bank"), p.getNick(false), p.get("bank"));
+            showMsg(getMsg("player_bank"), p.getNick(false), p.get(Stat.BANK));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_bank"), record.getNick(false), record.get("bank"));
+                showMsg(getMsg("player_bank"), record.getNick(false), record.get(Stat.BANK));
             }
         }
     }
@@ -1973,16 +2105,16 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     protected void showPlayerBankrupts(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_bankrupts"), p.getNick(false), p.get("bankrupts"));
+            showMsg(getMsg("player_bankrupts"), p.getNick(false), p.get(Stat.BANKRUPTS));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_bankrupts"), p.getNick(false), p.get("bankrupts"));
+            showMsg(getMsg("player_bankrupts"), p.getNick(false), p.get(Stat.BANKRUPTS));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_bankrupts"), record.getNick(false), record.get("bankrupts"));
+                showMsg(getMsg("player_bankrupts"), record.getNick(false), record.get(Stat.BANKRUPTS));
             }
         }
     }
@@ -2021,7 +2153,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
         }
         int cardIndex=0, numOut, n;
         String cardStr;
-        ArrayList<Card> tCards;
+        List<Card> tCards;
         if (type == 'c'){
             tCards = deck.getCards();
         } else {
@@ -2111,7 +2243,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     public static String formatNoDecimal(double n) {
         return String.format("%,.0f", n);
     }
-    public static String formatNumber(int n){
+    public static String formatNumber(long n){
         return String.format("%,d", n);
     }
     public static String formatHeader(String str){
@@ -2120,7 +2252,7 @@ public abstract class CardGame extends ListenerAdapter<PircBotX> {
     public static String formatBold(String str){
         return Colors.BOLD + str + Colors.BOLD;
     }
-    public static String formatBold(int value){
+    public static String formatBold(long value){
         return formatBold(value + "");
     }
     public static String formatNoPing(String str) {
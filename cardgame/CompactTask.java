@@ -0,0 +1,46 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package irccasino.cardgame;
+
+import irccasino.GameManager;
+import java.io.IOException;
+import java.util.TimerTask;
+
+/**
+ * Compaction task for folding the PlayerStore journal into players.dat.
+ * @author Yizhe Shen
+ */
+public class CompactTask extends TimerTask {
+    private final PlayerStore store;
+    private final GameManager manager;
+    
+    public CompactTask(PlayerStore s, GameManager m) {
+        store = s;
+        manager = m;
+    }
+    
+    @Override
+    public void run() {
+        try {
+            store.compact();
+        } catch (IOException e) {
+            manager.log("Error writing to " + store.getDataFile() + "!");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package irccasino.cardgame;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task that is scheduled on the timer shared by all games and then handled
+ * by the game's thread like any other event. When the timer fires, the task
+ * is only posted to the game. A task that is cancelled after it was posted,
+ * but before the game gets to it, does nothing.
+ * 
+ * The timer removes cancelled tasks from its queue right away, so cancelling
+ * a task is O(log n) and nothing needs to be purged.
+ * @author Yizhe Shen
+ */
+public abstract class GameTask implements Runnable {
+    /** The timer thread shared by every game. */
+    private static final ScheduledThreadPoolExecutor scheduler;
+    
+    static {
+        scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Game Timer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+    
+    private final CardGame game;
+    private volatile boolean cancelled;
+    private ScheduledFuture<?> future;
+    
+    public GameTask(CardGame g) {
+        game = g;
+        cancelled = false;
+        future = null;
+    }
+
+    @Override
+    public final void run() {
+        game.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled) {
+                    execute();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Schedules the task to be posted to its game after a delay.
+     * @param delay the delay in milliseconds
+     */
+    public void schedule(long delay) {
+        future = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Cancels the task if it hasn't been handled yet.
+     */
+    public void cancel() {
+        cancelled = true;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+    
+    /**
+     * Performs the task on the game's thread.
+     */
+    abstract protected void execute();
+}
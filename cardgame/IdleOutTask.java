@@ -19,23 +19,22 @@
 
 package irccasino.cardgame;
 
-import java.util.TimerTask;
-
 /**
  * Idle task for removing idle players.
  * @author Yizhe Shen
  */
-public class IdleOutTask extends TimerTask {
+public class IdleOutTask extends GameTask {
     private final Player player;
     private final CardGame game;
     
     public IdleOutTask(Player p, CardGame g) {
+        super(g);
         player = p;
         game = g;
     }
 
     @Override
-    public void run() {
+    protected void execute() {
         game.showMsg(game.getMsg("idle_out"), player.getNickStr());
         game.leave(player);
     }
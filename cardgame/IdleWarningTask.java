@@ -19,23 +19,22 @@
 
 package irccasino.cardgame;
 
-import java.util.TimerTask;
-
 /**
  * Idle warning task for reminding players they are about to idle out.
  * @author Yizhe Shen
  */
-public class IdleWarningTask extends TimerTask {
+public class IdleWarningTask extends GameTask {
     private final Player player;
     private final CardGame game;
     
     public IdleWarningTask(Player p, CardGame g) {
+        super(g);
         player = p;
         game = g;
     }
 
     @Override
-    public void run(){
+    protected void execute() {
         game.showMsg(game.getMsg("idle_warning"), player.getNickStr(), 
                 game.get("idle") - game.get("idlewarning"));
     }
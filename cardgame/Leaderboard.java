@@ -0,0 +1,349 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.cardgame;
+
+import irccasino.Stat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * An order-statistics index of players for one stat, kept up to date by the
+ * PlayerStore as records are saved. Players are ordered by descending score.
+ * Ties go to the player who was added to the index first, which matches the
+ * order of a stable sort of players.txt.
+ * 
+ * The index is a treap with subtree sizes, so updates, rank lookups and
+ * selecting the player at a rank are O(log N). Stats are ordered by their
+ * exact 64-bit values. Win rates are ordered by their double value.
+ * @author Yizhe Shen
+ */
+public class Leaderboard {
+
+    /**
+     * A player's position in a Leaderboard.
+     */
+    public static class Entry {
+        private final String nick;
+        private final double score;
+        private final long value;
+        private final long seq;
+        private final int priority;
+        private Entry left, right;
+        private int size;
+        
+        private Entry(String nick, double score, long value, long seq, int priority) {
+            this.nick = nick;
+            this.score = score;
+            this.value = value;
+            this.seq = seq;
+            this.priority = priority;
+            size = 1;
+        }
+        
+        /**
+         * Returns the nick as stored in the player's record.
+         * @return the nick
+         */
+        public String getNick() {
+            return nick;
+        }
+        
+        /**
+         * Returns the value of the ranked stat or win rate.
+         * @return the score
+         */
+        public double getScore() {
+            return score;
+        }
+        
+        /**
+         * Returns the exact value of the ranked stat.
+         * @return the value or 0 for a win rate
+         */
+        public long getValue() {
+            return value;
+        }
+    }
+    
+    private final String stat;
+    private final HashMap<String,Entry> nickMap;
+    private final Random randGen;
+    private Entry root;
+    private long nextSeq;
+    
+    /**
+     * Creates an empty Leaderboard for the specified stat.
+     * @param stat a record stat or one of bjwinrate, tpwinrate and ttwinrate
+     */
+    public Leaderboard(String stat) {
+        this.stat = stat;
+        nickMap = new HashMap<String,Entry>();
+        randGen = new Random();
+        root = null;
+        nextSeq = 0;
+    }
+    
+    /**
+     * Returns the stat ranked by this Leaderboard.
+     * @return the stat
+     */
+    public String getStat() {
+        return stat;
+    }
+    
+    /**
+     * Returns the score of a record for the specified stat. Win rates are
+     * calculated the same way they are displayed by each game.
+     * @param record the record
+     * @param stat the stat
+     * @return the score
+     */
+    public static double getScore(PlayerRecord record, String stat) {
+        if (stat.equals("bjwinrate")) {
+            if (record.get(Stat.BJROUNDS) == 0) {
+                return 0.;
+            }
+            return (double) record.get(Stat.BJWINNINGS) / (double) record.get(Stat.BJROUNDS);
+        } else if (stat.equals("tpwinrate")) {
+            if (record.get(Stat.TPROUNDS) == 0) {
+                return 0.;
+            }
+            return (double) record.get(Stat.TPWINNINGS) / (double) record.get(Stat.TPROUNDS);
+        } else if (stat.equals("ttwinrate")) {
+            if (record.get(Stat.TTPLAYED) == 0) {
+                return 0.;
+            }
+            return Math.round((double) record.get(Stat.TTWINS) / (double) record.get(Stat.TTPLAYED) * 100);
+        }
+        return record.get(stat);
+    }
+    
+    /**
+     * Returns the exact value of a record for the specified stat.
+     * @param record the record
+     * @param stat the stat
+     * @return the value or 0 for a win rate
+     */
+    public static long getValue(PlayerRecord record, String stat) {
+        if (stat.endsWith("winrate")) {
+            return 0;
+        }
+        return record.get(stat);
+    }
+    
+    /**
+     * Adds or moves a player in the index.
+     * @param record the player's record
+     */
+    public synchronized void update(PlayerRecord record) {
+        String key = record.getNick().toLowerCase();
+        double score = getScore(record, stat);
+        long value = getValue(record, stat);
+        Entry old = nickMap.get(key);
+        long seq;
+        
+        if (old == null) {
+            seq = nextSeq++;
+        } else if (old.score == score && old.value == value) {
+            return;
+        } else {
+            seq = old.seq;
+            root = remove(root, old);
+        }
+        Entry e = new Entry(record.getNick(), score, value, seq, randGen.nextInt());
+        root = insert(root, e);
+        nickMap.put(key, e);
+    }
+    
+    /**
+     * Removes all players from the index.
+     */
+    public synchronized void clear() {
+        root = null;
+        nickMap.clear();
+        nextSeq = 0;
+    }
+    
+    /**
+     * Returns the number of players in the index.
+     * @return the number of players
+     */
+    public synchronized int size() {
+        return nickMap.size();
+    }
+    
+    /**
+     * Returns the entry for the specified nick.
+     * @param nick the player's nick
+     * @return the entry or null if the player isn't ranked
+     */
+    public synchronized Entry getEntry(String nick) {
+        return nickMap.get(nick.toLowerCase());
+    }
+    
+    /**
+     * Returns the rank of the specified nick, starting at 1.
+     * @param nick the player's nick
+     * @return the rank or 0 if the player isn't ranked
+     */
+    public synchronized int getRank(String nick) {
+        Entry e = nickMap.get(nick.toLowerCase());
+        if (e == null) {
+            return 0;
+        }
+        int rank = 1;
+        Entry node = root;
+        while (node != e) {
+            if (compare(e, node) < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+    
+    /**
+     * Returns the entries with ranks start+1 to end in order.
+     * @param start the number of top entries to skip
+     * @param end the rank of the last entry
+     * @return an ArrayList of entries
+     */
+    public synchronized ArrayList<Entry> getEntries(int start, int end) {
+        ArrayList<Entry> list = new ArrayList<Entry>();
+        end = Math.min(end, size(root));
+        for (int ctr = start; ctr < end; ctr++) {
+            list.add(select(ctr));
+        }
+        return list;
+    }
+    
+    /**
+     * Returns the entry at the specified zero-based position.
+     * @param index the position
+     * @return the entry
+     */
+    private Entry select(int index) {
+        Entry node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Orders entries by descending score and value and then by insertion
+     * order.
+     */
+    private static int compare(Entry a, Entry b) {
+        if (a.score > b.score) {
+            return -1;
+        } else if (a.score < b.score) {
+            return 1;
+        } else if (a.value > b.value) {
+            return -1;
+        } else if (a.value < b.value) {
+            return 1;
+        } else if (a.seq < b.seq) {
+            return -1;
+        } else if (a.seq > b.seq) {
+            return 1;
+        }
+        return 0;
+    }
+    
+    private static int size(Entry node) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static void resize(Entry node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+    
+    private static Entry rotateRight(Entry node) {
+        Entry top = node.left;
+        node.left = top.right;
+        top.right = node;
+        resize(node);
+        resize(top);
+        return top;
+    }
+    
+    private static Entry rotateLeft(Entry node) {
+        Entry top = node.right;
+        node.right = top.left;
+        top.left = node;
+        resize(node);
+        resize(top);
+        return top;
+    }
+    
+    private static Entry insert(Entry node, Entry e) {
+        if (node == null) {
+            return e;
+        }
+        if (compare(e, node) < 0) {
+            node.left = insert(node.left, e);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, e);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        resize(node);
+        return node;
+    }
+    
+    private static Entry remove(Entry node, Entry e) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(e, node);
+        if (c < 0) {
+            node.left = remove(node.left, e);
+        } else if (c > 0) {
+            node.right = remove(node.right, e);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = remove(node.right, e);
+        } else {
+            node = rotateLeft(node);
+            node.left = remove(node.left, e);
+        }
+        resize(node);
+        return node;
+    }
+}
@@ -19,6 +19,7 @@
 
 package irccasino.cardgame;
 
+import irccasino.Stat;
 import irccasino.Stats;
 import java.util.Comparator;
 import org.pircbotx.Colors;
@@ -46,16 +47,16 @@ abstract public class Player extends Stats {
         super();
         this.nick = nick;
         this.host = host;
-        set("cash", 0);
-        set("bank", 0);
-        set("bankrupts", 0);
-        set("bjrounds", 0);
-        set("bjwinnings", 0);
-        set("tprounds", 0);
-        set("tpwinnings", 0);
-        set("ttwins", 0);
-        set("ttplayed", 0);
-        set("quit", 0);
+        set(Stat.CASH, 0);
+        set(Stat.BANK, 0);
+        set(Stat.BANKRUPTS, 0);
+        set(Stat.BJROUNDS, 0);
+        set(Stat.BJWINNINGS, 0);
+        set(Stat.TPROUNDS, 0);
+        set(Stat.TPWINNINGS, 0);
+        set(Stat.TTWINS, 0);
+        set(Stat.TTPLAYED, 0);
+        set(Stat.QUIT, 0);
     }
 
     /* Player info methods */
@@ -110,11 +111,11 @@ abstract public class Player extends Stats {
     }
 
     @Override
-    public int get(String stat){
+    public long get(String stat){
         if (stat.equals("exists")){
             return 1;
         } else if (stat.equals("netcash")){
-            return get("cash") + get("bank");
+            return get(Stat.CASH) + get(Stat.BANK);
         }
         return super.get(stat);
     }
@@ -124,9 +125,9 @@ abstract public class Player extends Stats {
      * 
      * @param amount the amount to transfer
      */
-    public void bankTransfer(int amount){
-        add("bank", amount);
-        add("cash", -1 * amount);
+    public void bankTransfer(long amount){
+        add(Stat.BANK, amount);
+        add(Stat.CASH, -1 * amount);
     }
 
     /**
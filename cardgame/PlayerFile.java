@@ -0,0 +1,472 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.cardgame;
+
+import irccasino.Stat;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * A binary player file of fixed-width records with a hash index of nicks.
+ * The file is mapped into memory, so looking up or updating a record only
+ * touches the index slots that are probed and the bytes of that record.
+ * 
+ * The file starts with a header holding a magic number, the format version,
+ * the number of index slots and the number of records. The index follows,
+ * where each slot holds a record number plus one or 0 if it is empty. The
+ * records come last in the order they were added. The index is never more
+ * than half full so that probing stays short.
+ * 
+ * Stats are stored as 64-bit values. Files written by version 1, which
+ * stored 32-bit values, are converted when opened.
+ * @author Yizhe Shen
+ */
+public class PlayerFile {
+    protected static final int magic = 0x49435046;
+    protected static final int version = 2;
+    protected static final int headerSize = 16;
+    protected static final int minSlots = 1024;
+    protected static final int maxNickLength = 64;
+    protected static final Stat[] stats = {Stat.CASH, Stat.BANK, Stat.BANKRUPTS,
+        Stat.BJWINNINGS, Stat.BJROUNDS, Stat.TPWINNINGS, Stat.TPROUNDS,
+        Stat.TTWINS, Stat.TTPLAYED};
+    protected static final int recordSize = getRecordSize(version);
+    protected String path;
+    protected RandomAccessFile raf;
+    protected MappedByteBuffer buffer;
+    protected int slots;
+    protected int count;
+    protected int valueSize;
+    protected int recSize;
+    
+    /**
+     * Creates a PlayerFile for the specified path. The file is not read
+     * until open() is called.
+     * @param path the path of the binary player file
+     */
+    public PlayerFile(String path) {
+        this.path = path;
+        raf = null;
+        buffer = null;
+        slots = 0;
+        count = 0;
+        valueSize = 8;
+        recSize = recordSize;
+    }
+    
+    /**
+     * Returns the path of the file.
+     * @return the path of the file
+     */
+    public String getPath() {
+        return path;
+    }
+    
+    /**
+     * Checks if a nick is short enough to be stored in a player file.
+     * @param nick the nick
+     * @return true if the nick fits
+     */
+    public static boolean fits(String nick) {
+        return nick.length() <= maxNickLength;
+    }
+    
+    /**
+     * Returns the number of records in the file.
+     * @return the number of records
+     */
+    public int size() {
+        return count;
+    }
+    
+    //////////////////////
+    //// File methods ////
+    //////////////////////
+    
+    /**
+     * Maps the file into memory. An empty file is created if it does not
+     * exist and a version 1 file is converted to the current version.
+     * @throws IOException if the file could not be mapped or is not a player file
+     */
+    public void open() throws IOException {
+        if (!new File(path).exists()) {
+            create(path, new ArrayList<PlayerRecord>());
+        }
+        raf = new RandomAccessFile(path, "rw");
+        if (raf.length() < headerSize) {
+            close();
+            throw new IOException("Invalid player file " + path);
+        }
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        int fileVersion = buffer.getInt(4);
+        if (buffer.getInt(0) != magic || fileVersion < 1 || fileVersion > version) {
+            close();
+            throw new IOException("Invalid player file " + path);
+        }
+        slots = buffer.getInt(8);
+        count = buffer.getInt(12);
+        valueSize = fileVersion == 1 ? 4 : 8;
+        recSize = getRecordSize(fileVersion);
+        if (raf.length() != getLength(slots, recSize)) {
+            close();
+            throw new IOException("Invalid player file " + path);
+        }
+        repairCount();
+        if (fileVersion != version) {
+            migrate();
+        }
+    }
+    
+    /**
+     * Sets the number of records to the highest record number in the index.
+     * A new record is written before its index slot and the slot before the
+     * header count, so after a crash the count may lag behind the index. A
+     * record whose slot never reached the disk is dropped and then restored
+     * from the journal.
+     */
+    protected void repairCount() {
+        int max = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            max = Math.max(max, buffer.getInt(headerSize + slot * 4));
+        }
+        if (max != count && max <= slots / 2) {
+            count = max;
+            buffer.putInt(12, count);
+        }
+    }
+    
+    /**
+     * Rewrites an older file in the current version with the same records.
+     * @throws IOException if the new file could not be written
+     */
+    protected void migrate() throws IOException {
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>(count);
+        readAll(list);
+        close();
+        create(path, list);
+        open();
+    }
+    
+    /**
+     * Writes any changes to disk and releases the file.
+     * @throws IOException if the file could not be closed
+     */
+    public void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+    
+    /**
+     * Writes any changes to the mapped records to disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+    
+    /**
+     * Doubles the number of index slots by writing a new file with the same
+     * records.
+     * @throws IOException if the new file could not be written
+     */
+    protected void grow() throws IOException {
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>(count);
+        readAll(list);
+        int newSlots = slots * 2;
+        close();
+        create(path, list, newSlots);
+        open();
+    }
+    
+    /**
+     * Writes a new file containing the specified records.
+     * @param path the path of the file
+     * @param list the records
+     * @throws IOException if the file could not be written
+     */
+    public static void create(String path, ArrayList<PlayerRecord> list) throws IOException {
+        int newSlots = minSlots;
+        while (list.size() >= newSlots / 2) {
+            newSlots *= 2;
+        }
+        create(path, list, newSlots);
+    }
+    
+    /**
+     * Writes a new file with the specified number of index slots. The file is
+     * built next to the target and then renamed over it.
+     * @param path the path of the file
+     * @param list the records
+     * @param newSlots the number of index slots, a power of two
+     * @throws IOException if the file could not be written
+     */
+    protected static void create(String path, ArrayList<PlayerRecord> list, int newSlots) throws IOException {
+        File temp = new File(path + ".tmp");
+        RandomAccessFile out = new RandomAccessFile(temp, "rw");
+        try {
+            out.setLength(0);
+            out.setLength(getLength(newSlots));
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeInt(newSlots);
+            out.writeInt(0);
+        } finally {
+            out.close();
+        }
+        
+        PlayerFile pf = new PlayerFile(temp.getPath());
+        pf.open();
+        try {
+            for (PlayerRecord record : list) {
+                pf.write(record);
+            }
+        } finally {
+            pf.close();
+        }
+        PlayerStore.replaceFile(temp, new File(path));
+    }
+    
+    /**
+     * Returns the length of a file with the specified number of index slots.
+     * @param numSlots the number of index slots
+     * @return the length in bytes
+     */
+    protected static long getLength(int numSlots) {
+        return getLength(numSlots, recordSize);
+    }
+    
+    /**
+     * Returns the length of a file with the specified number of index slots
+     * and record size.
+     * @param numSlots the number of index slots
+     * @param size the size of a record in bytes
+     * @return the length in bytes
+     */
+    protected static long getLength(int numSlots, int size) {
+        return headerSize + numSlots * 4L + (numSlots / 2) * (long) size;
+    }
+    
+    /**
+     * Returns the size of a record in the specified file version.
+     * @param fileVersion the file version
+     * @return the size of a record in bytes
+     */
+    protected static int getRecordSize(int fileVersion) {
+        if (fileVersion == 1) {
+            return 2 + maxNickLength * 2 + stats.length * 4;
+        }
+        return 2 + maxNickLength * 2 + stats.length * 8;
+    }
+    
+    ////////////////////////
+    //// Record methods ////
+    ////////////////////////
+    
+    /**
+     * Returns the record for the specified nick.
+     * @param nick the nick, ignoring case
+     * @return the record or null if the nick is not in the file
+     */
+    public PlayerRecord find(String nick) {
+        int index = buffer.getInt(headerSize + findSlot(nick) * 4);
+        if (index == 0) {
+            return null;
+        }
+        return read(index - 1);
+    }
+    
+    /**
+     * Reads all records in the file in the order they were added.
+     * @param list stores the records
+     */
+    public void readAll(ArrayList<PlayerRecord> list) {
+        for (int ctr = 0; ctr < count; ctr++) {
+            list.add(read(ctr));
+        }
+    }
+    
+    /**
+     * Writes a record in place, overwriting the existing record with the same
+     * nick or adding a new record at the end.
+     * @param record the record to write
+     * @throws IOException if the nick is too long or the file could not grow
+     */
+    public void write(PlayerRecord record) throws IOException {
+        if (!fits(record.getNick())) {
+            throw new IOException("Nick is too long for " + path + ": " + record.getNick());
+        }
+        int slot = findSlot(record.getNick());
+        int index = buffer.getInt(headerSize + slot * 4);
+        if (index == 0) {
+            if (count + 1 >= slots / 2) {
+                grow();
+                slot = findSlot(record.getNick());
+            }
+            index = count + 1;
+            writeRecord(index - 1, record);
+            buffer.putInt(headerSize + slot * 4, index);
+            count++;
+            buffer.putInt(12, count);
+        } else {
+            writeRecord(index - 1, record);
+        }
+    }
+    
+    /**
+     * Returns the index slot that holds the specified nick or the empty slot
+     * where it would be added.
+     * @param nick the nick
+     * @return the slot number
+     */
+    protected int findSlot(String nick) {
+        int h = nick.toLowerCase().hashCode();
+        int slot = (h ^ (h >>> 16)) & (slots - 1);
+        int index;
+        while (true) {
+            index = buffer.getInt(headerSize + slot * 4);
+            if (index == 0 || readNick(index - 1).equalsIgnoreCase(nick)) {
+                return slot;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+    }
+    
+    /**
+     * Returns the byte offset of a record.
+     * @param index the record number
+     * @return the offset
+     */
+    protected int getOffset(int index) {
+        return headerSize + slots * 4 + index * recSize;
+    }
+    
+    /**
+     * Reads the nick of a record.
+     * @param index the record number
+     * @return the nick
+     */
+    protected String readNick(int index) {
+        int offset = getOffset(index);
+        int length = buffer.getShort(offset);
+        char[] chars = new char[length];
+        for (int ctr = 0; ctr < length; ctr++) {
+            chars[ctr] = buffer.getChar(offset + 2 + ctr * 2);
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * Reads a record.
+     * @param index the record number
+     * @return the record
+     */
+    protected PlayerRecord read(int index) {
+        int offset = getOffset(index) + 2 + maxNickLength * 2;
+        PlayerRecord record = new PlayerRecord();
+        record.setNick(readNick(index));
+        for (int ctr = 0; ctr < stats.length; ctr++) {
+            if (valueSize == 4) {
+                record.set(stats[ctr], buffer.getInt(offset + ctr * 4));
+            } else {
+                record.set(stats[ctr], buffer.getLong(offset + ctr * 8));
+            }
+        }
+        return record;
+    }
+    
+    /**
+     * Writes a record.
+     * @param index the record number
+     * @param record the record
+     */
+    protected void writeRecord(int index, PlayerRecord record) {
+        int offset = getOffset(index);
+        String nick = record.getNick();
+        buffer.putShort(offset, (short) nick.length());
+        for (int ctr = 0; ctr < maxNickLength; ctr++) {
+            buffer.putChar(offset + 2 + ctr * 2, ctr < nick.length() ? nick.charAt(ctr) : 0);
+        }
+        offset += 2 + maxNickLength * 2;
+        for (int ctr = 0; ctr < stats.length; ctr++) {
+            buffer.putLong(offset + ctr * 8, record.get(stats[ctr]));
+        }
+    }
+    
+    ////////////////////////////
+    //// Conversion methods ////
+    ////////////////////////////
+    
+    /**
+     * Converts a file in the players.txt format to a binary player file.
+     * Records with nicks too long for the binary file are left out.
+     * @param textPath the text file to read
+     * @param dataPath the binary file to write
+     * @throws IOException if either file could not be accessed
+     */
+    public static void importText(String textPath, String dataPath) throws IOException {
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>();
+        PlayerStore.readRecords(textPath, list);
+        PlayerStore.removeLongNicks(list);
+        create(dataPath, list);
+    }
+    
+    /**
+     * Exports a binary player file to the players.txt format.
+     * @param dataPath the binary file to read
+     * @param textPath the text file to write
+     * @throws IOException if either file could not be accessed
+     */
+    public static void exportText(String dataPath, String textPath) throws IOException {
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>();
+        PlayerFile pf = new PlayerFile(dataPath);
+        pf.open();
+        try {
+            pf.readAll(list);
+        } finally {
+            pf.close();
+        }
+        PlayerStore.writeRecords(textPath, list);
+    }
+    
+    /**
+     * Converts between players.txt and the binary player file for offline
+     * tools. The bot must not be running while a file it uses is converted.
+     * @param args import or export, followed by the source and target paths
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("import")) {
+            importText(args[1], args[2]);
+        } else if (args.length == 3 && args[0].equals("export")) {
+            exportText(args[1], args[2]);
+        } else {
+            System.out.println("Usage: PlayerFile import <players.txt> <players.dat>");
+            System.out.println("       PlayerFile export <players.dat> <players.txt>");
+        }
+    }
+}
@@ -18,6 +18,7 @@
 */
 package irccasino.cardgame;
 
+import irccasino.Stat;
 import irccasino.Stats;
 import java.util.Comparator;
 
@@ -48,20 +49,20 @@ public class PlayerRecord extends Stats{
      * @param ttwins
      * @param ttplayed
      */
-    public PlayerRecord(String nick, int cash, int bank, int bankrupts, 
-            int bjwinnings, int bjrounds, int tpwinnings, int tprounds,
-            int ttwins, int ttplayed){
+    public PlayerRecord(String nick, long cash, long bank, long bankrupts, 
+            long bjwinnings, long bjrounds, long tpwinnings, long tprounds,
+            long ttwins, long ttplayed){
         super();
         this.nick = nick;
-        set("cash", cash);
-        set("bank", bank);
-        set("bankrupts", bankrupts);
-        set("bjwinnings", bjwinnings);
-        set("bjrounds", bjrounds);
-        set("tpwinnings", tpwinnings);
-        set("tprounds", tprounds);
-        set("ttwins", ttwins);
-        set("ttplayed", ttplayed);
+        set(Stat.CASH, cash);
+        set(Stat.BANK, bank);
+        set(Stat.BANKRUPTS, bankrupts);
+        set(Stat.BJWINNINGS, bjwinnings);
+        set(Stat.BJROUNDS, bjrounds);
+        set(Stat.TPWINNINGS, tpwinnings);
+        set(Stat.TPROUNDS, tprounds);
+        set(Stat.TTWINS, ttwins);
+        set(Stat.TTPLAYED, ttplayed);
     }
     
     /**
@@ -94,11 +95,11 @@ public class PlayerRecord extends Stats{
     }
     
     @Override
-    public int get(String stat){
+    public long get(String stat){
         if (stat.equals("exists")){
             return 1;
         } else if (stat.equals("netcash")){
-            return get("cash") + get("bank");
+            return get(Stat.CASH) + get(Stat.BANK);
         }
         return super.get(stat);
     }
@@ -109,24 +110,24 @@ public class PlayerRecord extends Stats{
      */
     public void copy(PlayerRecord a) {
         nick = a.getNick();
-        set("cash", a.get("cash"));
-        set("bank", a.get("bank"));
-        set("bankrupts", a.get("bankrupts"));
-        set("bjwinnings", a.get("bjwinnings"));
-        set("bjrounds", a.get("bjrounds"));
-        set("tpwinnings", a.get("tpwinnings"));
-        set("tprounds", a.get("tprounds"));
-        set("ttwins", a.get("ttwins"));
-        set("ttplayed", a.get("ttplayed"));
+        set(Stat.CASH, a.get(Stat.CASH));
+        set(Stat.BANK, a.get(Stat.BANK));
+        set(Stat.BANKRUPTS, a.get(Stat.BANKRUPTS));
+        set(Stat.BJWINNINGS, a.get(Stat.BJWINNINGS));
+        set(Stat.BJROUNDS, a.get(Stat.BJROUNDS));
+        set(Stat.TPWINNINGS, a.get(Stat.TPWINNINGS));
+        set(Stat.TPROUNDS, a.get(Stat.TPROUNDS));
+        set(Stat.TTWINS, a.get(Stat.TTWINS));
+        set(Stat.TTPLAYED, a.get(Stat.TTPLAYED));
     }
     
     @Override
     public String toString(){
-        return getNick() + " " + get("cash") + " " + get("bank") + 
-                " " + get("bankrupts") + " " + get("bjwinnings") + 
-                " " + get("bjrounds") + " " + get("tpwinnings") + 
-                " " + get("tprounds") + " " + get("ttwins") +
-                " " + get("ttplayed");
+        return getNick() + " " + get(Stat.CASH) + " " + get(Stat.BANK) + 
+                " " + get(Stat.BANKRUPTS) + " " + get(Stat.BJWINNINGS) + 
+                " " + get(Stat.BJROUNDS) + " " + get(Stat.TPWINNINGS) + 
+                " " + get(Stat.TPROUNDS) + " " + get(Stat.TTWINS) +
+                " " + get(Stat.TTPLAYED);
     }
     
     /**
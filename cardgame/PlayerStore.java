@@ -0,0 +1,899 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.cardgame;
+
+import irccasino.Stat;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory copy of the player records that is shared by all games. The
+ * records are kept in a binary PlayerFile, players.dat, which is read once
+ * and records are indexed by nick, ignoring case, so that lookups do not
+ * require a read of the whole file. If players.dat does not exist yet, it is
+ * converted from players.txt on load. Records handed out by the store are
+ * copies and changes must be written back with putRecord() or update().
+ * 
+ * Updates are appended to a journal file instead of rewriting players.dat.
+ * Each journal line holds the full record of one player, so replaying it is
+ * idempotent. Every save is wrapped in begin and commit markers, so records
+ * saved together through a PlayerTransaction are replayed all or not at all
+ * and a line cut off by a crash is never replayed with a wrong value.
+ * compact() folds the journal into players.dat by rewriting only the records
+ * that changed in place. players.txt is only written by exportText().
+ * 
+ * Games in different channels share one store. Each nick is guarded by one
+ * of a fixed set of striped locks, so saves for different players only
+ * contend on the short journal append. Locks are always taken in the order
+ * stripe, record list, journal. Operations on the whole store hold every
+ * stripe.
+ * 
+ * The store also keeps a Leaderboard for each ranked stat, updated whenever
+ * a record is stored, so that rankings never need a sort of all records.
+ * @author Yizhe Shen
+ */
+public class PlayerStore {
+    protected static final String beginMarker = "#begin";
+    protected static final String commitMarker = "#commit";
+    protected static final int numStripes = 64;
+    protected static final String[] rankedStats = {"cash", "bank", "netcash",
+        "bankrupts", "bjwinnings", "bjrounds", "bjwinrate", "tpwinnings",
+        "tprounds", "tpwinrate", "ttwins", "ttplayed", "ttwinrate"};
+    protected String file;
+    protected String dataFile;
+    protected String journalFile;
+    protected PlayerFile playerFile;
+    protected final ArrayList<PlayerRecord> records;
+    protected final ConcurrentHashMap<String,PlayerRecord> nickIndex;
+    protected final ReentrantLock[] stripes;
+    protected final Object journalLock;
+    protected FileOutputStream journalStream;
+    protected PrintWriter journalOut;
+    protected int pendingChanges;
+    protected final HashSet<String> dirty;
+    protected boolean rewrite;
+    // Set when the journal ends in a cut off batch, so that compact()
+    // empties it before anything is appended after the broken lines
+    protected boolean resetJournal;
+    protected final HashMap<String,Leaderboard> leaderboards;
+    // Nothing is written until load() succeeds, so a store that failed to
+    // load can never overwrite the player file with what little it holds
+    protected volatile boolean loaded;
+    
+    /**
+     * Creates an empty store for the specified text player file. The binary
+     * player file is kept next to it with a .dat extension and the journal
+     * with a .journal extension.
+     * @param file the path of the text player file
+     */
+    public PlayerStore(String file) {
+        this.file = file;
+        if (file.endsWith(".txt")) {
+            dataFile = file.substring(0, file.length() - 4) + ".dat";
+        } else {
+            dataFile = file + ".dat";
+        }
+        journalFile = file + ".journal";
+        playerFile = null;
+        records = new ArrayList<PlayerRecord>();
+        nickIndex = new ConcurrentHashMap<String,PlayerRecord>();
+        stripes = new ReentrantLock[numStripes];
+        for (int ctr = 0; ctr < numStripes; ctr++) {
+            stripes[ctr] = new ReentrantLock();
+        }
+        journalLock = new Object();
+        journalStream = null;
+        journalOut = null;
+        pendingChanges = 0;
+        dirty = new HashSet<String>();
+        rewrite = false;
+        resetJournal = false;
+        leaderboards = new HashMap<String,Leaderboard>();
+        for (String stat : rankedStats) {
+            leaderboards.put(stat, new Leaderboard(stat));
+        }
+        loaded = false;
+    }
+    
+    /**
+     * Returns the path of the text player file.
+     * @return the path of the text player file
+     */
+    public String getFile() {
+        return file;
+    }
+    
+    /**
+     * Returns the path of the binary player file.
+     * @return the path of the binary player file
+     */
+    public String getDataFile() {
+        return dataFile;
+    }
+    
+    /**
+     * Returns the path of the journal file.
+     * @return the path of the journal file
+     */
+    public String getJournalFile() {
+        return journalFile;
+    }
+    
+    /**
+     * Returns whether the records have been loaded. Saves are refused and
+     * compact() does nothing until they are.
+     * @return true if load() has succeeded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    /////////////////////////
+    //// Locking methods ////
+    /////////////////////////
+    
+    /**
+     * Returns the index of the stripe guarding the specified nick.
+     * @param nick the player's nick
+     * @return the stripe index
+     */
+    protected int getStripe(String nick) {
+        int h = nick.toLowerCase().hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % numStripes;
+    }
+    
+    /**
+     * Acquires the stripe locks for all of the specified nicks in ascending
+     * order.
+     * @param nicks the players' nicks
+     * @return the indices of the locks acquired
+     */
+    protected ArrayList<Integer> lockStripes(ArrayList<String> nicks) {
+        TreeSet<Integer> indices = new TreeSet<Integer>();
+        for (String nick : nicks) {
+            indices.add(getStripe(nick));
+        }
+        ArrayList<Integer> locked = new ArrayList<Integer>(indices);
+        for (int index : locked) {
+            stripes[index].lock();
+        }
+        return locked;
+    }
+    
+    /**
+     * Releases the specified stripe locks.
+     * @param locked the indices of the locks to release
+     */
+    protected void unlockStripes(ArrayList<Integer> locked) {
+        for (int ctr = locked.size() - 1; ctr >= 0; ctr--) {
+            stripes[locked.get(ctr)].unlock();
+        }
+    }
+    
+    /**
+     * Acquires every stripe lock in ascending order.
+     */
+    protected void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+    
+    /**
+     * Releases every stripe lock.
+     */
+    protected void unlockAll() {
+        for (int ctr = numStripes - 1; ctr >= 0; ctr--) {
+            stripes[ctr].unlock();
+        }
+    }
+    
+    //////////////////////
+    //// File methods ////
+    //////////////////////
+    
+    /**
+     * Replaces the contents of the store with the records in the binary
+     * player file and then replays any updates left in the journal. The text
+     * player file is converted first if there is no binary player file.
+     * Missing files are treated as empty.
+     * @throws IOException if a file could not be read
+     */
+    public void load() throws IOException {
+        ArrayList<PlayerRecord> newRecords = new ArrayList<PlayerRecord>();
+        ArrayList<PlayerRecord> updates = new ArrayList<PlayerRecord>();
+        
+        if (!new File(dataFile).exists() && new File(file).exists()) {
+            PlayerFile.importText(file, dataFile);
+        }
+        PlayerFile newFile = new PlayerFile(dataFile);
+        newFile.open();
+        newFile.readAll(newRecords);
+        int dropped = readJournal(updates);
+        removeLongNicks(updates);
+        lockAll();
+        try {
+            replaceRecords(newRecords);
+            for (PlayerRecord record : updates) {
+                storeRecord(record);
+            }
+            synchronized (journalLock) {
+                if (playerFile != null) {
+                    playerFile.close();
+                }
+                playerFile = newFile;
+                dirty.clear();
+                for (PlayerRecord record : updates) {
+                    dirty.add(record.getNick().toLowerCase());
+                }
+                pendingChanges = updates.size();
+                rewrite = false;
+                resetJournal = dropped > 0;
+                loaded = true;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Reads the records in a file with the players.txt format.
+     * @param path the file to read
+     * @param list stores the records read from file
+     * @throws IOException if the file could not be read
+     */
+    protected static void readRecords(String path, ArrayList<PlayerRecord> list) throws IOException {
+        PlayerRecord record;
+        
+        if (!new File(path).exists()) {
+            return;
+        }
+        
+        BufferedReader in = new BufferedReader(new FileReader(path));
+        try {
+            while (in.ready()){
+                record = parseRecord(in.readLine());
+                if (record != null) {
+                    list.add(record);
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Reads the journal. Records between a begin and commit marker are only
+     * kept if the commit marker was written, so that a round interrupted by
+     * a crash is dropped as a whole. A batch is known to be cut off when a
+     * line of it is incomplete, when it holds as many records as its begin
+     * marker promised and the next line isn't the commit marker, or when
+     * another batch begins. Only that batch is dropped and the lines after
+     * it are replayed as usual.
+     * @param list stores the records read from the journal
+     * @return the number of batches dropped
+     * @throws IOException if the journal could not be read
+     */
+    protected int readJournal(ArrayList<PlayerRecord> list) throws IOException {
+        ArrayList<PlayerRecord> batch = null;
+        PlayerRecord record;
+        String str;
+        int size = -1, dropped = 0;
+        
+        if (!new File(journalFile).exists()) {
+            return 0;
+        }
+        
+        BufferedReader in = new BufferedReader(new FileReader(journalFile));
+        try {
+            while (in.ready()){
+                str = in.readLine();
+                if (batch != null && batch.size() == size && !str.startsWith(commitMarker)) {
+                    batch = null;
+                    dropped++;
+                }
+                if (str.startsWith(beginMarker)) {
+                    if (batch != null) {
+                        dropped++;
+                    }
+                    batch = new ArrayList<PlayerRecord>();
+                    size = parseSize(str);
+                } else if (str.startsWith(commitMarker)) {
+                    if (batch != null) {
+                        list.addAll(batch);
+                    }
+                    batch = null;
+                } else {
+                    record = parseRecord(str);
+                    if (record == null) {
+                        // Only the last line of a crashed append is incomplete
+                        if (batch != null) {
+                            batch = null;
+                            dropped++;
+                        }
+                    } else if (batch != null) {
+                        batch.add(record);
+                    } else {
+                        list.add(record);
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+        if (batch != null) {
+            dropped++;
+        }
+        return dropped;
+    }
+    
+    /**
+     * Parses the number of records in a batch from its begin marker.
+     * @param str the begin marker line
+     * @return the number of records or -1 if it isn't given
+     */
+    protected static int parseSize(String str) {
+        try {
+            return Integer.parseInt(str.substring(beginMarker.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Parses a line with the players.txt format.
+     * @param str the line
+     * @return the record or null if the line is incomplete
+     */
+    protected static PlayerRecord parseRecord(String str) {
+        String nick;
+        long cash, bank, bankrupts, bjwinnings, bjrounds, tpwinnings, tprounds, ttwins, ttplayed;
+        StringTokenizer st = new StringTokenizer(str);
+        
+        // Skip a partially written line at the end of the journal
+        if (st.countTokens() < 10) {
+            return null;
+        }
+        try {
+            nick = st.nextToken();
+            cash = Long.parseLong(st.nextToken());
+            bank = Long.parseLong(st.nextToken());
+            bankrupts = Long.parseLong(st.nextToken());
+            bjwinnings = Long.parseLong(st.nextToken());
+            bjrounds = Long.parseLong(st.nextToken());
+            tpwinnings = Long.parseLong(st.nextToken());
+            tprounds = Long.parseLong(st.nextToken());
+            ttwins = Long.parseLong(st.nextToken());
+            ttplayed = Long.parseLong(st.nextToken());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new PlayerRecord(nick, cash, bank, bankrupts, bjwinnings,
+                                bjrounds, tpwinnings, tprounds, ttwins, ttplayed);
+    }
+    
+    /**
+     * Appends lines to the journal. Must be called while holding journalLock.
+     * @param lines the lines to append
+     * @param sync whether to sync the journal to disk
+     * @throws IOException if the journal could not be written
+     */
+    protected void appendJournal(ArrayList<String> lines, boolean sync) throws IOException {
+        if (journalOut == null) {
+            journalStream = new FileOutputStream(journalFile, true);
+            journalOut = new PrintWriter(new BufferedWriter(new OutputStreamWriter(journalStream)));
+        }
+        for (String line : lines) {
+            journalOut.println(line);
+        }
+        journalOut.flush();
+        if (journalOut.checkError()) {
+            journalOut.close();
+            journalOut = null;
+            journalStream = null;
+            throw new IOException("Error writing to " + journalFile);
+        }
+        if (sync) {
+            journalStream.getFD().sync();
+        }
+    }
+    
+    /**
+     * Throws an exception if the records have not been loaded.
+     * @throws IOException if load() has not succeeded
+     */
+    protected void checkLoaded() throws IOException {
+        if (!loaded) {
+            throw new IOException(dataFile + " has not been loaded");
+        }
+    }
+    
+    /**
+     * Throws an exception if a nick is too long for the player file, so that
+     * it is never journalled and can't block compact().
+     * @param nick the player's nick
+     * @throws IOException if the nick is too long
+     */
+    protected void checkNick(String nick) throws IOException {
+        if (!PlayerFile.fits(nick)) {
+            throw new IOException("Nick is too long for " + dataFile + ": " + nick);
+        }
+    }
+    
+    /**
+     * Removes the records with nicks too long for the player file.
+     * @param list the records
+     */
+    protected static void removeLongNicks(ArrayList<PlayerRecord> list) {
+        Iterator<PlayerRecord> it = list.iterator();
+        while (it.hasNext()) {
+            if (!PlayerFile.fits(it.next().getNick())) {
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Appends the specified record to the journal as a batch of one and then
+     * stores its values. Nothing is stored if the journal can't be written.
+     * The player file itself is not rewritten until compact().
+     * 
+     * If stats are given, only those stats are taken from the record and the
+     * rest are kept from the stored record, all while holding the nick's
+     * lock, so that saves of other stats by other games are never lost.
+     * @param record the record to store
+     * @param stats the only stats to save, or none to save the whole record
+     * @throws IOException if the journal could not be written, the nick is
+     * too long or the records have not been loaded
+     */
+    public void update(PlayerRecord record, Stat... stats) throws IOException {
+        checkLoaded();
+        checkNick(record.getNick());
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>();
+        ArrayList<Stat[]> fields = new ArrayList<Stat[]>();
+        list.add(record);
+        fields.add(stats);
+        commitRecords(list, fields, false);
+    }
+    
+    /**
+     * Returns a new transaction for saving a batch of records at once.
+     * @return a PlayerTransaction for this store
+     */
+    public PlayerTransaction begin() {
+        return new PlayerTransaction(this);
+    }
+    
+    /**
+     * Commits a batch of whole records.
+     * @param list the records to commit
+     * @throws IOException if the journal could not be written, a nick is too
+     * long or the records have not been loaded
+     * @see #commit(ArrayList, ArrayList)
+     */
+    public void commit(ArrayList<PlayerRecord> list) throws IOException {
+        commit(list, null);
+    }
+    
+    /**
+     * Writes a batch of records to the journal between a begin and commit
+     * marker and syncs it to disk, then stores the records. Either all of the
+     * records survive a crash or none of them do. Records with nicks too
+     * long for the player file are left out and the rest are committed
+     * before an exception is thrown for them.
+     * @param list the records to commit
+     * @param fields the only stats to save for each record, where an empty
+     * entry saves the whole record, or null to save every record whole
+     * @throws IOException if the journal could not be written, a nick is too
+     * long or the records have not been loaded
+     */
+    public void commit(ArrayList<PlayerRecord> list, ArrayList<Stat[]> fields) throws IOException {
+        checkLoaded();
+        ArrayList<PlayerRecord> kept = new ArrayList<PlayerRecord>();
+        ArrayList<Stat[]> keptFields = new ArrayList<Stat[]>();
+        String rejected = null;
+        for (int ctr = 0; ctr < list.size(); ctr++) {
+            if (PlayerFile.fits(list.get(ctr).getNick())) {
+                kept.add(list.get(ctr));
+                keptFields.add(fields == null ? null : fields.get(ctr));
+            } else {
+                rejected = list.get(ctr).getNick();
+            }
+        }
+        commitRecords(kept, keptFields, true);
+        if (rejected != null) {
+            checkNick(rejected);
+        }
+    }
+    
+    /**
+     * Merges a batch of records into the stored records, appends the results
+     * to the journal as one batch and stores them once the append has
+     * succeeded. The nicks must all fit in the player file.
+     * @param list the records to commit
+     * @param fields the only stats to save for each record
+     * @param sync whether to sync the journal to disk
+     * @throws IOException if the journal could not be written
+     */
+    protected void commitRecords(ArrayList<PlayerRecord> list, ArrayList<Stat[]> fields, boolean sync) throws IOException {
+        if (list.isEmpty()) {
+            return;
+        }
+        ArrayList<String> nicks = new ArrayList<String>();
+        for (PlayerRecord record : list) {
+            nicks.add(record.getNick());
+        }
+        
+        ArrayList<Integer> locked = lockStripes(nicks);
+        try {
+            ArrayList<PlayerRecord> merged = new ArrayList<PlayerRecord>();
+            ArrayList<String> lines = new ArrayList<String>();
+            lines.add(beginMarker + " " + list.size());
+            for (int ctr = 0; ctr < list.size(); ctr++) {
+                PlayerRecord record = merge(list.get(ctr), fields.get(ctr));
+                merged.add(record);
+                lines.add(record.toString());
+            }
+            lines.add(commitMarker);
+            synchronized (journalLock) {
+                appendJournal(lines, sync);
+                pendingChanges += list.size();
+                for (String nick : nicks) {
+                    dirty.add(nick.toLowerCase());
+                }
+            }
+            for (PlayerRecord record : merged) {
+                storeRecord(record);
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+    }
+    
+    /**
+     * Returns a record with the specified stats taken from a record and the
+     * rest from the stored record for the same nick. Must be called while
+     * holding the stripe lock for the nick.
+     * @param record the record to save
+     * @param stats the only stats to save, or null or none for all
+     * @return the record to store
+     */
+    protected PlayerRecord merge(PlayerRecord record, Stat[] stats) {
+        PlayerRecord stored = nickIndex.get(record.getNick().toLowerCase());
+        if (stats == null || stats.length == 0 || stored == null) {
+            return record;
+        }
+        PlayerRecord merged = new PlayerRecord();
+        merged.copy(stored);
+        for (Stat stat : stats) {
+            merged.set(stat, record.get(stat));
+        }
+        return merged;
+    }
+    
+    /**
+     * Returns the number of changes that have not been folded into the player
+     * file.
+     * @return the number of pending changes
+     */
+    public int getPendingChanges() {
+        synchronized (journalLock) {
+            return pendingChanges;
+        }
+    }
+    
+    /**
+     * Writes the records changed since the last compaction to the binary
+     * player file in place and empties the journal. The whole file is only
+     * rewritten after setRecords(). Saves are blocked until the changes are
+     * written. Does nothing if the records have not been loaded.
+     * @throws IOException if the player file or journal could not be written
+     */
+    public void compact() throws IOException {
+        if (!loaded) {
+            return;
+        }
+        lockAll();
+        try {
+            synchronized (journalLock) {
+                if (pendingChanges == 0 && !resetJournal) {
+                    return;
+                }
+                if (rewrite) {
+                    save();
+                } else {
+                    for (String nick : dirty) {
+                        PlayerRecord record = nickIndex.get(nick);
+                        if (record != null && PlayerFile.fits(record.getNick())) {
+                            playerFile.write(record);
+                        }
+                    }
+                    playerFile.force();
+                }
+                if (journalOut != null) {
+                    journalOut.close();
+                    journalOut = null;
+                    journalStream = null;
+                }
+                new PrintWriter(new FileWriter(journalFile)).close();
+                pendingChanges = 0;
+                dirty.clear();
+                rewrite = false;
+                resetJournal = false;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Writes the contents of the store to a new binary player file, which
+     * replaces the existing one. Must be called while holding every stripe
+     * lock and journalLock.
+     * @throws IOException if the file could not be written
+     */
+    protected void save() throws IOException {
+        ArrayList<PlayerRecord> list;
+        synchronized (records) {
+            list = new ArrayList<PlayerRecord>(records);
+        }
+        removeLongNicks(list);
+        if (playerFile != null) {
+            playerFile.close();
+            playerFile = null;
+        }
+        PlayerFile.create(dataFile, list);
+        playerFile = new PlayerFile(dataFile);
+        playerFile.open();
+    }
+    
+    /**
+     * Writes the contents of the store to the text player file for offline
+     * tools.
+     * @throws IOException if the file could not be written
+     */
+    public void exportText() throws IOException {
+        writeRecords(file, getRecords());
+    }
+    
+    /**
+     * Writes records to a file with the players.txt format. The records are
+     * written and synced to a temporary file first, which then replaces the
+     * file, so a crash never leaves a half-written player file.
+     * @param path the file to write
+     * @param list the records to write
+     * @throws IOException if the file could not be written
+     */
+    protected static void writeRecords(String path, ArrayList<PlayerRecord> list) throws IOException {
+        File temp = new File(path + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temp);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream)));
+        for (PlayerRecord record : list) {
+            out.println(record);
+        }
+        out.flush();
+        if (out.checkError()) {
+            out.close();
+            throw new IOException("Error writing to " + temp.getPath());
+        }
+        stream.getFD().sync();
+        out.close();
+        replaceFile(temp, new File(path));
+    }
+    
+    /**
+     * Renames a file over another.
+     * @param temp the new file
+     * @param target the file to replace
+     * @throws IOException if the file could not be renamed
+     */
+    protected static void replaceFile(File temp, File target) throws IOException {
+        // renameTo does not replace an existing file on every platform
+        if (!temp.renameTo(target)) {
+            target.delete();
+            if (!temp.renameTo(target)) {
+                throw new IOException("Error renaming " + temp.getPath() + " to " + target.getPath());
+            }
+        }
+    }
+    
+    ////////////////////////
+    //// Record methods ////
+    ////////////////////////
+    
+    /**
+     * Checks if the store has a record for the specified nick.
+     * @param nick the player's nick
+     * @return true if a record exists
+     */
+    public boolean hasRecord(String nick) {
+        return nickIndex.containsKey(nick.toLowerCase());
+    }
+    
+    /**
+     * Returns a copy of the record for the specified nick.
+     * @param nick the player's nick
+     * @return a copy of the record or null if there is no record
+     */
+    public PlayerRecord getRecord(String nick) {
+        ReentrantLock lock = stripes[getStripe(nick)];
+        lock.lock();
+        try {
+            PlayerRecord record = nickIndex.get(nick.toLowerCase());
+            if (record == null) {
+                return null;
+            }
+            PlayerRecord copy = new PlayerRecord();
+            copy.copy(record);
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Stores the values of the specified record. Overwrites the existing record
+     * with a matching nick, keeping its original nick, or adds a new record if
+     * there isn't one.
+     * @param record the record to store
+     */
+    public void putRecord(PlayerRecord record) {
+        ReentrantLock lock = stripes[getStripe(record.getNick())];
+        lock.lock();
+        try {
+            storeRecord(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Stores the values of a record. Must be called while holding the stripe
+     * lock for the record's nick.
+     * @param record the record to store
+     */
+    protected void storeRecord(PlayerRecord record) {
+        PlayerRecord stored = nickIndex.get(record.getNick().toLowerCase());
+        if (stored == null) {
+            stored = new PlayerRecord();
+            stored.copy(record);
+            synchronized (records) {
+                records.add(stored);
+            }
+            nickIndex.put(record.getNick().toLowerCase(), stored);
+        } else {
+            String nick = stored.getNick();
+            stored.copy(record);
+            stored.setNick(nick);
+        }
+        for (Leaderboard board : leaderboards.values()) {
+            board.update(stored);
+        }
+    }
+    
+    /**
+     * Returns copies of all records in file order.
+     * @return an ArrayList of PlayerRecord
+     */
+    public ArrayList<PlayerRecord> getRecords() {
+        ArrayList<PlayerRecord> stored;
+        synchronized (records) {
+            stored = new ArrayList<PlayerRecord>(records);
+        }
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>(stored.size());
+        for (PlayerRecord record : stored) {
+            ReentrantLock lock = stripes[getStripe(record.getNick())];
+            lock.lock();
+            try {
+                PlayerRecord copy = new PlayerRecord();
+                copy.copy(record);
+                list.add(copy);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return list;
+    }
+    
+    /**
+     * Replaces all records in the store with copies of the given records.
+     * The change is only written to disk by the next compact().
+     * @param list the new records
+     */
+    public void setRecords(ArrayList<PlayerRecord> list) {
+        lockAll();
+        try {
+            replaceRecords(list);
+            synchronized (journalLock) {
+                pendingChanges++;
+                rewrite = true;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Replaces all records in the store. Must be called while holding every
+     * stripe lock.
+     * @param list the new records
+     */
+    protected void replaceRecords(ArrayList<PlayerRecord> list) {
+        synchronized (records) {
+            records.clear();
+        }
+        nickIndex.clear();
+        for (Leaderboard board : leaderboards.values()) {
+            board.clear();
+        }
+        for (PlayerRecord record : list) {
+            storeRecord(record);
+        }
+    }
+    
+    /**
+     * Returns the Leaderboard for the specified stat. Win rates are ranked
+     * as bjwinrate, tpwinrate and ttwinrate.
+     * @param stat the name of the stat
+     * @return the Leaderboard or null if the stat isn't ranked
+     */
+    public Leaderboard getLeaderboard(String stat) {
+        return leaderboards.get(stat);
+    }
+    
+    /**
+     * Returns the number of records in the store.
+     * @return the number of records
+     */
+    public int size() {
+        return nickIndex.size();
+    }
+    
+    /**
+     * Returns the number of records that have a positive value for the
+     * specified stat.
+     * @param stat the name of the stat
+     * @return the number of records counted
+     */
+    public int countRecords(String stat) {
+        int total = 0;
+        for (PlayerRecord record : getRecords()) {
+            if (record.has(stat)) {
+                total++;
+            }
+        }
+        return total;
+    }
+}
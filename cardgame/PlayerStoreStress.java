@@ -0,0 +1,291 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package irccasino.cardgame;
+
+import irccasino.Stat;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stress test for a PlayerStore shared by many games at once. Each simulated
+ * game has its own players and plays rounds on its own thread, saving them
+ * through transactions and single updates, while another thread compacts
+ * the store in a loop. Every game also saves one stat of a player shared
+ * with up to eight other games, which each save a different stat of the same
+ * nick. Afterwards the store is reloaded from disk and every record is
+ * checked against the last values its games saved.
+ * 
+ * Run it from the command line. It exits with status 1 if any record is
+ * wrong or any save fails.
+ * @author Yizhe Shen
+ */
+public class PlayerStoreStress {
+    protected static final int defaultGames = 16;
+    protected static final int defaultRounds = 500;
+    protected static final int playersPerGame = 6;
+    
+    private final PlayerStore store;
+    private final int games;
+    private final int rounds;
+    private final AtomicBoolean failed;
+    // Nick to the last record saved for it, filled in as each game ends
+    private final HashMap<String,String> expected;
+    // Shared nick to the last value saved for each stat owned by a game
+    private final HashMap<String,HashMap<Stat,Long>> sharedExpected;
+    
+    /**
+     * Creates a stress test for a new store in the specified directory.
+     * @param dir the directory for the player files
+     * @param games the number of games to run at once
+     * @param rounds the number of rounds each game plays
+     */
+    public PlayerStoreStress(File dir, int games, int rounds) {
+        store = new PlayerStore(new File(dir, "players.txt").getPath());
+        this.games = games;
+        this.rounds = rounds;
+        failed = new AtomicBoolean(false);
+        expected = new HashMap<String,String>();
+        sharedExpected = new HashMap<String,HashMap<Stat,Long>>();
+    }
+    
+    /**
+     * Runs every game and the compactor at once and waits for them.
+     * @throws Exception if the store could not be loaded or a thread was
+     * interrupted
+     */
+    public void run() throws Exception {
+        store.load();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(games);
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        
+        for (int ctr = 0; ctr < games; ctr++) {
+            final int game = ctr;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        playGame(game);
+                    } catch (Exception e) {
+                        fail("Game " + game + ": " + e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "Game " + game));
+        }
+        threads.add(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    while (done.getCount() > 0) {
+                        store.compact();
+                        Thread.sleep(1);
+                    }
+                } catch (Exception e) {
+                    fail("Compactor: " + e);
+                }
+            }
+        }, "Compactor"));
+        
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+    
+    /**
+     * Plays the rounds of one game. Each round either commits every player
+     * in a transaction or updates one player on its own, and every saved
+     * record has values unique to its game, round and player. The game's
+     * stat of its shared player is saved along with them.
+     * @param game the index of the game
+     * @throws IOException if a save fails
+     */
+    protected void playGame(int game) throws IOException {
+        Random randGen = new Random(game);
+        HashMap<String,String> last = new HashMap<String,String>();
+        Stat stat = getSharedStat(game);
+        PlayerRecord shared = null;
+        
+        for (int round = 1; round <= rounds; round++) {
+            shared = makeSharedRecord(game, round);
+            if (randGen.nextInt(4) == 0) {
+                PlayerRecord record = makeRecord(game, round, randGen.nextInt(playersPerGame));
+                store.update(record);
+                store.update(shared, stat);
+                last.put(record.getNick().toLowerCase(), record.toString());
+            } else {
+                PlayerTransaction transaction = store.begin();
+                for (int p = 0; p < playersPerGame; p++) {
+                    PlayerRecord record = makeRecord(game, round, p);
+                    transaction.add(record);
+                    last.put(record.getNick().toLowerCase(), record.toString());
+                }
+                transaction.add(shared, stat);
+                transaction.commit();
+            }
+            
+            // Games read their players' records back between rounds
+            String nick = getNick(game, randGen.nextInt(playersPerGame));
+            PlayerRecord record = store.getRecord(nick);
+            String want = last.get(nick.toLowerCase());
+            if (want != null && (record == null || !record.toString().equals(want))) {
+                fail("Game " + game + " round " + round + ": read " + record + " instead of " + want);
+            }
+            record = store.getRecord(shared.getNick());
+            if (record == null || record.get(stat) != shared.get(stat)) {
+                fail("Game " + game + " round " + round + ": read " + record + " with wrong " + stat);
+            }
+        }
+        synchronized (expected) {
+            expected.putAll(last);
+            if (shared != null) {
+                String nick = shared.getNick().toLowerCase();
+                if (!sharedExpected.containsKey(nick)) {
+                    sharedExpected.put(nick, new HashMap<Stat,Long>());
+                }
+                sharedExpected.get(nick).put(stat, shared.get(stat));
+            }
+        }
+    }
+    
+    protected static String getNick(int game, int player) {
+        return "Game" + game + "Player" + player;
+    }
+    
+    protected static PlayerRecord makeRecord(int game, int round, int player) {
+        long value = (long) round * 1000 + player;
+        return new PlayerRecord(getNick(game, player), value, game, round,
+                                -value, value, value * 2, round, player, game);
+    }
+    
+    protected static String getSharedNick(int game) {
+        return "Shared" + (game / PlayerFile.stats.length);
+    }
+    
+    protected static Stat getSharedStat(int game) {
+        return PlayerFile.stats[game % PlayerFile.stats.length];
+    }
+    
+    protected static PlayerRecord makeSharedRecord(int game, int round) {
+        long value = (long) round * 1000 + game;
+        return new PlayerRecord(getSharedNick(game), value, value, value, value,
+                                value, value, value, value, value);
+    }
+    
+    protected void fail(String msg) {
+        failed.set(true);
+        System.out.println(msg);
+    }
+    
+    /**
+     * Reloads the player files into a new store and checks every record.
+     * @param check the store to load into
+     * @return the number of records that are missing or wrong
+     * @throws IOException if the files could not be read
+     */
+    protected int verify(PlayerStore check) throws IOException {
+        int errors = 0;
+        check.load();
+        for (Map.Entry<String,String> entry : expected.entrySet()) {
+            PlayerRecord record = check.getRecord(entry.getKey());
+            if (record == null || !record.toString().equals(entry.getValue())) {
+                System.out.println("Expected " + entry.getValue() + " but found " + record);
+                errors++;
+            }
+        }
+        for (Map.Entry<String,HashMap<Stat,Long>> entry : sharedExpected.entrySet()) {
+            PlayerRecord record = check.getRecord(entry.getKey());
+            for (Map.Entry<Stat,Long> value : entry.getValue().entrySet()) {
+                if (record == null || record.get(value.getKey()) != value.getValue()) {
+                    System.out.println("Expected " + value.getKey() + " " + value.getValue() + 
+                                       " for " + entry.getKey() + " but found " + record);
+                    errors++;
+                }
+            }
+        }
+        int total = expected.size() + sharedExpected.size();
+        if (check.size() != total) {
+            System.out.println("Expected " + total + " records but found " + check.size());
+            errors++;
+        }
+        return errors;
+    }
+    
+    /**
+     * Runs the stress test in a new temporary directory.
+     * @param args the number of games and the number of rounds per game
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        int games = defaultGames, rounds = defaultRounds;
+        try {
+            if (args.length > 0) {
+                games = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                rounds = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: PlayerStoreStress [games] [rounds]");
+            System.exit(2);
+        }
+        
+        File dir = File.createTempFile("playerstore", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Error creating " + dir.getPath());
+        }
+        
+        PlayerStoreStress test = new PlayerStoreStress(dir, games, rounds);
+        long startTime = System.currentTimeMillis();
+        test.run();
+        long time = System.currentTimeMillis() - startTime;
+        
+        // Check what replaying the journal gives, then what compaction gives
+        String file = new File(dir, "players.txt").getPath();
+        int errors = test.verify(new PlayerStore(file));
+        test.store.compact();
+        errors += test.verify(new PlayerStore(file));
+        
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        
+        System.out.println(games + " games of " + rounds + " rounds in " + time + " ms, " + 
+                           (test.expected.size() + test.sharedExpected.size()) + " players, " + 
+                           errors + " error(s).");
+        if (errors > 0 || test.failed.get()) {
+            System.exit(1);
+        }
+    }
+}
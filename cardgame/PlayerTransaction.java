@@ -0,0 +1,75 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package irccasino.cardgame;
+
+import irccasino.Stat;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Collects the player records changed during a round so that they can be
+ * written to a PlayerStore in a single atomic step. Adding a record for a nick
+ * that is already in the transaction replaces the earlier record. A record
+ * can be limited to some of its stats, which are merged into the stored
+ * record when the transaction is committed.
+ * @author Yizhe Shen
+ */
+public class PlayerTransaction {
+    private final PlayerStore store;
+    private final LinkedHashMap<String,PlayerRecord> records;
+    private final LinkedHashMap<String,Stat[]> fields;
+    
+    public PlayerTransaction(PlayerStore s) {
+        store = s;
+        records = new LinkedHashMap<String,PlayerRecord>();
+        fields = new LinkedHashMap<String,Stat[]>();
+    }
+    
+    /**
+     * Adds a record to the transaction.
+     * @param record the record to save
+     * @param stats the only stats to save, or none to save the whole record
+     */
+    public void add(PlayerRecord record, Stat... stats) {
+        records.put(record.getNick().toLowerCase(), record);
+        fields.put(record.getNick().toLowerCase(), stats);
+    }
+    
+    /**
+     * Returns the number of records in the transaction.
+     * @return the number of records
+     */
+    public int size() {
+        return records.size();
+    }
+    
+    /**
+     * Writes all records in the transaction to the store and clears the
+     * transaction.
+     * @throws IOException if the records could not be written
+     */
+    public void commit() throws IOException {
+        ArrayList<PlayerRecord> list = new ArrayList<PlayerRecord>(records.values());
+        ArrayList<Stat[]> stats = new ArrayList<Stat[]>(fields.values());
+        records.clear();
+        fields.clear();
+        store.commit(list, stats);
+    }
+}
\ No newline at end of file
@@ -19,25 +19,26 @@
 
 package irccasino.cardgame;
 
-import java.util.TimerTask;
+import irccasino.Stat;
 
 /**
  * Respawn task for giving loans after bankruptcies.
  * @author Yizhe Shen
  */
-public class RespawnTask extends TimerTask {
+public class RespawnTask extends GameTask {
     private final Player player;
     private final CardGame game;
     
     public RespawnTask(Player p, CardGame g) {
+        super(g);
         player = p;
         game = g;
     }
     
     @Override
-    public void run() {
-        player.set("cash", game.get("cash"));
-        player.add("bank", -game.get("cash"));
+    protected void execute() {
+        player.set(Stat.CASH, game.get("cash"));
+        player.add(Stat.BANK, -game.get("cash"));
         game.savePlayerData(player);
         game.removeBlacklisted(player);
         game.getRespawnTasks().remove(this);
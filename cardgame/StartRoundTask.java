@@ -19,21 +19,20 @@
 
 package irccasino.cardgame;
 
-import java.util.TimerTask;
-
 /**
  * Start round task to be performed after post-start waiting period.
  * @author Yizhe Shen
  */
-public class StartRoundTask extends TimerTask{
+public class StartRoundTask extends GameTask {
     private final CardGame game;
     
     public StartRoundTask(CardGame g){
+        super(g);
         game = g;
     }
 
     @Override
-    public void run(){
+    protected void execute() {
         game.startRound();
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.texaspoker;
+
+import irccasino.cardgame.Hand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of PokerSimulator results shared by every poker game in
+ * the process. The least recently used result is dropped when the cache is
+ * full.
+ *
+ * Results are keyed by the players' cards in order and the community cards.
+ * Relabelling the suits doesn't change anyone's odds, so the key is the
+ * smallest of the keys for all 24 relabellings. Sampled results are only
+ * reused for the same sampling settings.
+ * @author Yizhe Shen
+ */
+public class EquityCache {
+
+    /**
+     * The results of a simulation, indexed by player in the order they were
+     * simulated.
+     */
+    static class Result {
+        final long[] wins, ties;
+        final long rounds;
+        final boolean exact;
+        final double margin;
+
+        Result(long[] wins, long[] ties, long rounds, boolean exact, double margin) {
+            this.wins = wins;
+            this.ties = ties;
+            this.rounds = rounds;
+            this.exact = exact;
+            this.margin = margin;
+        }
+    }
+
+    /** The maximum number of results kept. */
+    public static final int maxEntries = 4096;
+    /** Separates the groups of cards in a key. */
+    private static final char separator = 'z';
+    private static final LinkedHashMap<String,Result> cache = new LinkedHashMap<String,Result>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,Result> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private static long hits = 0, misses = 0;
+
+    private EquityCache() {
+    }
+
+    /**
+     * Returns the cached result for a key and counts a hit or a miss.
+     * @param key the key
+     * @return the result or null if it isn't cached
+     */
+    static synchronized Result get(String key) {
+        Result result = cache.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores a result.
+     * @param key the key
+     * @param result the result
+     */
+    static synchronized void put(String key, Result result) {
+        cache.put(key, result);
+    }
+
+    /**
+     * Returns the number of lookups that found a result.
+     * @return the number of hits
+     */
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a result.
+     * @return the number of misses
+     */
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of cached results.
+     * @return the number of results
+     */
+    public static synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all results and resets the counters.
+     */
+    public static synchronized void clear() {
+        cache.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the key for a simulation. Each card is a character holding its
+     * code, the cards of each hand and of the community are sorted, and the
+     * groups are separated.
+     * @param players the players in the order they are simulated
+     * @param comm the community cards
+     * @param settings the sampling settings or an empty string for exact
+     *                 results
+     * @return the key
+     */
+    static String getKey(ArrayList<PokerPlayer> players, Hand comm, String settings) {
+        int length = comm.size() + players.size() + 1;
+        for (PokerPlayer p : players) {
+            length += p.getHand().size();
+        }
+        char[] best = null;
+        char[] key = new char[length];
+        for (int[] perm : PreflopTable.perms) {
+            int pos = 0;
+            for (PokerPlayer p : players) {
+                pos = addGroup(key, pos, p.getHand(), perm);
+            }
+            addGroup(key, pos, comm, perm);
+            if (best == null || compare(key, best) < 0) {
+                best = key.clone();
+            }
+        }
+        return new String(best) + settings;
+    }
+
+    /**
+     * Adds the relabelled and sorted cards of a group to a key followed by
+     * a separator.
+     * @return the position after the separator
+     */
+    private static int addGroup(char[] key, int pos, Hand cards, int[] perm) {
+        int start = pos;
+        for (int ctr = 0; ctr < cards.size(); ctr++) {
+            int code = cards.get(ctr).getCode();
+            key[pos++] = (char) ('A' + ((code & ~3) | perm[code & 3]));
+        }
+        Arrays.sort(key, start, pos);
+        key[pos++] = separator;
+        return pos;
+    }
+
+    private static int compare(char[] a, char[] b) {
+        for (int ctr = 0; ctr < a.length; ctr++) {
+            if (a[ctr] != b[ctr]) {
+                return a[ctr] - b[ctr];
+            }
+        }
+        return 0;
+    }
+}
@@ -19,6 +19,7 @@
 
 package irccasino.texaspoker;
 
+import irccasino.Stat;
 import irccasino.Stats;
 import irccasino.cardgame.CardGame;
 import java.util.ArrayList;
@@ -35,9 +36,9 @@ public class HouseStat extends Stats {
         this(0);
     }
 
-    public HouseStat(int pot) {
+    public HouseStat(long pot) {
         super();
-        set("biggestpot", pot);
+        set(Stat.BIGGESTPOT, pot);
         donors = new ArrayList<PokerPlayer>();
         winners = new ArrayList<PokerPlayer>();
     }
@@ -107,6 +108,6 @@ public class HouseStat extends Stats {
 
     @Override
     public String toString() {
-        return "Biggest pot: $" + CardGame.formatNumber(get("biggestpot")) + " (" + getToStringList() + ").";
+        return "Biggest pot: $" + CardGame.formatNumber(get(Stat.BIGGESTPOT)) + " (" + getToStringList() + ").";
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.texaspoker;
+
+import irccasino.cardgame.Card;
+import java.util.List;
+
+/**
+ * Table-driven Poker hand evaluator. A set of cards is reduced to a bit mask
+ * of faces for each suit and a count of each face. Straights and the top five
+ * faces of any mask are then looked up in tables built when the class is
+ * loaded, so an evaluation makes no allocations and doesn't change the cards.
+ *
+ * The strength of a hand is an int where a larger value is a better hand.
+ * The hand-type, as indexed in PokerHand, is stored above bit 20 and the
+ * faces that break ties are stored below it as five 4-bit values, from the
+ * most significant down. Each face is stored as its face value + 1 so that a
+ * missing kicker is lower than any card.
+ * @author Yizhe Shen
+ */
+public final class PokerEvaluator {
+    /** Mask with a bit set for each face. */
+    private static final int allFaces = 0x1FFF;
+    /** The face value of the highest card of the best straight in a mask. */
+    private static final int[] straights = new int[allFaces + 1];
+    /** The top five faces of a mask packed as tiebreak faces. */
+    private static final int[] topFive = new int[allFaces + 1];
+
+    static {
+        for (int mask = 0; mask <= allFaces; mask++) {
+            // The ace also counts as the lowest card of a straight
+            int aceLow = (mask << 1 | mask >> 12) & 0x3FFF;
+            straights[mask] = -1;
+            for (int high = 13; high >= 4; high--) {
+                if ((aceLow >> (high - 4) & 0x1F) == 0x1F) {
+                    straights[mask] = high - 1;
+                    break;
+                }
+            }
+            int kickers = 0, count = 0;
+            for (int face = 12; face >= 0 && count < 5; face--) {
+                if ((mask & (1 << face)) != 0) {
+                    kickers |= (face + 1) << (16 - 4 * count++);
+                }
+            }
+            topFive[mask] = kickers;
+        }
+    }
+
+    private PokerEvaluator() {
+    }
+
+    /**
+     * Returns the strength of the best hand that can be made from the
+     * specified cards.
+     * @param cards the cards
+     * @return the strength
+     */
+    public static int evaluate(List<Card> cards) {
+        long suitMasks = 0, faceCounts = 0;
+        for (int ctr = 0; ctr < cards.size(); ctr++) {
+            int code = cards.get(ctr).getCode();
+            suitMasks |= getSuitMask(code);
+            faceCounts += getFaceCount(code);
+        }
+        return evaluate(suitMasks, faceCounts);
+    }
+
+    /**
+     * Returns the strength of the best hand that can be made from the
+     * combined cards of a player's hand and the community cards.
+     * @param hand the player's cards
+     * @param community the community cards
+     * @return the strength
+     */
+    public static int evaluate(List<Card> hand, List<Card> community) {
+        long suitMasks = 0, faceCounts = 0;
+        for (int ctr = 0; ctr < hand.size(); ctr++) {
+            int code = hand.get(ctr).getCode();
+            suitMasks |= getSuitMask(code);
+            faceCounts += getFaceCount(code);
+        }
+        for (int ctr = 0; ctr < community.size(); ctr++) {
+            int code = community.get(ctr).getCode();
+            suitMasks |= getSuitMask(code);
+            faceCounts += getFaceCount(code);
+        }
+        return evaluate(suitMasks, faceCounts);
+    }
+
+    /**
+     * Returns the bit to set in the suit masks for a card. Each suit has 16
+     * bits with one bit for each face.
+     * @param code the card's code
+     * @return the bit for the card
+     */
+    static long getSuitMask(int code) {
+        return 1L << ((code & 3) * 16 + (code >> 2));
+    }
+
+    /**
+     * Returns the amount to add to the face counts for a card. Each face has
+     * a 3-bit count.
+     * @param code the card's code
+     * @return the amount for the card
+     */
+    static long getFaceCount(int code) {
+        return 1L << ((code >> 2) * 3);
+    }
+
+    /**
+     * Returns the strength of a set of cards given as suit masks and face
+     * counts.
+     * @param suitMasks the 13-bit face masks of each suit, 16 bits apart
+     * @param faceCounts the 3-bit count of each face
+     * @return the strength
+     */
+    static int evaluate(long suitMasks, long faceCounts) {
+        int rankMask = 0, flush = -1, straightFlush = -1;
+        for (int suit = 0; suit < 4; suit++) {
+            int mask = (int) (suitMasks >>> (suit * 16)) & allFaces;
+            rankMask |= mask;
+            if (Integer.bitCount(mask) >= 5) {
+                straightFlush = Math.max(straightFlush, straights[mask]);
+                flush = Math.max(flush, topFive[mask]);
+            }
+        }
+        if (straightFlush == 12) {
+            return 9 << 20 | 13 << 16;
+        } else if (straightFlush >= 0) {
+            return 8 << 20 | (straightFlush + 1) << 16;
+        }
+
+        int pairs = 0, trips = 0, quads = 0;
+        for (int face = 0; face < 13; face++) {
+            int count = (int) (faceCounts >>> (face * 3)) & 7;
+            if (count >= 2) {
+                pairs |= 1 << face;
+                if (count >= 3) {
+                    trips |= 1 << face;
+                    if (count >= 4) {
+                        quads |= 1 << face;
+                    }
+                }
+            }
+        }
+
+        if (quads != 0) {
+            int quad = highest(quads);
+            return 7 << 20 | (quad + 1) << 16 | topFive[rankMask & ~(1 << quad)] >> 4 & 0xF000;
+        } else if (trips != 0 && Integer.bitCount(pairs) >= 2) {
+            int trip = highest(trips);
+            int pair = highest(pairs & ~(1 << trip));
+            return 6 << 20 | (trip + 1) << 16 | (pair + 1) << 12;
+        } else if (flush >= 0) {
+            return 5 << 20 | flush;
+        } else if (straights[rankMask] >= 0) {
+            return 4 << 20 | (straights[rankMask] + 1) << 16;
+        } else if (trips != 0) {
+            int trip = highest(trips);
+            return 3 << 20 | (trip + 1) << 16 | topFive[rankMask & ~(1 << trip)] >> 4 & 0xFF00;
+        } else if (Integer.bitCount(pairs) >= 2) {
+            int high = highest(pairs);
+            int low = highest(pairs & ~(1 << high));
+            return 2 << 20 | (high + 1) << 16 | (low + 1) << 12 |
+                    topFive[rankMask & ~(1 << high | 1 << low)] >> 8 & 0xF00;
+        } else if (pairs != 0) {
+            int pair = highest(pairs);
+            return 1 << 20 | (pair + 1) << 16 | topFive[rankMask & ~(1 << pair)] >> 4 & 0xFFF0;
+        }
+        return topFive[rankMask];
+    }
+
+    /**
+     * Returns the hand-type of a strength.
+     * @param strength the strength
+     * @return the hand-type as indexed in PokerHand
+     */
+    public static int getType(int strength) {
+        return strength >> 20;
+    }
+
+    /**
+     * Returns one of the faces that break ties in a strength.
+     * @param strength the strength
+     * @param index 0 for the most significant face up to 4
+     * @return the face value or -1 if there is no such face
+     */
+    public static int getFace(int strength, int index) {
+        return (strength >> (16 - 4 * index) & 0xF) - 1;
+    }
+
+    private static int highest(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+}
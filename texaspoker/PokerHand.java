@@ -29,8 +29,8 @@ import java.util.Collections;
  * @author Yizhe Shen
  */
 public class PokerHand extends Hand implements Comparable<PokerHand>{
-    /** Stores the calculated value of the PokerHand. */
-    private int value;
+    /** Stores the calculated strength of the PokerHand. */
+    private int strength;
 
     /** Names of Poker hands indexed according to value. */
     private final String[] handNames = {"High Card","Pair","Two Pairs",
@@ -43,20 +43,15 @@ public class PokerHand extends Hand implements Comparable<PokerHand>{
      */
     public PokerHand(){
         super();
-        value = -1;
+        strength = -1;
     }
 
     /**
-     * Compares this PokerHand to another based on hand-type and cards.
-     * Comparisons require that both hands be sorted in descending order and
-     * that the cards representing the hand value be at the beginning of the
-     * hand. This means that getValue() must be called before making
-     * any comparisons. If the two PokerHands have the same value, individual
-     * cards must then me examined.
+     * Compares this PokerHand to another based on their strengths.
      * 
      * @param h the PokerHand to compare
-     * @return -1 if this hand's value is less, zero for a tie, or 1 
-     * if this hand's value is greater
+     * @return -1 if this hand's strength is less, zero for a tie, or 1 
+     * if this hand's strength is greater
      * @throws NullPointerException if the specified PokerHand is null
      */
     @Override
@@ -64,101 +59,43 @@ public class PokerHand extends Hand implements Comparable<PokerHand>{
         if (h == null) {
             throw new NullPointerException();
         }
-        int thisValue = this.getValue();
-        int otherValue = h.getValue();
-
-        // Check if hands have same value
-        if (thisValue == otherValue){
-            // Calculate comparisons for each card
-            int[] comps = new int[5];
-            for (int ctr = 0; ctr < 5; ctr++){
-                comps[ctr] = get(ctr).getFaceValue() - h.get(ctr).getFaceValue();
-            }
+        int thisStrength = getStrength();
+        int otherStrength = h.getStrength();
+        if (thisStrength < otherStrength) {
+            return -1;
+        } else if (thisStrength > otherStrength) {
+            return 1;
+        }
+        return 0;
+    }
 
-            switch (value) {
-                // Straight Flush and Straight: check top card of straight
-                case 9: case 8: case 4:
-                    return comps[0];
-                // 4 of a Kind: compare 4 of a kind, then kicker
-                case 7: 
-                    if (comps[0] == 0){
-                        return comps[4];
-                    }
-                    return comps[0];
-                // Full House: check triplet, then pair
-                case 6:	
-                    if (comps[0] == 0){
-                            return comps[3];
-                    }
-                    return comps[0];
-                // Flush: check highest non-common card
-                case 5: 
-                    for (int ctr = 0; ctr < 5; ctr++){
-                        if (comps[ctr] != 0){
-                            return comps[ctr];
-                        }
-                    }
-                    return 0;
-                // Three of a Kind: check triplet, then check kickers
-                case 3:
-                    if (comps[0] == 0){
-                        for (int ctr = 3; ctr < 5; ctr++){
-                            if (comps[ctr] != 0){
-                                return comps[ctr];
-                            }
-                        }
-                        return 0;
-                    }
-                    return comps[0];
-                // Two pair: check each pair, then check kicker
-                case 2: 
-                    if (comps[0] != 0){
-                        return comps[0];
-                    } else if (comps[2] != 0){
-                        return comps[2];
-                    }
-                    return comps[4];
-                // Pair: check pair, then check highest non-common card
-                case 1:
-                    if (comps[0] == 0){
-                        for (int ctr = 2; ctr < 5; ctr++){
-                            if (comps[ctr] != 0){
-                                return comps[ctr];
-                            }
-                        }
-                        return 0;
-                    }
-                    return comps[0];
-                // High Card: check highest non-common card
-                default:
-                    for (int ctr = 0; ctr < 5; ctr++){
-                        if (comps[ctr] != 0){
-                            return comps[ctr];
-                        }
-                    }
-                    return 0;
-            }
+    /**
+     * Returns the strength of this PokerHand as calculated by PokerEvaluator.
+     * Hands with equal strengths tie and the stronger hand has the greater
+     * strength. The strength is calculated the first time this is called
+     * after the hand is created or reset.
+     * @return the strength
+     */
+    public int getStrength(){
+        if (strength == -1){
+            strength = PokerEvaluator.evaluate(this);
         }
-        return thisValue - otherValue;
+        return strength;
     }
 
     /**
      * Returns the value of this PokerHand for determining hand-type.
-     * Calls calcValue() if it hasn't been called yet.
      * @return the value
      */
     public int getValue(){
-        if (value == -1){
-            value = calcValue();
-        }
-        return value;
+        return PokerEvaluator.getType(getStrength());
     }
 
     /**
      * Resets the value to the default.
      */
     public void resetValue(){
-        value = -1;
+        strength = -1;
     }
 
     /**
@@ -171,303 +108,156 @@ public class PokerHand extends Hand implements Comparable<PokerHand>{
 
     /**
      * Returns the String representation of a PokerHand.
-     * This can be used for display purposes.
+     * This can be used for display purposes. The cards are shown in a sorted
+     * copy of the hand, so the order of this hand is unchanged.
      * 
      * @return the top 5 cards forming the hand followed by the remaining cards. 
      */
     @Override
     public String toString(){
+        Hand h = new Hand();
+        h.addAll(this);
+        Collections.sort(h);
+        Collections.reverse(h);
+        arrange(h, getStrength());
         String out;
-        switch (this.getValue()) {
+        switch (getValue()) {
             // Royal/straight flush, full house, flush, straight, high card
             case 9: case 8: case 6: case 5: case 4: case 0: 
-                out = toString(0,5);
+                out = h.toString(0,5);
                 break;
             case 7: case 2: // 4 of a kind, 2 pairs
-                out = toString(0,4)+"/"+toString(4,5);
+                out = h.toString(0,4)+"/"+h.toString(4,5);
                 break;
             case 3: // 3 of a kind
-                out = toString(0,3)+"/"+toString(3,5);
+                out = h.toString(0,3)+"/"+h.toString(3,5);
                 break;
             case 1: // 1 pair
-                out = toString(0,2)+"/"+toString(2,5);
+                out = h.toString(0,2)+"/"+h.toString(2,5);
                 break;
             default:
                 out = "";
         }
         if (size() > 5){
-            out += "||" + toString(5, size());
+            out += "||" + h.toString(5, size());
         }
         return out;
     }
 
-    /*
-     * A collection of static methods to check for various poker card combinations.
-     * These methods require that hands be sorted in descending order.
-     */
-
     /**
-     * Calculates the value of a PokerHand.
-     * Poker hand-types are always searched in order of descending value. Once
-     * the PokerHand is found to have a certain hand-type, the method stops
-     * searching for hand-types of lower value.
+     * Calculates the value of a PokerHand without storing it.
      * 
      * @return value corresponding to hand-type.
      */
     public int calcValue(){
-        // Always check the hands in order of descending value
-        if (hasStraightFlush()){	
-            if (get(0).isFace("A")){
-                return 9; // Royal flush = 9
-            }
-            return 8;   // Straight flush = 8
-        } else if (hasFourOfAKind()){	// Four of a kind = 7
-            return 7;
-        } else if (hasFullHouse()){	// Full house = 6
-            return 6;
-        } else if (hasFlush()){	// Flush = 5
-            return 5;
-        } else if (hasStraight()){	// Straight = 4
-            return 4;
-        } else if (hasThreeOfAKind()){	// Three of a kind = 3
-            return 3;
-        } else if (hasTwoPair()){	// Two-pair = 2
-            return 2;
-        } else if (hasPair()){	// Pair = 1
-            return 1;
-        } else {	// High card = 0
-            return 0;
-        }
-    }
-
-    /**
-     * Determines if a PokerHand has a pair.
-     * @return true if it contains a pair
-     */
-    public boolean hasPair(){
-        Card a,b;
-        for (int ctr = 0; ctr < size()-1; ctr++){
-            a = get(ctr);
-            b = get(ctr+1);
-            if (a.sameFace(b)){
-                remove(a);
-                remove(b);
-                add(0, a);
-                add(1, b);
-                return true;
-            }
-        }
-        return false;
+        return PokerEvaluator.getType(PokerEvaluator.evaluate(this));
     }
 
     /**
-     * Determines if a PokerHand has two pairs.
-     * @return true if it contains two pairs
+     * Moves the cards forming the hand to the beginning.
+     * This method requires that the hand be sorted in descending order.
+     * @param h the hand
+     * @param strength the strength of the hand
      */
-    public boolean hasTwoPair(){
-        Card a,b;
-        for (int ctr = 0; ctr < size()-3; ctr++){
-            a = get(ctr);
-            b = get(ctr+1);
-            if (a.sameFace(b)){
-                remove(a);
-                remove(b);
-                if (hasPair()){
-                    add(0, a);
-                    add(1, b);
-                    return true;
-                } else {
-                    add(ctr, a);
-                    add(ctr+1, b);
-                    return false;
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Determines if a PokerHand has three of a kind.
-     * @return true if it contains three of a kind
-     */
-    public boolean hasThreeOfAKind(){
-        Card a,b,c;
-        for (int ctr = 0; ctr < size()-2; ctr++){
-            a = get(ctr);
-            b = get(ctr+1);
-            c = get(ctr+2);
-            if (a.sameFace(b) && b.sameFace(c)){
-                remove(a);
-                remove(b);
-                remove(c);
-                add(0, a);
-                add(1, b);
-                add(2, c);
-                return true;
-            }
+    private static void arrange(Hand h, int strength){
+        int face = PokerEvaluator.getFace(strength, 0);
+        int suit;
+        switch (PokerEvaluator.getType(strength)) {
+            case 9: case 8: // Straight flush: the straight, then the suit
+                suit = findSuit(h, face);
+                moveStraight(h, face, suit);
+                moveCards(h, -1, suit, h.size(), 5);
+                break;
+            case 7: // 4 of a kind
+                moveCards(h, face, -1, 4, 0);
+                break;
+            case 6: // Full house
+                moveCards(h, face, -1, 3, 0);
+                moveCards(h, PokerEvaluator.getFace(strength, 1), -1, 2, 3);
+                break;
+            case 5: // Flush
+                moveCards(h, -1, findSuit(h, -1), 5, 0);
+                break;
+            case 4: // Straight
+                moveStraight(h, face, -1);
+                break;
+            case 3: // 3 of a kind
+                moveCards(h, face, -1, 3, 0);
+                break;
+            case 2: // 2 pairs
+                moveCards(h, face, -1, 2, 0);
+                moveCards(h, PokerEvaluator.getFace(strength, 1), -1, 2, 2);
+                break;
+            case 1: // 1 pair
+                moveCards(h, face, -1, 2, 0);
+                break;
+            default:
         }
-        return false;
     }
 
     /**
-     * Determines if a PokerHand has a straight.
-     * @return true if it contains a straight
+     * Moves the cards of a straight in descending order to the beginning.
+     * @param h the hand
+     * @param high the face value of the highest card
+     * @param suit the suit value of the cards or -1 for any suit
      */
-    public boolean hasStraight(){
-        /* Create a boolean array to determine which face cards exist in the hand.
-         * An extra index is added at the beginning for the value duality of aces.
-         */
-        boolean[] cardValues = new boolean[CardDeck.faces.length+1];
-        for (Card c : this) {
-            if (c.isFace("A")){
-                cardValues[0] = true;
-            }
-            cardValues[c.getFaceValue()+1] = true;
+    private static void moveStraight(Hand h, int high, int suit){
+        for (int ctr = 0; ctr < 5; ctr++){
+            // The ace is the lowest card of a 5-high straight
+            int face = high - ctr < 0 ? CardDeck.faces.length - 1 : high - ctr;
+            moveCards(h, face, suit, 1, ctr);
         }
-        Card c;
-        // Determine if any sequence of 5 consecutive cards exist
-        for (int ctr = cardValues.length-1; ctr >= 4; ctr--){
-            if (cardValues[ctr] && cardValues[ctr-1] && cardValues[ctr-2] && 
-                cardValues[ctr-3] && cardValues[ctr-4]){
-                // Move the sequence in descending order to the beginning of the hand
-                for (int ctr2 = 0; ctr2 < 5; ctr2++){
-                    for (int ctr3 = 0; ctr3 < size(); ctr3++){
-                        c = get(ctr3);
-                        if ((ctr-ctr2 == 0 && c.getFace().equals("A")) || c.getFaceValue()+1 == ctr-ctr2){
-                            remove(c);
-                            add(ctr2, c);
-                            break;
-                        }
-                    }
-                }
-                return true;
-            }
-        }
-        return false;
     }
 
     /**
-     * Determines if a PokerHand has a flush.
-     * @return true if it contains a flush
+     * Moves the first cards at or after an index that match a face and suit
+     * to that index, keeping their order.
+     * @param h the hand
+     * @param face the face value or -1 for any face
+     * @param suit the suit value or -1 for any suit
+     * @param count the maximum number of cards to move
+     * @param index the index to move the cards to
      */
-    public boolean hasFlush(){
-        int[] suitCount = new int[CardDeck.suits.length];
-        for (Card c : this){
-            suitCount[c.getSuitValue()]++;
-        }
+    private static void moveCards(Hand h, int face, int suit, int count, int index){
         Card c;
-        for (int ctr = 0; ctr < suitCount.length; ctr++){
-            if (suitCount[ctr] >= 5){
-                int count = 0;
-                for (int ctr3 = 0; ctr3 < size(); ctr3++){
-                    c = get(ctr3);
-                    if (c.getSuitValue() == ctr){
-                        remove(c);
-                        add(count++, c);
-                    }
-                    if (count == 5) {
-                        return true;
-                    }
-                }
+        for (int ctr = index; ctr < h.size() && count > 0; ctr++){
+            c = h.get(ctr);
+            if ((face == -1 || c.getFaceValue() == face) &&
+                (suit == -1 || c.getSuitValue() == suit)){
+                h.remove(ctr);
+                h.add(index++, c);
+                count--;
             }
         }
-        return false;
     }
 
     /**
-     * Determines if a PokerHand has a full house.
-     * @return true if it contains a full house
+     * Returns the suit that has a flush or a straight flush.
+     * @param h the hand
+     * @param high the face value of the highest card of the straight flush
+     * or -1 for a flush
+     * @return the suit value
      */
-    public boolean hasFullHouse(){
-        Card a,b,c;
-        for (int ctr = 0; ctr < size()-2; ctr++){
-            a = get(ctr);
-            b = get(ctr+1);
-            c = get(ctr+2);
-            if (a.sameFace(b) && a.sameFace(c)){
-                remove(a);
-                remove(b);
-                remove(c);
-                if (hasPair()){
-                    add(0, a);
-                    add(1, b);
-                    add(2, c);
-                    return true;
-                } else {
-                    add(ctr, a);
-                    add(ctr+1, b);
-                    add(ctr+2, c);
-                    return false;
+    private static int findSuit(Hand h, int high){
+        int best = -1, bestStrength = -1;
+        for (int suit = 0; suit < CardDeck.suits.length; suit++){
+            Hand suited = new Hand();
+            for (Card c : h){
+                if (c.getSuitValue() == suit){
+                    suited.add(c);
                 }
             }
-        }
-        return false;
-    }
-
-    /**
-     * Determines if a PokerHand has four of a kind.
-     * @return true if it contains four of a kind
-     */
-    public boolean hasFourOfAKind(){
-        Card a,b,c,d;
-        for (int ctr = 0; ctr < size()-3; ctr++){
-            a = get(ctr);
-            b = get(ctr+1);
-            c = get(ctr+2);
-            d = get(ctr+3);
-            if (a.sameFace(b) && b.sameFace(c) && c.sameFace(d)){
-                remove(a);
-                remove(b);
-                remove(c);
-                remove(d);
-                add(0, a);
-                add(1, b);
-                add(2, c);
-                add(3, d);
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Determines if a PokerHand has a straight flush.
-     * This method will terminate as soon a straight flush is found. The search
-     * is done in the order the suits are indexed in CardDeck.suits. This means
-     * that this method will not always reveal the highest straight flush of a 
-     * hand. However, in most Poker variants, this will suffice.
-     * 
-     * @return true if it contains a straight flush
-     */
-    public boolean hasStraightFlush(){
-        int[] suitCount = new int[CardDeck.suits.length];
-        Hand nonFlushCards = new Hand();
-        for (Card c : this) {
-            suitCount[c.getSuitValue()]++;
-        }
-        /* Reorganizes the cards to reveal the first suit that has 
-         * a straight flush. */
-        for (int ctr = 0; ctr < CardDeck.suits.length; ctr++){
-            if (suitCount[ctr] >= 5){
-                for (int ctr2 = 0; ctr2 < size(); ctr2++){
-                    if (get(ctr2).getSuitValue() != ctr){
-                        nonFlushCards.add(get(ctr2));
-                        remove(ctr2--);
-                    }
-                }
-                if (hasStraight()){
-                    addAll(nonFlushCards);
-                    nonFlushCards.clear();
-                    return true;
-                } else {
-                    addAll(nonFlushCards);
-                    nonFlushCards.clear();
+            if (suited.size() >= 5){
+                int strength = PokerEvaluator.evaluate(suited);
+                if (high != -1 && PokerEvaluator.getFace(strength, 0) == high &&
+                        PokerEvaluator.getType(strength) >= 8){
+                    return suit;
+                } else if (strength > bestStrength){
+                    best = suit;
+                    bestStrength = strength;
                 }
             }
         }
-        // Re-sorts the hand in descending order if no straight flush is found
-        Collections.sort(this);
-        Collections.reverse(this);
-        return false;
+        return best;
     }
 }
\ No newline at end of file
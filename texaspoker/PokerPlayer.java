@@ -19,8 +19,11 @@
 
 package irccasino.texaspoker;
 
+import irccasino.Stat;
 import irccasino.cardgame.Hand;
 import irccasino.cardgame.Player;
+import java.util.ArrayList;
+import java.util.Collections;
 
 /**
  * Extends the Player class for players playing Poker games.
@@ -41,10 +44,10 @@ public class PokerPlayer extends Player implements Comparable<PokerPlayer> {
      */
     public PokerPlayer(String nick, String host){
         super(nick, host);
-        set("bet", 0);
-        set("change", 0);
-        set("fold", 0);
-        set("allin", 0);
+        set(Stat.BET, 0);
+        set(Stat.CHANGE, 0);
+        set(Stat.FOLD, 0);
+        set(Stat.ALLIN, 0);
         hand = new Hand();
         pHand = new PokerHand();
     }
@@ -93,4 +96,27 @@ public class PokerPlayer extends Player implements Comparable<PokerPlayer> {
     public int compareTo(PokerPlayer p){
         return pHand.compareTo(p.pHand);
     }
+
+    /**
+     * Sorts players in place by descending PokerHand strength. Players with
+     * equal hands end up in the reverse of their original order, the same as
+     * sorting in ascending order and then reversing. Uses an insertion sort
+     * since there are only a few players at a table.
+     * @param players the players to sort
+     */
+    public static void sortByHand(ArrayList<PokerPlayer> players){
+        PokerPlayer p;
+        int strength, index;
+        Collections.reverse(players);
+        for (int ctr = 1; ctr < players.size(); ctr++){
+            p = players.get(ctr);
+            strength = p.pHand.getStrength();
+            index = ctr;
+            while (index > 0 && players.get(index - 1).pHand.getStrength() < strength){
+                players.set(index, players.get(index - 1));
+                index--;
+            }
+            players.set(index, p);
+        }
+    }
 }
\ No newline at end of file
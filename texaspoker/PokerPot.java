@@ -28,7 +28,7 @@ import java.util.ArrayList;
 public class PokerPot {
     private ArrayList<PokerPlayer> players;
     private ArrayList<PokerPlayer> donors;
-    private int total;
+    private long total;
 
     public PokerPot(){
         total = 0;
@@ -36,10 +36,10 @@ public class PokerPot {
         donors = new ArrayList<PokerPlayer>();
     }
 
-    public int getTotal(){
+    public long getTotal(){
         return total;
     }
-    public void add(int amount){
+    public void add(long amount){
         total += amount;
     }
     public void addPlayer(PokerPlayer p){
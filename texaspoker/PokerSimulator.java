@@ -19,155 +19,553 @@
 
 package irccasino.texaspoker;
 
+import irccasino.Stat;
 import irccasino.cardgame.Card;
 import irccasino.cardgame.CardDeck;
 import irccasino.cardgame.Hand;
 import irccasino.cardgame.Player;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Game simulator for calculating winning percentages.
+ * The boards to simulate are split into tasks that run on a shared pool of
+ * worker threads. Each task has its own random number generator and win and
+ * tie counts, which are added together once every task is done.
+ * 
+ * Every possible board is simulated once the flop is out. Pre-flop, every
+ * board is also simulated unless there are more players than a limit, in
+ * which case random boards are sampled instead. Boards are numbered in
+ * lexicographic order so that each task can start at its share of the
+ * numbers.
+ * 
+ * Random boards are sampled in batches. After each batch, the 95% margin of
+ * error of every player's win and tie percentages is calculated from their
+ * standard errors. Sampling stops once every margin is small enough, or
+ * when the trial cap or the time budget is reached.
  * @author Yizhe Shen
  */
 public class PokerSimulator {
-    private CardDeck simDeck;
+    /** The default maximum number of players for exact pre-flop results. */
+    public static final int defaultExactPlayers = 3;
+    /** The default target margin of error in percent for sampled results. */
+    public static final double defaultMargin = 0.5;
+    /** The default maximum number of sampled boards. */
+    public static final int defaultMaxTrials = 100000;
+    /** The default time budget in milliseconds for sampling. */
+    public static final long defaultMaxTime = 2000;
+    /** The number of sampled boards per thread in each batch. */
+    private static final int batchTrials = 1000;
+    /** The z-score for a 95% confidence interval. */
+    private static final double zScore = 1.96;
+    /** The number of worker threads and tasks per simulation. */
+    private static final int numThreads = Runtime.getRuntime().availableProcessors();
+    /** Worker threads shared by all simulations. */
+    private static final ExecutorService pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "PokerSimulator");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+    
     private ArrayList<PokerPlayer> simList;
-    private Hand simComm;
-    private int rounds;
-    private Random randGen;
+    /** The suit masks of each player's cards plus the community cards. */
+    private long[] handMasks;
+    /** The face counts of each player's cards plus the community cards. */
+    private long[] handCounts;
+    /** The codes of the cards left in the deck. */
+    private int[] deckCodes;
+    /** The number of community cards left to be dealt. */
+    private int need;
+    private long rounds;
+    /** Whether every possible board was simulated. */
+    private boolean exact;
+    /** Whether the results came from the pre-flop table. */
+    private boolean fromTable;
+    /** The largest 95% margin of error in percent of the results. */
+    private double margin;
 
+    /**
+     * Simulates the rest of a round for the players that haven't folded,
+     * using the default limit for exact pre-flop results.
+     * @param list the players
+     * @param comm the community cards
+     */
     public PokerSimulator(ArrayList<PokerPlayer> list, Hand comm) {
-        simDeck = new CardDeck(1);
+        this(list, comm, defaultExactPlayers);
+    }
+
+    /**
+     * Simulates the rest of a round for the players that haven't folded.
+     * @param list the players
+     * @param comm the community cards
+     * @param exactPlayers the maximum number of players for which every
+     *                     pre-flop board is simulated
+     */
+    public PokerSimulator(ArrayList<PokerPlayer> list, Hand comm, int exactPlayers) {
+        this(list, comm, exactPlayers, defaultMargin, defaultMaxTrials, defaultMaxTime);
+    }
+
+    /**
+     * Simulates the rest of a round for the players that haven't folded.
+     * @param list the players
+     * @param comm the community cards
+     * @param exactPlayers the maximum number of players for which every
+     *                     pre-flop board is simulated
+     * @param maxMargin the target margin of error in percent when sampling
+     * @param maxTrials the maximum number of boards to sample
+     * @param maxTime the time budget in milliseconds for sampling
+     */
+    public PokerSimulator(ArrayList<PokerPlayer> list, Hand comm, int exactPlayers,
+                          double maxMargin, int maxTrials, long maxTime) {
+        this(list, comm, exactPlayers, maxMargin, maxTrials, maxTime, true);
+    }
+
+    /**
+     * Simulates the rest of a round for the players that haven't folded.
+     * If allowed, heads-up pre-flop results are looked up in PreflopTable
+     * when it is available, and other results are reused from and stored in
+     * EquityCache.
+     * @param list the players
+     * @param comm the community cards
+     * @param exactPlayers the maximum number of players for which every
+     *                     pre-flop board is simulated
+     * @param maxMargin the target margin of error in percent when sampling
+     * @param maxTrials the maximum number of boards to sample
+     * @param maxTime the time budget in milliseconds for sampling
+     * @param useStored whether to use PreflopTable and EquityCache
+     */
+    PokerSimulator(ArrayList<PokerPlayer> list, Hand comm, int exactPlayers,
+                   double maxMargin, int maxTrials, long maxTime, boolean useStored) {
+        CardDeck simDeck = new CardDeck(1);
+        long commMasks = 0, commCounts = 0;
         simList = new ArrayList<PokerPlayer>();
-        simComm = new Hand();
-        randGen = new Random();
         rounds = 0;
 
         PokerPlayer simP;
 
-        // Give simulated community cards matching the real community.
+        // Remove the community cards from the simulated deck
         for (Card aCard : comm) {
-            simComm.add(simDeck.takeCard(aCard));
+            simDeck.takeCard(aCard);
+            commMasks |= PokerEvaluator.getSuitMask(aCard.getCode());
+            commCounts += PokerEvaluator.getFaceCount(aCard.getCode());
         }
 
-        // Give simulated players simulated cards matching the real hands.
+        // Give simulated players the cards in the real hands.
         for (PokerPlayer p : list) {
-            if (!p.has("fold")) {
+            if (!p.has(Stat.FOLD)) {
                 simP = new PokerPlayer(p.getNick(), p.getHost());
+                simP.set(Stat.WINS, 0);
+                simP.set(Stat.TIES, 0);
                 for (Card aCard : p.getHand()){
                    simP.getHand().add(simDeck.takeCard(aCard));
-                   simP.set("wins", 0);
-                   simP.set("ties", 0);
                 }
                 simList.add(simP);
             }
         }
 
+        handMasks = new long[simList.size()];
+        handCounts = new long[simList.size()];
+        for (int ctr = 0; ctr < simList.size(); ctr++) {
+            handMasks[ctr] = commMasks;
+            handCounts[ctr] = commCounts;
+            for (Card aCard : simList.get(ctr).getHand()) {
+                handMasks[ctr] |= PokerEvaluator.getSuitMask(aCard.getCode());
+                handCounts[ctr] += PokerEvaluator.getFaceCount(aCard.getCode());
+            }
+        }
+        List<Card> cards = simDeck.getCards();
+        deckCodes = new int[cards.size()];
+        for (int ctr = 0; ctr < deckCodes.length; ctr++) {
+            deckCodes[ctr] = cards.get(ctr).getCode();
+        }
+        need = 5 - comm.size();
+
+        // Look up heads-up pre-flop results
+        PreflopTable table = null;
+        if (useStored && comm.size() == 0 && simList.size() == 2) {
+            table = PreflopTable.getTable();
+        }
+        if (table != null && table.lookup(simList.get(0), simList.get(1))) {
+            rounds = table.getBoards();
+            exact = true;
+            fromTable = true;
+            return;
+        }
+
+        // Reuse the results of an earlier simulation of the same spot
+        boolean enumerated = comm.size() > 0 || simList.size() <= exactPlayers;
+        String key = null;
+        if (useStored) {
+            key = EquityCache.getKey(simList, comm, enumerated ? "" : maxMargin + "/" + maxTrials + "/" + maxTime);
+            EquityCache.Result result = EquityCache.get(key);
+            if (result != null) {
+                for (int ctr = 0; ctr < simList.size(); ctr++) {
+                    simList.get(ctr).set(Stat.WINS, result.wins[ctr]);
+                    simList.get(ctr).set(Stat.TIES, result.ties[ctr]);
+                }
+                rounds = result.rounds;
+                exact = result.exact;
+                margin = result.margin;
+                return;
+            }
+        }
+
         // Run simulation
-        if (simComm.size() == 0) {
-            monteSim();
+        if (enumerated) {
+            enumerate();
         } else {
-            bruteSim(0);
+            sample(maxMargin, maxTrials, maxTime);
+        }
+
+        // Results cut short by an interrupt are not stored
+        if (key != null && !Thread.currentThread().isInterrupted()) {
+            long[] wins = new long[simList.size()];
+            long[] ties = new long[simList.size()];
+            for (int ctr = 0; ctr < simList.size(); ctr++) {
+                wins[ctr] = simList.get(ctr).get(Stat.WINS);
+                ties[ctr] = simList.get(ctr).get(Stat.TIES);
+            }
+            EquityCache.put(key, new EquityCache.Result(wins, ties, rounds, exact, margin));
         }
     }
 
     /**
-     * Simulates games by sequentially adding cards to simComm until full
-     * and determining winners and ties. Uses a recursive algorithm.
-     * The number of rounds generated will be nCr, where n is the number of
-     * cards remaining in the simDeck and r is the number of cards required
-     * to fill simComm.
-     * @param index the index in simDeck from which to start adding cards
-     *              to simComm
+     * Simulates every possible board.
      */
-    private void bruteSim(int index) {
-        Card c;
-        // Add another card if the simulated community isn't full
-        if (simComm.size() < 5) {
-            for (int ctr = index; ctr < simDeck.getNumberCards(); ctr++) {
-                c = simDeck.peekCard(ctr);
-                simComm.add(c);
-                bruteSim(ctr + 1);
-                simComm.remove(c);
+    private void enumerate() {
+        ArrayList<SimTask> tasks = new ArrayList<SimTask>();
+        long total = choose(deckCodes.length, need);
+        int numTasks = (int) Math.min(numThreads, total);
+        for (int ctr = 0; ctr < numTasks; ctr++) {
+            tasks.add(new SimTask(total * ctr / numTasks, total * (ctr + 1) / numTasks, 0));
+        }
+        runTasks(tasks);
+        exact = true;
+    }
+
+    /**
+     * Simulates random boards in batches until the results are precise
+     * enough, the trial cap is reached, the time budget runs out or the
+     * thread is interrupted.
+     * @param maxMargin the target margin of error in percent
+     * @param maxTrials the maximum number of boards
+     * @param maxTime the time budget in milliseconds
+     */
+    private void sample(double maxMargin, int maxTrials, long maxTime) {
+        ArrayList<SimTask> tasks = new ArrayList<SimTask>();
+        long deadline = System.currentTimeMillis() + maxTime;
+        int trials;
+        exact = false;
+        do {
+            trials = (int) Math.min(batchTrials * numThreads, maxTrials - rounds);
+            tasks.clear();
+            for (int ctr = 0; ctr < numThreads; ctr++) {
+                tasks.add(new SimTask(0, 0, trials / numThreads + (ctr < trials % numThreads ? 1 : 0)));
             }
-        } else {
-            findWinners();
+            runTasks(tasks);
+            margin = calcMargin();
+        } while (margin > maxMargin && rounds < maxTrials &&
+                 System.currentTimeMillis() < deadline &&
+                 !Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Calculates the largest 95% margin of error of the players' win and
+     * tie percentages from the standard error of a proportion.
+     * @return the margin in percent
+     */
+    private double calcMargin() {
+        double max = 0, p;
+        if (rounds == 0) {
+            return 100.;
+        }
+        for (PokerPlayer simP : simList) {
+            p = (double) simP.get(Stat.WINS) / rounds;
+            max = Math.max(max, Math.sqrt(p * (1 - p) / rounds));
+            p = (double) simP.get(Stat.TIES) / rounds;
+            max = Math.max(max, Math.sqrt(p * (1 - p) / rounds));
         }
+        return zScore * max * 100;
     }
-    
+
     /**
-     * Runs a Monte Carlo simulation to determine win and tie percentages. The
-     * number of trials is hard-coded to produce results with a good degree
-     * of accuracy (+/-1%) while running reasonably fast. 
-     */
-    private void monteSim() {
-        ArrayList<Integer> indices = new ArrayList<Integer>();
-        int origSize = simComm.size();
-        int newIndex;
-        
-        for (int trial = 0; trial < 100000; trial++) {
-            // Pick random cards to complete the simulated community
-            for (int ctr = origSize; ctr < 5; ctr++) {
-                newIndex = randGen.nextInt(simDeck.getNumberCards());
-                while(indices.contains(newIndex)) {
-                    newIndex = randGen.nextInt(simDeck.getNumberCards());
+     * Runs tasks on the worker threads and adds their results to the
+     * players' wins and ties. If the thread is interrupted while waiting, the
+     * remaining tasks are cancelled and only finished tasks are counted.
+     * @param tasks the tasks
+     */
+    private void runTasks(ArrayList<SimTask> tasks) {
+        ArrayList<Future<SimTask>> futures = new ArrayList<Future<SimTask>>();
+        long[] wins = new long[simList.size()];
+        long[] ties = new long[simList.size()];
+        SimTask task;
+
+        for (SimTask t : tasks) {
+            futures.add(pool.submit(t));
+        }
+
+        try {
+            for (Future<SimTask> future : futures) {
+                task = future.get();
+                rounds += task.rounds;
+                for (int ctr = 0; ctr < wins.length; ctr++) {
+                    wins[ctr] += task.wins[ctr];
+                    ties[ctr] += task.ties[ctr];
                 }
-                indices.add(newIndex);
-                simComm.add(simDeck.peekCard(newIndex));
             }
-            
-            findWinners();
-            
-            // Remove the randomly picked cards
-            indices.clear();
-            for (int ctr = 4; ctr >= origSize; ctr--) {
-                simComm.remove(ctr);
+        } catch (InterruptedException e) {
+            for (Future<SimTask> future : futures) {
+                future.cancel(true);
             }
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        for (int ctr = 0; ctr < simList.size(); ctr++) {
+            simList.get(ctr).add(Stat.WINS, wins[ctr]);
+            simList.get(ctr).add(Stat.TIES, ties[ctr]);
         }
     }
-    
+
     /**
-     * Determines the winners for a full simulated community.
+     * Returns the number of ways to choose k items out of n.
+     * @param n the number of items
+     * @param k the number to choose
+     * @return the binomial coefficient
      */
-    private void findWinners() {
-        rounds++;
-        int winners = 1;
-        
-        // Create PokerHands
-        for (PokerPlayer p : simList) {
-            p.getPokerHand().addAll(p.getHand());
-            p.getPokerHand().addAll(simComm);
-            Collections.sort(p.getPokerHand());
-            Collections.reverse(p.getPokerHand());
+    private static long choose(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        long result = 1;
+        for (int ctr = 0; ctr < k; ctr++) {
+            result = result * (n - ctr) / (ctr + 1);
         }
+        return result;
+    }
 
-        // Sort players by PokerHand
-        Collections.sort(simList);
-        Collections.reverse(simList);
+    /**
+     * A share of a simulation. The task either simulates the boards numbered
+     * from start up to end or runs its own number of random trials.
+     */
+    private class SimTask implements Callable<SimTask> {
+        private final long start, end;
+        private final int trials;
+        private final long[] wins, ties;
+        private final int[] strengths;
+        private long rounds;
+
+        SimTask(long start, long end, int trials) {
+            this.start = start;
+            this.end = end;
+            this.trials = trials;
+            wins = new long[handMasks.length];
+            ties = new long[handMasks.length];
+            strengths = new int[handMasks.length];
+            rounds = 0;
+        }
 
-        // Determine number of winners
-        for (int ctr = 1; ctr < simList.size(); ctr++){
-            if (simList.get(0).compareTo(simList.get(ctr)) == 0){
-                winners++;
+        @Override
+        public SimTask call() {
+            if (trials == 0) {
+                bruteSim();
+            } else {
+                monteSim();
             }
+            return this;
         }
 
-        // Increment win count for winners
-        if (winners == 1) {
-            simList.get(0).increment("wins");
-        } else {
-            for (int ctr = 0; ctr < winners; ctr++){
-                simList.get(ctr).increment("ties");
+        /**
+         * Simulates the boards numbered from start up to end. The indices in
+         * deckCodes of the cards that complete a board are kept in ascending
+         * order, and boards are numbered in lexicographic order of those
+         * indices.
+         */
+        private void bruteSim() {
+            int[] combo = new int[need];
+            long masks, counts;
+            int index;
+
+            unrank(start, combo);
+            for (long board = start; board < end; board++) {
+                masks = 0;
+                counts = 0;
+                for (int ctr = 0; ctr < need; ctr++) {
+                    masks |= PokerEvaluator.getSuitMask(deckCodes[combo[ctr]]);
+                    counts += PokerEvaluator.getFaceCount(deckCodes[combo[ctr]]);
+                }
+                findWinners(masks, counts);
+
+                // Move on to the next board
+                index = need - 1;
+                while (index >= 0 && combo[index] == deckCodes.length - need + index) {
+                    index--;
+                }
+                if (index < 0) {
+                    break;
+                }
+                combo[index]++;
+                for (int ctr = index + 1; ctr < need; ctr++) {
+                    combo[ctr] = combo[ctr - 1] + 1;
+                }
             }
         }
 
-        // Clear PokerHands
-        for (PokerPlayer p : simList) {
-            p.getPokerHand().clear();
-            p.getPokerHand().resetValue();
+        /**
+         * Finds the indices in deckCodes of the cards of a numbered board.
+         * @param board the number of the board
+         * @param combo the array to fill with the indices
+         */
+        private void unrank(long board, int[] combo) {
+            int index = 0;
+            long count;
+            for (int ctr = 0; ctr < combo.length; ctr++) {
+                count = choose(deckCodes.length - index - 1, combo.length - ctr - 1);
+                while (board >= count) {
+                    board -= count;
+                    index++;
+                    count = choose(deckCodes.length - index - 1, combo.length - ctr - 1);
+                }
+                combo[ctr] = index++;
+            }
+        }
+
+        /**
+         * Runs this task's Monte Carlo trials. The cards to complete the
+         * community are picked by a partial Fisher-Yates shuffle of a copy
+         * of the deck.
+         */
+        private void monteSim() {
+            Random randGen = new Random();
+            int[] deck = deckCodes.clone();
+            int index, code;
+            long masks, counts;
+
+            for (int trial = 0; trial < trials; trial++) {
+                masks = 0;
+                counts = 0;
+                for (int ctr = 0; ctr < need; ctr++) {
+                    index = ctr + randGen.nextInt(deck.length - ctr);
+                    code = deck[index];
+                    deck[index] = deck[ctr];
+                    deck[ctr] = code;
+                    masks |= PokerEvaluator.getSuitMask(code);
+                    counts += PokerEvaluator.getFaceCount(code);
+                }
+                findWinners(masks, counts);
+            }
+        }
+
+        /**
+         * Determines the winners for a full simulated community.
+         * @param masks the suit masks of the simulated cards
+         * @param counts the face counts of the simulated cards
+         */
+        private void findWinners(long masks, long counts) {
+            rounds++;
+            int best = -1, winners = 0;
+
+            // Find the strongest hand and the number of players that have it
+            for (int ctr = 0; ctr < strengths.length; ctr++) {
+                strengths[ctr] = PokerEvaluator.evaluate(handMasks[ctr] | masks, handCounts[ctr] + counts);
+                if (strengths[ctr] > best) {
+                    best = strengths[ctr];
+                    winners = 1;
+                } else if (strengths[ctr] == best) {
+                    winners++;
+                }
+            }
+
+            // Increment win count for winners
+            for (int ctr = 0; ctr < strengths.length; ctr++) {
+                if (strengths[ctr] == best) {
+                    if (winners == 1) {
+                        wins[ctr]++;
+                    } else {
+                        ties[ctr]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether every possible board was simulated.
+     * @return true for exact results or false for sampled results
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the number of boards simulated.
+     * @return the number of boards
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns a description of how the results were calculated.
+     * @return "table", "exact" or the number of sampled boards and the
+     * margin of error, escaped for use as a format string
+     */
+    public String getMode() {
+        if (fromTable) {
+            return "table";
+        } else if (exact) {
+            return "exact";
+        }
+        return rounds + " samples, +/-" + String.format("%.1f", margin) + "%%";
+    }
+
+    /**
+     * Returns the largest 95% margin of error of the win and tie
+     * percentages.
+     * @return the margin in percent or 0 for exact results
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Returns the number of boards won by the specified player.
+     * @param p the player
+     * @return the number of wins or -1 if the player is not found
+     */
+    long getWins(PokerPlayer p) {
+        for (PokerPlayer simP : simList) {
+            if (simP.equals(p)) {
+                return simP.get(Stat.WINS);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of boards tied by the specified player.
+     * @param p the player
+     * @return the number of ties or -1 if the player is not found
+     */
+    long getTies(PokerPlayer p) {
+        for (PokerPlayer simP : simList) {
+            if (simP.equals(p)) {
+                return simP.get(Stat.TIES);
+            }
         }
+        return -1;
     }
 
     /**
@@ -178,7 +576,7 @@ public class PokerSimulator {
     public double getWinPct(PokerPlayer p) {
         for (PokerPlayer simP : simList) {
             if (simP.equals(p)) {
-                return (double) simP.get("wins") / (double) rounds * 100;
+                return (double) simP.get(Stat.WINS) / (double) rounds * 100;
             }
         }
         return -1.0;
@@ -192,7 +590,7 @@ public class PokerSimulator {
     public double getTiePct(PokerPlayer p) {
         for (PokerPlayer simP : simList) {
             if (simP.equals(p)) {
-                return (double) simP.get("ties") / (double) rounds * 100;
+                return (double) simP.get(Stat.TIES) / (double) rounds * 100;
             }
         }
         return -1.0;
@@ -206,7 +604,7 @@ public class PokerSimulator {
     @Override
     public String toString() {
         Collections.sort(simList, Player.getComparator("wins"));
-        String out = "Showdown: ";
+        String out = "Showdown (" + getMode() + "): ";
         for (PokerPlayer p : simList) {
             out += p.getNick() + " (" + p.getHand() + ", " + Math.round(getWinPct(p)) + "%%, " + Math.round(getTiePct(p)) + "%%), ";
         }
@@ -0,0 +1,322 @@
+/*
+    Copyright (C) 2013-2014 Yizhe Shen <brrr@live.ca>
+
+    This file is part of irccasino.
+
+    irccasino is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    irccasino is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with irccasino.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package irccasino.texaspoker;
+
+import irccasino.Stat;
+import irccasino.cardgame.Card;
+import irccasino.cardgame.Hand;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Precomputed exact pre-flop results for every heads-up matchup. Two
+ * matchups are the same if one becomes the other by relabelling suits, which
+ * leaves 47,008 distinct matchups out of the 812,175 ways to deal two hands.
+ *
+ * The table is generated offline by running this class, which simulates each
+ * matchup with PokerSimulator, and ships as the headsup.dat resource next to
+ * this class. A headsup.dat in the run directory is read instead if there is
+ * one. The file holds a magic number, the format version, the number of
+ * matchups and the number of boards per matchup, followed by the key, the
+ * first hand's wins and the ties of each matchup.
+ * @author Yizhe Shen
+ */
+public class PreflopTable {
+    protected static final int magic = 0x49435054;
+    protected static final int version = 1;
+    /** The resource and the overriding file the table is read from. */
+    public static final String defaultFile = "headsup.dat";
+    /** The 24 ways to relabel the suits, shared with EquityCache. */
+    static final int[][] perms = new int[24][];
+    private static PreflopTable table;
+    private static boolean loaded = false;
+
+    static {
+        int n = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        perms[n++] = new int[] {a, b, c, d};
+                    }
+                }
+            }
+        }
+    }
+
+    private final HashMap<Integer,Integer> index;
+    private final int[] wins;
+    private final int[] ties;
+    private final int boards;
+
+    private PreflopTable(int[] keys, int[] wins, int[] ties, int boards) {
+        index = new HashMap<Integer,Integer>(keys.length * 2);
+        for (int ctr = 0; ctr < keys.length; ctr++) {
+            index.put(keys[ctr], ctr);
+        }
+        this.wins = wins;
+        this.ties = ties;
+        this.boards = boards;
+    }
+
+    /**
+     * Returns the table, reading it the first time from headsup.dat in the
+     * run directory or, if that is missing or can't be read, from the
+     * headsup.dat resource.
+     * @return the table or null if neither can be read
+     */
+    public static synchronized PreflopTable getTable() {
+        if (!loaded) {
+            loaded = true;
+            if (new File(defaultFile).exists()) {
+                try {
+                    table = read(defaultFile);
+                } catch (IOException e) {
+                    table = null;
+                }
+            }
+            if (table == null) {
+                InputStream in = PreflopTable.class.getResourceAsStream(defaultFile);
+                if (in != null) {
+                    try {
+                        table = read(in, defaultFile);
+                    } catch (IOException e) {
+                        table = null;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the number of boards simulated for each matchup.
+     * @return the number of boards
+     */
+    public int getBoards() {
+        return boards;
+    }
+
+    /**
+     * Returns the number of matchups in the table.
+     * @return the number of matchups
+     */
+    public int size() {
+        return wins.length;
+    }
+
+    /**
+     * Sets the wins and ties of two players from the table.
+     * @param p1 the first player
+     * @param p2 the second player
+     * @return true if the matchup was found
+     */
+    public boolean lookup(PokerPlayer p1, PokerPlayer p2) {
+        Hand a = p1.getHand();
+        Hand b = p2.getHand();
+        if (a.size() != 2 || b.size() != 2) {
+            return false;
+        }
+        int code = canonicalize(a.get(0).getCode(), a.get(1).getCode(),
+                                b.get(0).getCode(), b.get(1).getCode());
+        Integer row = index.get(code >>> 1);
+        if (row == null) {
+            return false;
+        }
+        long first = wins[row];
+        long second = boards - wins[row] - ties[row];
+        if ((code & 1) == 1) {
+            p1.set(Stat.WINS, second);
+            p2.set(Stat.WINS, first);
+        } else {
+            p1.set(Stat.WINS, first);
+            p2.set(Stat.WINS, second);
+        }
+        p1.set(Stat.TIES, ties[row]);
+        p2.set(Stat.TIES, ties[row]);
+        return true;
+    }
+
+    /**
+     * Returns the key of the matchup of two hands. The key is the smallest
+     * value of getKey() for any relabelling of the suits and either order of
+     * the hands.
+     * @param a0 the code of the first hand's first card
+     * @param a1 the code of the first hand's second card
+     * @param b0 the code of the second hand's first card
+     * @param b1 the code of the second hand's second card
+     * @return the key shifted left by one, plus 1 if the hands were swapped
+     */
+    static int canonicalize(int a0, int a1, int b0, int b1) {
+        int best = Integer.MAX_VALUE, a, b;
+        for (int[] perm : perms) {
+            a = getPair(relabel(a0, perm), relabel(a1, perm));
+            b = getPair(relabel(b0, perm), relabel(b1, perm));
+            best = Math.min(best, Math.min(getKey(a, b) << 1, getKey(b, a) << 1 | 1));
+        }
+        return best;
+    }
+
+    private static int relabel(int code, int[] perm) {
+        return (code & ~3) | perm[code & 3];
+    }
+
+    /**
+     * Returns a number for a hand with the higher card first.
+     */
+    private static int getPair(int c0, int c1) {
+        return Math.max(c0, c1) * 52 + Math.min(c0, c1);
+    }
+
+    private static int getKey(int a, int b) {
+        return a * 2704 + b;
+    }
+
+    /**
+     * Reads a table from a file.
+     * @param path the path of the file
+     * @return the table
+     * @throws IOException if the file can't be read or isn't a table
+     */
+    public static PreflopTable read(String path) throws IOException {
+        return read(new FileInputStream(path), path);
+    }
+    
+    /**
+     * Reads a table from a stream and closes it.
+     * @param stream the stream
+     * @param name the name of the file or resource for error messages
+     * @return the table
+     * @throws IOException if the stream can't be read or isn't a table
+     */
+    public static PreflopTable read(InputStream stream, String name) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != magic || in.readInt() != version) {
+                throw new IOException(name + " is not a pre-flop table");
+            }
+            int count = in.readInt();
+            int boards = in.readInt();
+            int[] keys = new int[count];
+            int[] wins = new int[count];
+            int[] ties = new int[count];
+            for (int ctr = 0; ctr < count; ctr++) {
+                keys[ctr] = in.readInt();
+                wins[ctr] = in.readInt();
+                ties[ctr] = in.readInt();
+            }
+            return new PreflopTable(keys, wins, ties, boards);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Simulates every heads-up matchup and writes the table to a file.
+     * @param path the path of the file
+     * @throws IOException if the file can't be written
+     */
+    public static void generate(String path) throws IOException {
+        TreeSet<Integer> keySet = new TreeSet<Integer>();
+        for (int a0 = 0; a0 < 52; a0++) {
+            for (int a1 = a0 + 1; a1 < 52; a1++) {
+                for (int b0 = 0; b0 < 52; b0++) {
+                    for (int b1 = b0 + 1; b1 < 52; b1++) {
+                        if (b0 != a0 && b0 != a1 && b1 != a0 && b1 != a1) {
+                            keySet.add(canonicalize(a0, a1, b0, b1) >>> 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        int count = keySet.size(), row = 0, boards = 0;
+        int[] keys = new int[count];
+        int[] wins = new int[count];
+        int[] ties = new int[count];
+        ArrayList<PokerPlayer> players = new ArrayList<PokerPlayer>();
+        PokerPlayer p1 = new PokerPlayer("1", "");
+        PokerPlayer p2 = new PokerPlayer("2", "");
+        players.add(p1);
+        players.add(p2);
+        for (int key : keySet) {
+            p1.resetHand();
+            p2.resetHand();
+            p1.getHand().add(getCard(key / 140608));
+            p1.getHand().add(getCard(key / 2704 % 52));
+            p2.getHand().add(getCard(key / 52 % 52));
+            p2.getHand().add(getCard(key % 52));
+            PokerSimulator sim = new PokerSimulator(players, new Hand(), 2,
+                    PokerSimulator.defaultMargin, PokerSimulator.defaultMaxTrials,
+                    PokerSimulator.defaultMaxTime, false);
+            keys[row] = key;
+            wins[row] = (int) sim.getWins(p1);
+            ties[row] = (int) sim.getTies(p1);
+            boards = (int) sim.getRounds();
+            if (++row % 1000 == 0) {
+                System.out.println(row + "/" + count);
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+        try {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeInt(count);
+            out.writeInt(boards);
+            for (int ctr = 0; ctr < count; ctr++) {
+                out.writeInt(keys[ctr]);
+                out.writeInt(wins[ctr]);
+                out.writeInt(ties[ctr]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Card getCard(int code) {
+        return Card.getCard(code >> 2, code & 3);
+    }
+
+    /**
+     * Generates the heads-up pre-flop table. The shipped resource only needs
+     * to be regenerated if the file format changes. This takes a long time,
+     * so it should be run on a machine with many cores.
+     * @param args generate, followed by the target path
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("generate")) {
+            generate(args[1]);
+        } else {
+            System.out.println("Usage: PreflopTable generate <" + defaultFile + ">");
+        }
+    }
+}
@@ -22,8 +22,10 @@ package irccasino.texaspoker;
 import irccasino.cardgame.CardDeck;
 import irccasino.cardgame.PlayerRecord;
 import irccasino.GameManager;
+import irccasino.Stat;
 import irccasino.cardgame.CardGame;
 import irccasino.cardgame.Hand;
+import irccasino.cardgame.Leaderboard;
 import irccasino.cardgame.Player;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -57,11 +59,12 @@ public class TexasPoker extends CardGame{
     protected PokerPlayer topBettor;
     protected Hand community;
     protected HouseStat house;
+    protected ShowdownTask showdownTask;
     // In-game properties
-    protected PokerState state;
+    protected volatile PokerState state;
     protected PokerBet betState;
-    protected int currentBet;
-    protected int minRaise;
+    protected long currentBet;
+    protected long minRaise;
     
     public TexasPoker() {
         super();
@@ -100,135 +103,202 @@ public class TexasPoker extends CardGame{
         String host = user.getHostmask();
         
         // Commands available in TexasPoker.
-        if (command.equalsIgnoreCase("join") || command.equalsIgnoreCase("j")){
-            join(nick, host);
-        } else if (command.equalsIgnoreCase("leave") || command.equalsIgnoreCase("quit") || command.equalsIgnoreCase("l") || command.equalsIgnoreCase("q")){
-            leave(nick, params);
-        } else if (command.equalsIgnoreCase("last")) {
-            last(nick, params);
-        } else if (command.equalsIgnoreCase("start") || command.equalsIgnoreCase("go")) {
-            start(nick, params);
-        } else if (command.equalsIgnoreCase("stop")) {
-            stop(nick, params);
-        } else if (command.equalsIgnoreCase("bet") || command.equalsIgnoreCase("b")) {
-            bet(nick, params);
-        } else if (command.equalsIgnoreCase("c") || command.equalsIgnoreCase("ca") || command.equalsIgnoreCase("call")) {
-            call(nick, params);
-        } else if (command.equalsIgnoreCase("x") || command.equalsIgnoreCase("ch") || command.equalsIgnoreCase("check")) {
-            check(nick, params);
-        } else if (command.equalsIgnoreCase("fold") || command.equalsIgnoreCase("f")) {
-            fold(nick, params);
-        } else if (command.equalsIgnoreCase("raise") || command.equalsIgnoreCase("r")) {
-            raise(nick, params);
-        } else if (command.equalsIgnoreCase("allin") || command.equalsIgnoreCase("a")){
-            allin(nick, params);
-        } else if (command.equalsIgnoreCase("community") || command.equalsIgnoreCase("comm")){
-            community(nick, params);
-        } else if (command.equalsIgnoreCase("hand")) {
-            hand(nick, params);
-        } else if (command.equalsIgnoreCase("turn")) {
-            turn(nick, params);
-        } else if (command.equalsIgnoreCase("cash") || command.equalsIgnoreCase("stack")) {
-            cash(nick, params);
-        } else if (command.equalsIgnoreCase("netcash") || command.equalsIgnoreCase("net")) {
-            netcash(nick, params);
-        } else if (command.equalsIgnoreCase("bank")) {
-            bank(nick, params);
-        } else if (command.equalsIgnoreCase("bankrupts")) {
-            bankrupts(nick, params);
-        } else if (command.equalsIgnoreCase("winnings")) {
-            winnings(nick, params);
-        } else if (command.equalsIgnoreCase("winrate")) {
-            winrate(nick, params);
-        } else if (command.equalsIgnoreCase("rounds")) {
-            rounds(nick, params);
-        } else if (command.equalsIgnoreCase("player") || command.equalsIgnoreCase("p")){
-            player(nick, params);
-        } else if (command.equalsIgnoreCase("deposit")) {
-            deposit(nick, params);
-        } else if (command.equalsIgnoreCase("withdraw")) {
-            withdraw(nick, params);
-        } else if (command.equalsIgnoreCase("players")) {
-            players(nick, params);
-        } else if (command.equalsIgnoreCase("waitlist")) {
-            waitlist(nick, params);
-        } else if (command.equalsIgnoreCase("blacklist")) {
-            blacklist(nick, params);
-        } else if (command.equalsIgnoreCase("rank")) {
-            rank(nick, params);
-        } else if (command.equalsIgnoreCase("top")) {
-            top(nick, params);
-        } else if (command.equalsIgnoreCase("away")){
-            away(nick, params);
-        } else if (command.equalsIgnoreCase("back")){
-            back(nick, params);
-        } else if (command.equalsIgnoreCase("ping")) {
-            ping(nick, params);
-        } else if (command.equalsIgnoreCase("simple")) {
-            simple(nick, params);
-        } else if (command.equalsIgnoreCase("stats")){
-            stats(nick, params);
-        } else if (command.equalsIgnoreCase("grules") || command.equalsIgnoreCase("gamerules")) {
-            grules(nick, params);
-        } else if (command.equalsIgnoreCase("ghelp") || command.equalsIgnoreCase("gamehelp")) {
-            ghelp(nick, params);
-        } else if (command.equalsIgnoreCase("gcommands") || command.equalsIgnoreCase("gamecommands")) {
-            gcommands(user, nick, params);
-        } else if (command.equalsIgnoreCase("game")) {
-            game(nick, params);
-        /* Op commands */
-        } else if (command.equalsIgnoreCase("fj") || command.equalsIgnoreCase("fjoin")){
-            fjoin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fl") || command.equalsIgnoreCase("fq") || command.equalsIgnoreCase("fquit") || command.equalsIgnoreCase("fleave")){
-            fleave(user, nick, params);
-        } else if (command.equalsIgnoreCase("flast")) {
-            flast(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstart") || command.equalsIgnoreCase("fgo")){
-            fstart(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstop")){
-            fstop(user, nick, params);
-        } else if (command.equalsIgnoreCase("fb") || command.equalsIgnoreCase("fbet")){
-            fbet(user, nick, params);
-        } else if (command.equalsIgnoreCase("fa") || command.equalsIgnoreCase("fallin")){
-            fallin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fr") || command.equalsIgnoreCase("fraise")){
-            fraise(user, nick, params);
-        } else if (command.equalsIgnoreCase("fc") || command.equalsIgnoreCase("fca") || command.equalsIgnoreCase("fcall")){
-            fcall(user, nick, params);
-        } else if (command.equalsIgnoreCase("fx") || command.equalsIgnoreCase("fch") || command.equalsIgnoreCase("fcheck")){
-            fcheck(user, nick, params);
-        } else if (command.equalsIgnoreCase("ff") || command.equalsIgnoreCase("ffold")){
-            ffold(user, nick, params);
-        } else if (command.equalsIgnoreCase("fdeposit")) {
-            fdeposit(user, nick, params);
-        } else if (command.equalsIgnoreCase("fwithdraw")) {
-            fwithdraw(user, nick, params);
-        } else if (command.equalsIgnoreCase("shuffle")){
-            shuffle(user, nick, params);
-        } else if (command.equalsIgnoreCase("cards")) {
-            cards(user, nick, params);
-        } else if (command.equalsIgnoreCase("discards")) {
-            discards(user, nick, params);
-        } else if (command.equalsIgnoreCase("settings")) {
-            settings(user, nick, params);
-        } else if (command.equalsIgnoreCase("set")){
-            set(user, nick, params);
-        } else if (command.equalsIgnoreCase("get")) {
-            get(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetaway")){
-            resetaway(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetsimple")) {
-            resetsimple(user, nick, params);
-        } else if (command.equalsIgnoreCase("reload")) {
-            reload(user, nick, params);
-        } else if (command.equalsIgnoreCase("trim")) {
-            trim(user, nick, params);
-        } else if (command.equalsIgnoreCase("test1")) {
-            test1(user, nick, params);
-        } else if (command.equalsIgnoreCase("test2")) {
-            test2(user, nick, params);
-        } else if (command.equalsIgnoreCase("test3")){
-            test3(user, nick, params);
+        switch (command) {
+            case "join":
+                join(nick, host);
+                break;
+            case "quit":
+                leave(nick, params);
+                break;
+            case "last":
+                last(nick, params);
+                break;
+            case "start":
+                start(nick, params);
+                break;
+            case "stop":
+                stop(nick, params);
+                break;
+            case "bet":
+                bet(nick, params);
+                break;
+            case "call":
+                call(nick, params);
+                break;
+            case "check":
+                check(nick, params);
+                break;
+            case "fold":
+                fold(nick, params);
+                break;
+            case "raise":
+                raise(nick, params);
+                break;
+            case "allin":
+                allin(nick, params);
+                break;
+            case "community":
+                community(nick, params);
+                break;
+            case "hand":
+                hand(nick, params);
+                break;
+            case "turn":
+                turn(nick, params);
+                break;
+            case "cash":
+                cash(nick, params);
+                break;
+            case "netcash":
+                netcash(nick, params);
+                break;
+            case "bank":
+                bank(nick, params);
+                break;
+            case "bankrupts":
+                bankrupts(nick, params);
+                break;
+            case "winnings":
+                winnings(nick, params);
+                break;
+            case "winrate":
+                winrate(nick, params);
+                break;
+            case "rounds":
+                rounds(nick, params);
+                break;
+            case "player":
+                player(nick, params);
+                break;
+            case "deposit":
+                deposit(nick, params);
+                break;
+            case "withdraw":
+                withdraw(nick, params);
+                break;
+            case "players":
+                players(nick, params);
+                break;
+            case "waitlist":
+                waitlist(nick, params);
+                break;
+            case "blacklist":
+                blacklist(nick, params);
+                break;
+            case "rank":
+                rank(nick, params);
+                break;
+            case "top":
+                top(nick, params);
+                break;
+            case "away":
+                away(nick, params);
+                break;
+            case "back":
+                back(nick, params);
+                break;
+            case "ping":
+                ping(nick, params);
+                break;
+            case "simple":
+                simple(nick, params);
+                break;
+            case "stats":
+                stats(nick, params);
+                break;
+            case "grules":
+                grules(nick, params);
+                break;
+            case "ghelp":
+                ghelp(nick, params);
+                break;
+            case "gcommands":
+                gcommands(user, nick, params);
+                break;
+            case "game":
+                game(nick, params);
+                break;
+            /* Op commands */
+            case "fjoin":
+                fjoin(user, nick, params);
+                break;
+            case "fquit":
+                fleave(user, nick, params);
+                break;
+            case "flast":
+                flast(user, nick, params);
+                break;
+            case "fstart":
+                fstart(user, nick, params);
+                break;
+            case "fstop":
+                fstop(user, nick, params);
+                break;
+            case "fbet":
+                fbet(user, nick, params);
+                break;
+            case "fallin":
+                fallin(user, nick, params);
+                break;
+            case "fraise":
+                fraise(user, nick, params);
+                break;
+            case "fcall":
+                fcall(user, nick, params);
+                break;
+            case "fcheck":
+                fcheck(user, nick, params);
+                break;
+            case "ffold":
+                ffold(user, nick, params);
+                break;
+            case "fdeposit":
+                fdeposit(user, nick, params);
+                break;
+            case "fwithdraw":
+                fwithdraw(user, nick, params);
+                break;
+            case "shuffle":
+                shuffle(user, nick, params);
+                break;
+            case "cards":
+                cards(user, nick, params);
+                break;
+            case "discards":
+                discards(user, nick, params);
+                break;
+            case "settings":
+                settings(user, nick, params);
+                break;
+            case "set":
+                set(user, nick, params);
+                break;
+            case "get":
+                get(user, nick, params);
+                break;
+            case "resetaway":
+                resetaway(user, nick, params);
+                break;
+            case "resetsimple":
+                resetsimple(user, nick, params);
+                break;
+            case "reload":
+                reload(user, nick, params);
+                break;
+            case "trim":
+                trim(user, nick, params);
+                break;
+            case "test1":
+                test1(user, nick, params);
+                break;
+            case "test2":
+                test2(user, nick, params);
+                break;
+            case "test3":
+                test3(user, nick, params);
+                break;
+            default:
+                break;
         }
     }
 
@@ -282,7 +352,7 @@ public class TexasPoker extends CardGame{
             informPlayer(nick, getMsg("no_parameter"));  
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -364,7 +434,7 @@ public class TexasPoker extends CardGame{
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                bet(Integer.parseInt(params[0]) + currentBet);
+                bet(Long.parseLong(params[0]) + currentBet);
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -386,7 +456,7 @@ public class TexasPoker extends CardGame{
         } else if (state.equals(PokerState.CONTINUE_ROUND)) {
             informPlayer(nick, getMsg("game_lagging"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -434,8 +504,8 @@ public class TexasPoker extends CardGame{
         } else if (currentPlayer == null) {
             informPlayer(nick, getMsg("nobody_turn"));
         } else {
-            showMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get("bet"), 
-                    currentPlayer.get("bet"), currentBet, getCashInPlay(), currentPlayer.get("cash")-currentPlayer.get("bet"));
+            showTurnMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get(Stat.BET), 
+                    currentPlayer.get(Stat.BET), currentBet, getCashInPlay(), currentPlayer.get(Stat.CASH)-currentPlayer.get(Stat.BET));
         }
     }
     
@@ -523,7 +593,7 @@ public class TexasPoker extends CardGame{
             informPlayer(nick, getMsg("no_parameter"));       
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -546,7 +616,7 @@ public class TexasPoker extends CardGame{
         } else if (state.equals(PokerState.CONTINUE_ROUND)) {
             informPlayer(nick, getMsg("game_lagging"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -569,7 +639,7 @@ public class TexasPoker extends CardGame{
             informPlayer(nick, getMsg("no_parameter"));        
         } else {
             try {
-                bet(Integer.parseInt(params[0]) + currentBet);
+                bet(Long.parseLong(params[0]) + currentBet);
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }    
@@ -722,16 +792,12 @@ public class TexasPoker extends CardGame{
                     ph = p.getPokerHand();
                     ph.addAll(p.getHand());
                     ph.addAll(comm);
-                    Collections.sort(ph);
-                    Collections.reverse(ph);
-                    ph.getValue();
                 }
                 // Sort hands in descending order
-                Collections.sort(peeps);
-                Collections.reverse(peeps);
+                PokerPlayer.sortByHand(peeps);
                 // Determine number of winners
                 for (int ctr=1; ctr < peeps.size(); ctr++){
-                    if (peeps.get(0).compareTo(peeps.get(ctr)) == 0){
+                    if (peeps.get(0).getPokerHand().getStrength() == peeps.get(ctr).getPokerHand().getStrength()){
                         winners++;
                     } else {
                         break;
@@ -788,9 +854,6 @@ public class TexasPoker extends CardGame{
                     dealCard(h);
                 }
                 showMsg(h.toString(0, h.size()));
-                Collections.sort(h);
-                Collections.reverse(h);
-                h.getValue();
                 showMsg(h.getName()+": " + h);
                 deck.addToDiscard(h);
                 h.clear();
@@ -835,7 +898,7 @@ public class TexasPoker extends CardGame{
                 }
 
                 // Calculate percentages
-                sim = new PokerSimulator(peeps, comm);
+                sim = simulate(peeps, comm);
                 showMsg(sim.toString());
 
                 // Deal flop
@@ -845,7 +908,7 @@ public class TexasPoker extends CardGame{
                 showMsg(formatHeader(" Community: ") + " " + comm.toString());
 
                 // Recalculate percentages
-                sim = new PokerSimulator(peeps, comm);
+                sim = simulate(peeps, comm);
                 showMsg(sim.toString());
 
                 // Deal turn
@@ -853,7 +916,7 @@ public class TexasPoker extends CardGame{
                 showMsg(formatHeader(" Community: ") + " " + comm.toString());
 
                 // Recalculate percentages
-                sim = new PokerSimulator(peeps, comm);
+                sim = simulate(peeps, comm);
                 showMsg(sim.toString());
 
                 // Deal river
@@ -861,7 +924,7 @@ public class TexasPoker extends CardGame{
                 showMsg(formatHeader(" Community: ") + " " + comm.toString());
 
                 // Recalculate percentages
-                sim = new PokerSimulator(peeps, comm);
+                sim = simulate(peeps, comm);
                 showMsg(sim.toString());
 
                 // Discard and shuffle
@@ -890,7 +953,7 @@ public class TexasPoker extends CardGame{
     @Override
     public void addWaitlistPlayer(String nick, String host) {
         Player p = new PokerPlayer(nick, host);
-        waitlist.add(p);
+        addWaitlistPlayer(p);
         informPlayer(p.getNick(), getMsg("join_waitlist"));
     }
     
@@ -929,7 +992,7 @@ public class TexasPoker extends CardGame{
          * topBettor then stop looking.
          */
         Player nextPlayer = getPlayerAfter(currentPlayer);
-        while ((nextPlayer.has("fold") || nextPlayer.has("allin")) && 
+        while ((nextPlayer.has(Stat.FOLD) || nextPlayer.has(Stat.ALLIN)) && 
                 nextPlayer != currentPlayer && nextPlayer != topBettor) {
             nextPlayer = getPlayerAfter(nextPlayer);
         }
@@ -967,30 +1030,11 @@ public class TexasPoker extends CardGame{
                 /* 
                  * If showdown, show player hands and their win/tie 
                  * probabilities immediately and each time additional community
-                 * cards are revealed. Adds a dramatic delay between each reveal.
+                 * cards are revealed. Each reveal is scheduled after a 
+                 * dramatic delay so the bot isn't blocked in the meantime.
                  */
                 state = PokerState.SHOWDOWN;
-                PokerSimulator sim;
-                ArrayList<PokerPlayer> players = pots.get(0).getPlayers();
-
-                while (!betState.equals(PokerBet.RIVER)) {
-                    sim = new PokerSimulator(players, community);
-                    String showdownStr = formatHeader(" Showdown: ") + " ";
-                    for (PokerPlayer p : players) {
-                        showdownStr += p.getNickStr() + " (" + p.getHand() + "||" + formatBold(Math.round(sim.getWinPct(p)) + "/" + Math.round(sim.getTiePct(p)) + "%%") + "), ";
-                    }
-                    showMsg(showdownStr.substring(0, showdownStr.length()-2));
-
-                    // Add a delay for dramatic effect
-                    try { Thread.sleep(get("showdown") * 1000); } catch (InterruptedException e){}
-
-                    // Deal some community cards
-                    burnCard();
-                    dealCommunity();
-                    betState = betState.next();
-                    showCommunityCards(false);
-                }
-                endRound();
+                showShowdown();
             } else {
                 burnCard();
                 dealCommunity();
@@ -1002,12 +1046,46 @@ public class TexasPoker extends CardGame{
         } else {
             state = PokerState.BETTING;
             currentPlayer = nextPlayer;
-            showMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get("bet"), 
-                        currentPlayer.get("bet"), currentBet, getCashInPlay(), currentPlayer.get("cash")-currentPlayer.get("bet"));
+            showTurnMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get(Stat.BET), 
+                        currentPlayer.get(Stat.BET), currentBet, getCashInPlay(), currentPlayer.get(Stat.CASH)-currentPlayer.get(Stat.BET));
             setIdleOutTask();
         }
     }
     
+    /**
+     * Shows the hands and win/tie probabilities of the players in a showdown
+     * and schedules the next reveal of community cards.
+     */
+    protected void showShowdown() {
+        ArrayList<PokerPlayer> players = pots.get(0).getPlayers();
+        PokerSimulator sim = simulate(players, community);
+        String showdownStr = formatHeader(" Showdown: ") + " ";
+        for (PokerPlayer p : players) {
+            showdownStr += p.getNickStr() + " (" + p.getHand() + "||" + formatBold(Math.round(sim.getWinPct(p)) + "/" + Math.round(sim.getTiePct(p)) + "%%") + "), ";
+        }
+        showMsg(showdownStr.substring(0, showdownStr.length()-2) + " [" + sim.getMode() + "]");
+        
+        // Add a delay for dramatic effect
+        setShowdownTask();
+    }
+    
+    /**
+     * Deals the next community cards of a showdown. Called by ShowdownTask
+     * after the dramatic delay.
+     */
+    public void continueShowdown() {
+        burnCard();
+        dealCommunity();
+        betState = betState.next();
+        showCommunityCards(false);
+        
+        if (betState.equals(PokerBet.RIVER)) {
+            endRound();
+        } else {
+            showShowdown();
+        }
+    }
+    
     @Override
     public void endRound() {
         state = PokerState.END_ROUND;
@@ -1018,11 +1096,9 @@ public class TexasPoker extends CardGame{
             // Give all non-folded players the community cards
             for (int ctr = 0; ctr < joined.size(); ctr++){
                 p = (PokerPlayer) joined.get(ctr);
-                if (!p.has("fold")){
+                if (!p.has(Stat.FOLD)){
                     p.getPokerHand().addAll(p.getHand());
                     p.getPokerHand().addAll(community);
-                    Collections.sort(p.getPokerHand());
-                    Collections.reverse(p.getPokerHand());
                 }
             }
 
@@ -1038,13 +1114,15 @@ public class TexasPoker extends CardGame{
              * 3. Remove players who have quit mid-round
              * 4. Save player data
              * 5. Reset the player
+             * Player data is saved in one transaction for the whole round.
              */
+            beginPlayerData();
             for (int ctr = 0; ctr < joined.size(); ctr++){
                 p = (PokerPlayer) joined.get(ctr);
-                p.increment("tprounds");
+                p.increment(Stat.TPROUNDS);
                 
-                if (p.has("cash")) {
-                    if (p.has("quit")) {
+                if (p.has(Stat.CASH)) {
+                    if (p.has(Stat.QUIT)) {
                         removeJoined(p);
                         showMsg(getMsg("unjoin"), p.getNickStr(), joined.size());
                         ctr--;
@@ -1052,22 +1130,22 @@ public class TexasPoker extends CardGame{
                         savePlayerData(p);
                     }
                 } else {
-                    if (p.has("bank")){
+                    if (p.has(Stat.BANK)){
                         // Make a withdrawal if the player has a positive bank
-                        int amount = Math.min(p.get("bank"), get("cash"));
+                        long amount = Math.min(p.get(Stat.BANK), get("cash"));
                         p.bankTransfer(-amount);
                         savePlayerData(p);
                         informPlayer(p.getNick(), getMsg("auto_withdraw"), amount);
                         // Check if the player has quit
-                        if (p.has("quit")){
+                        if (p.has(Stat.QUIT)){
                             removeJoined(p);
                             showMsg(getMsg("unjoin"), p.getNickStr(), joined.size());
                             ctr--;
                         }
                     } else {
                         // Give penalty to players with no cash in their bank
-                        p.increment("bankrupts");
-                        blacklist.add(p);
+                        p.increment(Stat.BANKRUPTS);
+                        addBlacklisted(p);
                         removeJoined(p);
                         showMsg(getMsg("unjoin_bankrupt"), p.getNickStr(), joined.size());
                         setRespawnTask(p);
@@ -1078,6 +1156,7 @@ public class TexasPoker extends CardGame{
                 // Reset player
                 resetPlayer(p);
             }
+            commitPlayerData();
         } else {
             showMsg(getMsg("no_players"));
         }
@@ -1108,7 +1187,7 @@ public class TexasPoker extends CardGame{
         cancelStartRoundTask();
         cancelIdleOutTask();
         cancelRespawnTasks();
-        gameTimer.cancel();
+        cancelShowdownTask();
         deck = null;
         community = null;
         pots.clear();
@@ -1121,9 +1200,7 @@ public class TexasPoker extends CardGame{
         house = null;
         devoiceAll();
         showMsg(getMsg("game_end"), getGameNameStr());
-        joined.clear();
-        waitlist.clear();
-        blacklist.clear();
+        clearPlayers();
         awayList.clear();
         notSimpleList.clear();
         cmdMap.clear();
@@ -1157,12 +1234,12 @@ public class TexasPoker extends CardGame{
                 showMsg(getMsg("unjoin"), p.getNickStr(), joined.size());
                 break;
             case BETTING:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 if (p == currentPlayer) {
                     fold();
-                } else if (!p.has("fold")){
-                    p.set("fold", 1);
+                } else if (!p.has(Stat.FOLD)){
+                    p.set(Stat.FOLD, 1);
                     // Remove this player from any existing pots
                     if (currentPot != null && currentPot.hasPlayer(p)){
                         currentPot.removePlayer(p);
@@ -1181,12 +1258,12 @@ public class TexasPoker extends CardGame{
                 }
                 break;
             case BLINDS: case CONTINUE_ROUND:
-                p.set("quit", 1);
-                p.set("fold", 1);
+                p.set(Stat.QUIT, 1);
+                p.set(Stat.FOLD, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 break;
             case SHOWDOWN: case END_ROUND:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 break;
             default:
@@ -1206,10 +1283,10 @@ public class TexasPoker extends CardGame{
     @Override
     protected void resetPlayer(Player p) {
         discardPlayerHand((PokerPlayer) p);
-        p.clear("fold");
-        p.clear("quit");
-        p.clear("allin");
-        p.clear("change");
+        p.clear(Stat.FOLD);
+        p.clear(Stat.QUIT);
+        p.clear(Stat.ALLIN);
+        p.clear(Stat.CHANGE);
     }
     
     /**
@@ -1231,19 +1308,19 @@ public class TexasPoker extends CardGame{
      */
     protected void setBlindBets(){
         // Set the small blind
-        if (get("minbet")/2 > smallBlind.get("cash")) {
-            smallBlind.set("allin", 1);
-            smallBlind.set("bet", smallBlind.get("cash"));
+        if (get("minbet")/2 > smallBlind.get(Stat.CASH)) {
+            smallBlind.set(Stat.ALLIN, 1);
+            smallBlind.set(Stat.BET, smallBlind.get(Stat.CASH));
         } else {
-            smallBlind.set("bet", get("minbet")/2);
+            smallBlind.set(Stat.BET, get("minbet")/2);
         }
         
         // Set the big blind
-        if (get("minbet") > bigBlind.get("cash")) {
-            bigBlind.set("allin", 1);
-            bigBlind.set("bet", bigBlind.get("cash"));
+        if (get("minbet") > bigBlind.get(Stat.CASH)) {
+            bigBlind.set(Stat.ALLIN, 1);
+            bigBlind.set(Stat.BET, bigBlind.get(Stat.CASH));
         } else {
-            bigBlind.set("bet", get("minbet"));
+            bigBlind.set(Stat.BET, get("minbet"));
         }
         
         // Set the current bet to minbet regardless of actual blinds
@@ -1274,6 +1351,10 @@ public class TexasPoker extends CardGame{
         settings.put("startwait", 5);
         settings.put("showdown", 10);
         settings.put("revealcommunity", 0);
+        settings.put("exactplayers", PokerSimulator.defaultExactPlayers);
+        settings.put("simmargin", (int) Math.round(PokerSimulator.defaultMargin * 100));
+        settings.put("simtrials", PokerSimulator.defaultMaxTrials);
+        settings.put("simtime", (int) PokerSimulator.defaultMaxTime);
         settings.put("ping", 600);
     }
     
@@ -1321,6 +1402,14 @@ public class TexasPoker extends CardGame{
             out.println("showdown=" + get("showdown"));
             out.println("#Whether or not to reveal community when not required");
             out.println("revealcommunity=" + get("revealcommunity"));
+            out.println("#The maximum number of players for exact pre-flop showdown odds");
+            out.println("exactplayers=" + get("exactplayers"));
+            out.println("#The target margin of error of sampled showdown odds in hundredths of a percent");
+            out.println("simmargin=" + get("simmargin"));
+            out.println("#The maximum number of boards sampled for showdown odds");
+            out.println("simtrials=" + get("simtrials"));
+            out.println("#The time limit in milliseconds for sampling showdown odds");
+            out.println("simtime=" + get("simtime"));
             out.println("#The rate-limit of the ping command");
             out.println("ping=" + get("ping"));
             out.close();
@@ -1335,7 +1424,8 @@ public class TexasPoker extends CardGame{
         try {
             BufferedReader in = new BufferedReader(new FileReader("housestats.txt"));
             String str;
-            int biggestpot, players, winners;
+            int players, winners;
+            long biggestpot;
             StringTokenizer st;
             while (in.ready()) {
                 str = in.readLine();
@@ -1346,8 +1436,8 @@ public class TexasPoker extends CardGame{
                             break;
                         }
                         st = new StringTokenizer(str);
-                        biggestpot = Integer.parseInt(st.nextToken());
-                        house.set("biggestpot", biggestpot);
+                        biggestpot = Long.parseLong(st.nextToken());
+                        house.set(Stat.BIGGESTPOT, biggestpot);
                         players = Integer.parseInt(st.nextToken());
                         for (int ctr = 0; ctr < players; ctr++) {
                             house.addDonor(new PokerPlayer(st.nextToken(), ""));
@@ -1408,7 +1498,7 @@ public class TexasPoker extends CardGame{
             lines.add("#texaspoker");
             index = lines.size();
         }
-        lines.add(index, house.get("biggestpot") + " " + house.getNumDonors() + " " + house.getDonorsString() + " " + house.getNumWinners() + " " + house.getWinnersString());
+        lines.add(index, house.get(Stat.BIGGESTPOT) + " " + house.getNumDonors() + " " + house.getDonorsString() + " " + house.getNumWinners() + " " + house.getWinnersString());
         try {
             PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter("housestats.txt")));
             for (int ctr = 0; ctr < lines.size(); ctr++) {
@@ -1494,12 +1584,12 @@ public class TexasPoker extends CardGame{
      * Processes a bet command.
      * @param amount the amount to bet
      */
-    public void bet(int amount) {
+    public void bet(long amount) {
         cancelIdleOutTask();
         PokerPlayer p = (PokerPlayer) currentPlayer;
         
         // A bet that's an all-in
-        if (amount == p.get("cash")){
+        if (amount == p.get(Stat.CASH)){
             if (amount > currentBet || topBettor == null){
                 if (amount - currentBet > minRaise){
                     minRaise = amount - currentBet;
@@ -1507,11 +1597,11 @@ public class TexasPoker extends CardGame{
                 currentBet = amount;
                 topBettor = p;
             }
-            p.set("bet", amount);
-            p.set("allin", 1);
+            p.set(Stat.BET, amount);
+            p.set(Stat.ALLIN, 1);
             continueRound();
         // A bet that's larger than a player's stack
-        } else if (amount > p.get("cash")) {
+        } else if (amount > p.get(Stat.CASH)) {
             informPlayer(p.getNick(), getMsg("insufficient_funds"));
             setIdleOutTask();
         // A bet that's lower than the current bet
@@ -1523,7 +1613,7 @@ public class TexasPoker extends CardGame{
             if (topBettor == null){
                 topBettor = p;
             }
-            p.set("bet", amount);
+            p.set(Stat.BET, amount);
             continueRound();
         // A bet that's lower than the minimum raise
         } else if (amount - currentBet < minRaise){
@@ -1531,7 +1621,7 @@ public class TexasPoker extends CardGame{
             setIdleOutTask();
         // A valid bet that's greater than the currentBet
         } else {
-            p.set("bet", amount);
+            p.set(Stat.BET, amount);
             topBettor = p;
             minRaise = amount - currentBet;
             currentBet = amount;
@@ -1548,7 +1638,7 @@ public class TexasPoker extends CardGame{
         cancelIdleOutTask();
         PokerPlayer p = (PokerPlayer) currentPlayer;
         
-        if (currentBet == 0 || p.get("bet") == currentBet){
+        if (currentBet == 0 || p.get(Stat.BET) == currentBet){
             if (topBettor == null){
                 topBettor = p;
             }
@@ -1567,19 +1657,19 @@ public class TexasPoker extends CardGame{
     public void call(){
         cancelIdleOutTask();
         PokerPlayer p = (PokerPlayer) currentPlayer;
-        int total = Math.min(p.get("cash"), currentBet);
+        long total = Math.min(p.get(Stat.CASH), currentBet);
         
         if (topBettor == null){
             topBettor = p;
         }
         
         // A call that's an all-in to match the currentBet
-        if (total == p.get("cash")){
-            p.set("allin", 1);
-            p.set("bet", total);
+        if (total == p.get(Stat.CASH)){
+            p.set(Stat.ALLIN, 1);
+            p.set(Stat.BET, total);
         // A call or check
         } else {
-            p.set("bet", total);
+            p.set(Stat.BET, total);
         }
         continueRound();
     }
@@ -1591,7 +1681,7 @@ public class TexasPoker extends CardGame{
     public void fold(){
         cancelIdleOutTask();
         PokerPlayer p = (PokerPlayer) currentPlayer;
-        p.set("fold", 1);
+        p.set(Stat.FOLD, 1);
 
         //Remove this player from any existing pots
         if (currentPot != null && currentPot.hasPlayer(p)){
@@ -1609,6 +1699,35 @@ public class TexasPoker extends CardGame{
     //// Behind the scenes methods ////
     ///////////////////////////////////
     
+    /**
+     * Calculates the odds of the players that haven't folded using the
+     * simulator settings of this game.
+     * @param players the players
+     * @param comm the community cards
+     * @return the simulator with the results
+     */
+    protected PokerSimulator simulate(ArrayList<PokerPlayer> players, Hand comm) {
+        return new PokerSimulator(players, comm, get("exactplayers"),
+                                  get("simmargin") / 100.0, get("simtrials"), get("simtime"));
+    }
+    
+    /**
+     * Schedules the next reveal of a showdown after the showdown delay.
+     */
+    protected void setShowdownTask() {
+        showdownTask = new ShowdownTask(this);
+        showdownTask.schedule(get("showdown") * 1000);
+    }
+    
+    /**
+     * Cancels any scheduled reveal of a showdown.
+     */
+    protected void cancelShowdownTask() {
+        if (showdownTask != null) {
+            showdownTask.cancel();
+        }
+    }
+    
     /**
      * Determines the number of players who have not folded.
      * @return the number of non-folded players
@@ -1616,7 +1735,7 @@ public class TexasPoker extends CardGame{
     protected int getNumberNotFolded(){
         int numberNotFolded = 0;
         for (Player p : joined) {
-            if (!p.has("fold")){
+            if (!p.has(Stat.FOLD)){
                 numberNotFolded++;
             }
         }
@@ -1630,7 +1749,7 @@ public class TexasPoker extends CardGame{
     protected int getNumberCanBet(){
         int numberCanBet = 0;
         for (Player p : joined) {
-            if (!p.has("fold") && !p.has("allin")){
+            if (!p.has(Stat.FOLD) && !p.has(Stat.ALLIN)){
                 numberCanBet++;
             }
         }
@@ -1645,7 +1764,7 @@ public class TexasPoker extends CardGame{
     protected int getNumberBettors() {
         int numberBettors = 0;
         for (Player p : joined) {
-            if (p.has("bet")){
+            if (p.has(Stat.BET)){
                 numberBettors++;
             }
         }
@@ -1656,8 +1775,8 @@ public class TexasPoker extends CardGame{
      * Determines total amount committed by all players.
      * @return the total running amount 
      */
-    protected int getCashInPlay() {
-        int total = 0;
+    protected long getCashInPlay() {
+        long total = 0;
         
         // Add in the processed pots
         for (PokerPot pp : pots) {
@@ -1666,7 +1785,7 @@ public class TexasPoker extends CardGame{
         
         // Add in the amounts currently being betted
         for (Player p : joined) {
-            total += p.get("bet");
+            total += p.get(Stat.BET);
         }
         
         return total;
@@ -1678,7 +1797,7 @@ public class TexasPoker extends CardGame{
      */
     protected void addBetsToPot(){
         PokerPlayer p;
-        int lowBet;
+        long lowBet;
         while(currentBet != 0){
             lowBet = currentBet;
             // Only add bets to a pot if more than one player has made a bet
@@ -1693,7 +1812,7 @@ public class TexasPoker extends CardGame{
                     // then a new pot will be required.
                     for (int ctr = 0; ctr < currentPot.getNumPlayers(); ctr++) {
                         p = currentPot.getPlayer(ctr);
-                        if (!p.has("bet") && currentBet != 0 && !p.has("fold") && currentPot.hasPlayer(p)) {
+                        if (!p.has(Stat.BET) && currentBet != 0 && !p.has(Stat.FOLD) && currentPot.hasPlayer(p)) {
                             currentPot = new PokerPot();
                             pots.add(currentPot);
                             break;
@@ -1704,28 +1823,28 @@ public class TexasPoker extends CardGame{
                 // Determine the lowest non-zero bet
                 for (int ctr = 0; ctr < joined.size(); ctr++) {
                     p = (PokerPlayer) joined.get(ctr);
-                    if (p.get("bet") < lowBet && p.has("bet")){
-                        lowBet = p.get("bet");
+                    if (p.get(Stat.BET) < lowBet && p.has(Stat.BET)){
+                        lowBet = p.get(Stat.BET);
                     }
                 }
                 // Subtract lowBet from each player's (non-zero) bet and add to pot.
                 for (int ctr = 0; ctr < joined.size(); ctr++){
                     p = (PokerPlayer) joined.get(ctr);
-                    if (p.has("bet")){
+                    if (p.has(Stat.BET)){
                         // Check if player has been added to donor list
                         if (!currentPot.hasDonor(p)) {
                             currentPot.addDonor(p);
                         }
                         // Ensure a non-folded player is included in this pot
-                        if (!p.has("fold") && !currentPot.hasPlayer(p)){
+                        if (!p.has(Stat.FOLD) && !currentPot.hasPlayer(p)){
                             currentPot.addPlayer(p);
                         }
                         // Transfer lowBet from the player to the pot
                         currentPot.add(lowBet);
-                        p.add("cash", -1 * lowBet);
-                        p.add("tpwinnings", -1 * lowBet);
-                        p.add("bet", -1 * lowBet);
-                        p.add("change", -1 * lowBet);
+                        p.add(Stat.CASH, -1 * lowBet);
+                        p.add(Stat.TPWINNINGS, -1 * lowBet);
+                        p.add(Stat.BET, -1 * lowBet);
+                        p.add(Stat.CHANGE, -1 * lowBet);
                     }
                 }
                 // Update currentbet
@@ -1737,8 +1856,8 @@ public class TexasPoker extends CardGame{
             } else {
                 for (int ctr = 0; ctr < joined.size(); ctr++){
                     p = (PokerPlayer) joined.get(ctr);
-                    if (p.get("bet") != 0){
-                        p.clear("bet");
+                    if (p.get(Stat.BET) != 0){
+                        p.clear(Stat.BET);
                         break;
                     }
                 }
@@ -1750,22 +1869,8 @@ public class TexasPoker extends CardGame{
     
     @Override
     public int getTotalPlayers(){
-        try {
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int total = 0;
-            
-            for (PlayerRecord record : records) {
-                if (record.has("tprounds")){
-                    total++;
-                }
-            }
-            return total;
-        } catch (IOException e){
-            manager.log("Error reading players.txt!");
-            return 0;
-        }
-    }    
+        return manager.getPlayerStore().countRecords("tprounds");
+    }
     
     ////////////////////////////////////////////////////////
     //// Message output methods for Texas Hold'em Poker ////
@@ -1782,7 +1887,7 @@ public class TexasPoker extends CardGame{
         for (Player p : joined) {
             // Give bold to remaining non-folded players
             nickColor = "";
-            if (!p.has("fold")){
+            if (!p.has(Stat.FOLD)){
                 nickColor = Colors.BOLD;
             }
             msg += nickColor + p.getNick();
@@ -1809,7 +1914,7 @@ public class TexasPoker extends CardGame{
      * Displays info on the dealer and blinds.
      */
     public void showButtonInfo() {
-        showMsg(getMsg("tp_button_info"), dealer.getNickStr(false), smallBlind.getNickStr(false), smallBlind.get("bet"), bigBlind.getNickStr(false), bigBlind.get("bet"));
+        showMsg(getMsg("tp_button_info"), dealer.getNickStr(false), smallBlind.getNickStr(false), smallBlind.get(Stat.BET), bigBlind.getNickStr(false), bigBlind.get(Stat.BET));
     }
     
     /**
@@ -1842,7 +1947,7 @@ public class TexasPoker extends CardGame{
         int notFolded = getNumberNotFolded();
         String pstr = "(" + formatBold(notFolded) + " players: ";
         for (Player p : joined) {
-            if (!p.has("fold")){
+            if (!p.has(Stat.FOLD)){
                 pstr += p.getNick(false) + ", ";
             }
         }
@@ -1861,8 +1966,7 @@ public class TexasPoker extends CardGame{
         // Show introduction to end results
         showMsg(formatHeader(" Results: "));
         players = pots.get(0).getPlayers();
-        Collections.sort(players);
-        Collections.reverse(players);
+        PokerPlayer.sortByHand(players);
         
         // Show each remaining player's hand
         if (pots.get(0).getNumPlayers() > 1){
@@ -1877,11 +1981,10 @@ public class TexasPoker extends CardGame{
             winners = 1;
             currentPot = pots.get(ctr);
             players = currentPot.getPlayers();
-            Collections.sort(players);
-            Collections.reverse(players);
+            PokerPlayer.sortByHand(players);
             // Determine number of winners
             for (int ctr2=1; ctr2 < currentPot.getNumPlayers(); ctr2++){
-                if (players.get(0).compareTo(players.get(ctr2)) == 0){
+                if (players.get(0).getPokerHand().getStrength() == players.get(ctr2).getPokerHand().getStrength()){
                     winners++;
                 }
             }
@@ -1889,17 +1992,17 @@ public class TexasPoker extends CardGame{
             // Output winners
             for (int ctr2=0; ctr2<winners; ctr2++){
                 p = players.get(ctr2);
-                p.add("cash", currentPot.getTotal()/winners);
-                p.add("tpwinnings", currentPot.getTotal()/winners);
-                p.add("change", currentPot.getTotal()/winners);
+                p.add(Stat.CASH, currentPot.getTotal()/winners);
+                p.add(Stat.TPWINNINGS, currentPot.getTotal()/winners);
+                p.add(Stat.CHANGE, currentPot.getTotal()/winners);
                 showMsg(Colors.YELLOW+",01 Pot #" + (ctr+1) + ": " + Colors.NORMAL + " " + 
                     p.getNickStr() + " wins $" + formatNumber(currentPot.getTotal()/winners) + 
                     ". (" + getPlayerListString(currentPot.getPlayers()) + ")");
             }
             
             // Check if it's the biggest pot
-            if (house.get("biggestpot") < currentPot.getTotal()){
-                house.set("biggestpot", currentPot.getTotal());
+            if (house.get(Stat.BIGGESTPOT) < currentPot.getTotal()){
+                house.set(Stat.BIGGESTPOT, currentPot.getTotal());
                 house.clearDonors();
                 house.clearWinners();
                 // Store the list of donors
@@ -1919,16 +2022,16 @@ public class TexasPoker extends CardGame{
     public void showPlayerWinnings(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_winnings"), p.getNick(false), p.get("tpwinnings"), getGameNameStr());
+            showMsg(getMsg("player_winnings"), p.getNick(false), p.get(Stat.TPWINNINGS), getGameNameStr());
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_winnings"), p.getNick(false), p.get("tpwinnings"), getGameNameStr());
+            showMsg(getMsg("player_winnings"), p.getNick(false), p.get(Stat.TPWINNINGS), getGameNameStr());
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_winnings"), record.getNick(false), record.get("tpwinnings"), getGameNameStr());
+                showMsg(getMsg("player_winnings"), record.getNick(false), record.get(Stat.TPWINNINGS), getGameNameStr());
             }
         }
     }
@@ -1937,26 +2040,26 @@ public class TexasPoker extends CardGame{
     public void showPlayerWinRate(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            if (p.get("tprounds") == 0){
+            if (p.get(Stat.TPROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get("tpwinnings")/(double) p.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get(Stat.TPWINNINGS)/(double) p.get(Stat.TPROUNDS), getGameNameStr());
             }  
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            if (p.get("tprounds") == 0){
+            if (p.get(Stat.TPROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get("tpwinnings")/(double) p.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), p.getNick(false), (double) p.get(Stat.TPWINNINGS)/(double) p.get(Stat.TPROUNDS), getGameNameStr());
             }  
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
-            } else if (record.get("tprounds") == 0){
+            } else if (record.get(Stat.TPROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), record.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_winrate"), record.getNick(false), (double) record.get("tpwinnings")/(double) record.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_winrate"), record.getNick(false), (double) record.get(Stat.TPWINNINGS)/(double) record.get(Stat.TPROUNDS), getGameNameStr());
             }  
         }
     }
@@ -1965,26 +2068,26 @@ public class TexasPoker extends CardGame{
     public void showPlayerRounds(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            if (p.get("tprounds") == 0){
+            if (p.get(Stat.TPROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), p.getNick(false), p.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), p.getNick(false), p.get(Stat.TPROUNDS), getGameNameStr());
             }
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            if (p.get("tprounds") == 0){
+            if (p.get(Stat.TPROUNDS) == 0){
                 showMsg(getMsg("player_no_rounds"), p.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), p.getNick(false), p.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), p.getNick(false), p.get(Stat.TPROUNDS), getGameNameStr());
             }
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
-            } else if (record.get("tprounds") == 0) {
+            } else if (record.get(Stat.TPROUNDS) == 0) {
                 showMsg(getMsg("player_no_rounds"), record.getNick(false), getGameNameStr());
             } else {
-                showMsg(getMsg("player_rounds"), record.getNick(false), record.get("tprounds"), getGameNameStr());
+                showMsg(getMsg("player_rounds"), record.getNick(false), record.get(Stat.TPROUNDS), getGameNameStr());
             }
         }
     }
@@ -1993,16 +2096,16 @@ public class TexasPoker extends CardGame{
     public void showPlayerAllStats(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get("cash"), p.get("bank"), p.get("netcash"), p.get("bankrupts"), p.get("tpwinnings"), p.get("tprounds"));
+            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get(Stat.CASH), p.get(Stat.BANK), p.get("netcash"), p.get(Stat.BANKRUPTS), p.get(Stat.TPWINNINGS), p.get(Stat.TPROUNDS));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get("cash"), p.get("bank"), p.get("netcash"), p.get("bankrupts"), p.get("tpwinnings"), p.get("tprounds"));
+            showMsg(getMsg("player_all_stats"), p.getNick(false), p.get(Stat.CASH), p.get(Stat.BANK), p.get("netcash"), p.get(Stat.BANKRUPTS), p.get(Stat.TPWINNINGS), p.get(Stat.TPROUNDS));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("player_all_stats"), record.getNick(false), record.get("cash"), record.get("bank"), record.get("netcash"), record.get("bankrupts"), record.get("tpwinnings"), record.get("tprounds"));
+                showMsg(getMsg("player_all_stats"), record.getNick(false), record.get(Stat.CASH), record.get(Stat.BANK), record.get("netcash"), record.get(Stat.BANKRUPTS), record.get(Stat.TPWINNINGS), record.get(Stat.TPROUNDS));
             }
         }
     }
@@ -2014,195 +2117,111 @@ public class TexasPoker extends CardGame{
             return;
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int length = records.size();
-            String line = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex, rank = 0;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Double> winrates = new ArrayList<Double>();
-                
-                for (int ctr = 0; ctr < length; ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("tprounds") == 0){
-                        winrates.add(0.);
-                    } else {
-                        winrates.add((double) aRecord.get("tpwinnings") / (double) aRecord.get("tprounds"));
-                    }
-                }
-                
-                line += "Texas Hold'em Win Rate: ";
-                
-                // Find the player with the highest value and check if it is 
-                // the requested player. Repeat until found or end.
-                for (int ctr = 0; ctr < length; ctr++){
-                    highIndex = 0;
-                    rank++;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    if (nick.equalsIgnoreCase(nicks.get(highIndex))){
-                        line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " $" + formatDecimal(winrates.get(highIndex)) + " ";
-                        break;
-                    } else {
-                        nicks.remove(highIndex);
-                        winrates.remove(highIndex);
-                    }
-                }
-            } else {
-                String statName = "";
-                if (stat.equalsIgnoreCase("cash")) {
-                    statName = "cash";
-                    line += "Cash: ";
-                } else if (stat.equalsIgnoreCase("bank")) {
-                    statName = "bank";
-                    line += "Bank: ";
-                } else if (stat.equalsIgnoreCase("bankrupts")) {
-                    statName = "bankrupts";
-                    line += "Bankrupts: ";
-                } else if (stat.equalsIgnoreCase("net") || stat.equals("netcash")) {
-                    statName = "netcash";
-                    line += "Net Cash: ";
-                } else if (stat.equalsIgnoreCase("winnings")){
-                    statName = "tpwinnings";
-                    line += "Texas Hold'em Winnings: ";
-                } else if (stat.equalsIgnoreCase("rounds")) {
-                    statName = "tprounds";
-                    line += "Texas Hold'em Rounds: ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-                
-                // Find the rank of the player
-                for (int ctr = 0; ctr < length; ctr++){
-                    aRecord = records.get(ctr);
-                    if (nick.equalsIgnoreCase(aRecord.getNick())){
-                        if (stat.equalsIgnoreCase("rounds") || stat.equalsIgnoreCase("bankrupts")) {
-                            line += "#" + (ctr+1) + " " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " ";
-                        } else {
-                            line += "#" + (ctr+1) + " " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " $" + formatNumber(aRecord.get(statName)) + " ";
-                        }
-                        break;
-                    }
-                }
-            }
-            
-            // Show rank
-            showMsg(line);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
+        String statName;
+        String line = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "tpwinrate";
+            line += "Texas Hold'em Win Rate: ";
+        } else if (stat.equalsIgnoreCase("cash")) {
+            statName = "cash";
+            line += "Cash: ";
+        } else if (stat.equalsIgnoreCase("bank")) {
+            statName = "bank";
+            line += "Bank: ";
+        } else if (stat.equalsIgnoreCase("bankrupts")) {
+            statName = "bankrupts";
+            line += "Bankrupts: ";
+        } else if (stat.equalsIgnoreCase("net") || stat.equals("netcash")) {
+            statName = "netcash";
+            line += "Net Cash: ";
+        } else if (stat.equalsIgnoreCase("winnings")){
+            statName = "tpwinnings";
+            line += "Texas Hold'em Winnings: ";
+        } else if (stat.equalsIgnoreCase("rounds")) {
+            statName = "tprounds";
+            line += "Texas Hold'em Rounds: ";
+        } else {
+            throw new IllegalArgumentException();
         }
+        
+        // Look up the rank of the player
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int rank = board.getRank(nick);
+        Leaderboard.Entry entry = board.getEntry(nick);
+        if (rank == 0 || entry == null) {
+            showMsg(getMsg("no_data"), formatNoPing(nick));
+            return;
+        }
+        
+        if (statName.equals("tpwinrate")) {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatDecimal(entry.getScore()) + " ";
+        } else if (statName.equals("tprounds") || statName.equals("bankrupts")) {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " ";
+        } else {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatNumber(entry.getValue()) + " ";
+        }
+        
+        // Show rank
+        showMsg(line);
     }
-    
+        
     @Override
     public void showTopPlayers(String stat, int n) {
         if (n < 1){
             throw new IllegalArgumentException();
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int end = Math.min(n, records.size());
-            int start = Math.max(end - 10, 0);
-            String title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end;
-            String list = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Double> winrates = new ArrayList<Double>();
-
-                for (int ctr = 0; ctr < records.size(); ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("tprounds") == 0){
-                        winrates.add(0.);
-                    } else {
-                        winrates.add((double) aRecord.get("tpwinnings") / (double) aRecord.get("tprounds"));
-                    }
-                }
-                
-                title += " Texas Hold'em Win Rate ";
-                
-                // Find the player with the highest value, add to output string and remove.
-                for (int ctr = 0; ctr < records.size(); ctr++){
-                    highIndex = 0;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    // Only add those in the required range.
-                    if (ctr >= start) {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " $" + formatDecimal(winrates.get(highIndex)) + " " + Colors.BLACK + ",08";
-                    }
-                    
-                    nicks.remove(highIndex);
-                    winrates.remove(highIndex);
-                    
-                    // Break when we've reached the end of required range
-                    if (ctr + 1 == end) {
-                        break;
-                    }
-                }
+        String statName;
+        String title;
+        String list = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "tpwinrate";
+            title = " Texas Hold'em Win Rate ";
+        } else if (stat.equalsIgnoreCase("cash")) {
+            statName = "cash";
+            title = " Cash ";
+        } else if (stat.equalsIgnoreCase("bank")) {
+            statName = "bank";
+            title = " Bank ";
+        } else if (stat.equalsIgnoreCase("bankrupts")) {
+            statName = "bankrupts";
+            title = " Bankrupts ";
+        } else if (stat.equalsIgnoreCase("net") || stat.equalsIgnoreCase("netcash")) {
+            statName = "netcash";
+            title = " Net Cash ";
+        } else if (stat.equalsIgnoreCase("winnings")){
+            statName = "tpwinnings";
+            title = " Texas Hold'em Winnings ";
+        } else if (stat.equalsIgnoreCase("rounds")) {
+            statName = "tprounds";
+            title = " Texas Hold'em Rounds ";
+        } else {
+            throw new IllegalArgumentException();
+        }
+        
+        // Only fetch the players in the required range
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int end = Math.min(n, board.size());
+        int start = Math.max(end - 10, 0);
+        title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end + title;
+        
+        int rank = start;
+        for (Leaderboard.Entry entry : board.getEntries(start, end)) {
+            rank++;
+            if (statName.equals("tpwinrate")) {
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatDecimal(entry.getScore()) + " " + Colors.BLACK + ",08";
+            } else if (statName.equals("tprounds") || statName.equals("bankrupts")) {
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " " + Colors.BLACK + ",08";
             } else {
-                String statName = "";
-                if (stat.equalsIgnoreCase("cash")) {
-                    statName = "cash";
-                    title += " Cash ";
-                } else if (stat.equalsIgnoreCase("bank")) {
-                    statName = "bank";
-                    title += " Bank ";
-                } else if (stat.equalsIgnoreCase("bankrupts")) {
-                    statName = "bankrupts";
-                    title += " Bankrupts ";
-                } else if (stat.equalsIgnoreCase("net") || stat.equalsIgnoreCase("netcash")) {
-                    statName = "netcash";
-                    title += " Net Cash ";
-                } else if (stat.equalsIgnoreCase("winnings")){
-                    statName = "tpwinnings";
-                    title += " Texas Hold'em Winnings ";
-                } else if (stat.equalsIgnoreCase("rounds")) {
-                    statName = "tprounds";
-                    title += " Texas Hold'em Rounds ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-
-                // Add the players in the required range
-                for (int ctr = start; ctr < end; ctr++){
-                    aRecord = records.get(ctr);
-                    if (stat.equalsIgnoreCase("rounds") || stat.equalsIgnoreCase("bankrupts")) {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " " + Colors.BLACK + ",08";
-                    } else {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " $" + formatNumber(aRecord.get(statName)) + " " + Colors.BLACK + ",08";
-                    }
-                }
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " $" + formatNumber(entry.getValue()) + " " + Colors.BLACK + ",08";
             }
-            
-            // Output title and the list
-            showMsg(title);
-            showMsg(list);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
         }
+        
+        // Output title and the list
+        showMsg(title);
+        showMsg(list);
     }
     
     /**
@@ -2214,14 +2233,14 @@ public class TexasPoker extends CardGame{
         Collections.sort(list, Player.getComparator("cash"));
         
         for (Player p : list) {
-            msg += p.getNick(false) + " (" + formatBold("$" + formatNumber(p.get("cash")));
+            msg += p.getNick(false) + " (" + formatBold("$" + formatNumber(p.get(Stat.CASH)));
             // Add player stack change
-            if (p.get("change") > 0) {
-                msg += "[" + Colors.DARK_GREEN + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
-            } else if (p.get("change") < 0) {
-                msg += "[" + Colors.RED + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
+            if (p.get(Stat.CHANGE) > 0) {
+                msg += "[" + Colors.DARK_GREEN + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
+            } else if (p.get(Stat.CHANGE) < 0) {
+                msg += "[" + Colors.RED + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
             } else {
-                msg += "[" + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
+                msg += "[" + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
             }
             msg += "), ";
         }
@@ -22,8 +22,10 @@ package irccasino.texastourney;
 import irccasino.cardgame.CardDeck;
 import irccasino.cardgame.PlayerRecord;
 import irccasino.GameManager;
+import irccasino.Stat;
 import irccasino.cardgame.CardGame;
 import irccasino.cardgame.Hand;
+import irccasino.cardgame.Leaderboard;
 import irccasino.cardgame.Player;
 import irccasino.texaspoker.PokerPot;
 import irccasino.texaspoker.PokerPlayer;
@@ -88,106 +90,158 @@ public class TexasTourney extends TexasPoker {
         String host = user.getHostmask();
         
         // Commands available in TexasTourney.
-        if (command.equalsIgnoreCase("join") || command.equalsIgnoreCase("j")){
-            join(nick, host);
-        } else if (command.equalsIgnoreCase("leave") || command.equalsIgnoreCase("quit") || command.equalsIgnoreCase("l") || command.equalsIgnoreCase("q")){
-            leave(nick, params);
-        } else if (command.equalsIgnoreCase("start") || command.equalsIgnoreCase("go")) {
-            start(nick, params);
-        } else if (command.equalsIgnoreCase("stop") || command.equalsIgnoreCase("cancel")) {
-            stop(nick, params);
-        } else if (command.equalsIgnoreCase("cash")) {
-            cash(nick, params);
-        } else if (command.equalsIgnoreCase("tourneys") || command.equalsIgnoreCase("rounds")) {
-            rounds(nick, params);
-        } else if (command.equalsIgnoreCase("wins")) {
-            wins(nick, params);
-        } else if (command.equalsIgnoreCase("winrate")) {
-            winrate(nick, params);
-        } else if (command.equalsIgnoreCase("player") || command.equalsIgnoreCase("p")){
-            player(nick, params);
-        } else if (command.equalsIgnoreCase("bet") || command.equalsIgnoreCase("b")) {
-            bet(nick, params);
-        } else if (command.equalsIgnoreCase("c") || command.equalsIgnoreCase("ca") || command.equalsIgnoreCase("call")) {
-            call(nick, params);
-        } else if (command.equalsIgnoreCase("x") || command.equalsIgnoreCase("ch") || command.equalsIgnoreCase("check")) {
-            check(nick, params);
-        } else if (command.equalsIgnoreCase("fold") || command.equalsIgnoreCase("f")) {
-            fold(nick, params);
-        } else if (command.equalsIgnoreCase("raise") || command.equalsIgnoreCase("r")) {
-            raise(nick, params);
-        } else if (command.equalsIgnoreCase("allin") || command.equalsIgnoreCase("a")){
-            allin(nick, params);
-        } else if (command.equalsIgnoreCase("community") || command.equalsIgnoreCase("comm")){
-            community(nick, params);
-        } else if (command.equalsIgnoreCase("hand")) {
-            hand(nick, params);
-        } else if (command.equalsIgnoreCase("turn")) {
-            turn(nick, params);
-        } else if (command.equalsIgnoreCase("players")) {
-            players(nick, params);
-        } else if (command.equalsIgnoreCase("blacklist")) {
-            blacklist(nick, params);
-        } else if (command.equalsIgnoreCase("rank")) {
-            rank(nick, params);
-        } else if (command.equalsIgnoreCase("top")) {
-            top(nick, params);
-        } else if (command.equalsIgnoreCase("away")){
-            away(nick, params);
-        } else if (command.equalsIgnoreCase("back")){
-            back(nick, params);
-        } else if (command.equalsIgnoreCase("ping")) {
-            ping(nick, params);
-        } else if (command.equalsIgnoreCase("simple")) {
-            simple(nick, params);
-        } else if (command.equalsIgnoreCase("stats")){
-            stats(nick, params);
-        } else if (command.equalsIgnoreCase("grules")) {
-            grules(nick, params);
-        } else if (command.equalsIgnoreCase("ghelp")) {
-            ghelp(nick, params);
-        } else if (command.equalsIgnoreCase("gcommands")) {
-            gcommands(user, nick, params);
-        } else if (command.equalsIgnoreCase("game")) {
-            game(nick, params);
-        /* Op commands */
-        } else if (command.equalsIgnoreCase("fj") || command.equalsIgnoreCase("fjoin")){
-            fjoin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fl") || command.equalsIgnoreCase("fq") || command.equalsIgnoreCase("fquit") || command.equalsIgnoreCase("fleave")){
-            fleave(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstart") || command.equalsIgnoreCase("fgo")){
-            fstart(user, nick, params);
-        } else if (command.equalsIgnoreCase("fstop")){
-            fstop(user, nick, params);
-        } else if (command.equalsIgnoreCase("fb") || command.equalsIgnoreCase("fbet")){
-            fbet(user, nick, params);
-        } else if (command.equalsIgnoreCase("fa") || command.equalsIgnoreCase("fallin")){
-            fallin(user, nick, params);
-        } else if (command.equalsIgnoreCase("fr") || command.equalsIgnoreCase("fraise")){
-            fraise(user, nick, params);
-        } else if (command.equalsIgnoreCase("fc") || command.equalsIgnoreCase("fca") || command.equalsIgnoreCase("fcall")){
-            fcall(user, nick, params);
-        } else if (command.equalsIgnoreCase("fx") || command.equalsIgnoreCase("fch") || command.equalsIgnoreCase("fcheck")){
-            fcheck(user, nick, params);
-        } else if (command.equalsIgnoreCase("ff") || command.equalsIgnoreCase("ffold")){
-            ffold(user, nick, params);
-        } else if (command.equalsIgnoreCase("shuffle")){
-            shuffle(user, nick, params);
-        } else if (command.equalsIgnoreCase("reload")) {
-            reload(user, nick, params);
-        } else if (command.equalsIgnoreCase("settings")) {
-            settings(user, nick, params);
-        } else if (command.equalsIgnoreCase("set")){
-            set(user, nick, params);
-        } else if (command.equalsIgnoreCase("get")) {
-            get(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetaway")){
-            resetaway(user, nick, params);
-        } else if (command.equalsIgnoreCase("resetsimple")) {
-            resetsimple(user, nick, params);
-        } else if (command.equalsIgnoreCase("trim")) {
-            trim(user, nick, params);
-        } 
+        switch (command) {
+            case "join":
+                join(nick, host);
+                break;
+            case "quit":
+                leave(nick, params);
+                break;
+            case "start":
+                start(nick, params);
+                break;
+            case "stop":
+                stop(nick, params);
+                break;
+            case "cash":
+                cash(nick, params);
+                break;
+            case "tourneys":
+                rounds(nick, params);
+                break;
+            case "wins":
+                wins(nick, params);
+                break;
+            case "winrate":
+                winrate(nick, params);
+                break;
+            case "player":
+                player(nick, params);
+                break;
+            case "bet":
+                bet(nick, params);
+                break;
+            case "call":
+                call(nick, params);
+                break;
+            case "check":
+                check(nick, params);
+                break;
+            case "fold":
+                fold(nick, params);
+                break;
+            case "raise":
+                raise(nick, params);
+                break;
+            case "allin":
+                allin(nick, params);
+                break;
+            case "community":
+                community(nick, params);
+                break;
+            case "hand":
+                hand(nick, params);
+                break;
+            case "turn":
+                turn(nick, params);
+                break;
+            case "players":
+                players(nick, params);
+                break;
+            case "blacklist":
+                blacklist(nick, params);
+                break;
+            case "rank":
+                rank(nick, params);
+                break;
+            case "top":
+                top(nick, params);
+                break;
+            case "away":
+                away(nick, params);
+                break;
+            case "back":
+                back(nick, params);
+                break;
+            case "ping":
+                ping(nick, params);
+                break;
+            case "simple":
+                simple(nick, params);
+                break;
+            case "stats":
+                stats(nick, params);
+                break;
+            case "grules":
+                grules(nick, params);
+                break;
+            case "ghelp":
+                ghelp(nick, params);
+                break;
+            case "gcommands":
+                gcommands(user, nick, params);
+                break;
+            case "game":
+                game(nick, params);
+                break;
+            /* Op commands */
+            case "fjoin":
+                fjoin(user, nick, params);
+                break;
+            case "fquit":
+                fleave(user, nick, params);
+                break;
+            case "fstart":
+                fstart(user, nick, params);
+                break;
+            case "fstop":
+                fstop(user, nick, params);
+                break;
+            case "fbet":
+                fbet(user, nick, params);
+                break;
+            case "fallin":
+                fallin(user, nick, params);
+                break;
+            case "fraise":
+                fraise(user, nick, params);
+                break;
+            case "fcall":
+                fcall(user, nick, params);
+                break;
+            case "fcheck":
+                fcheck(user, nick, params);
+                break;
+            case "ffold":
+                ffold(user, nick, params);
+                break;
+            case "shuffle":
+                shuffle(user, nick, params);
+                break;
+            case "reload":
+                reload(user, nick, params);
+                break;
+            case "settings":
+                settings(user, nick, params);
+                break;
+            case "set":
+                set(user, nick, params);
+                break;
+            case "get":
+                get(user, nick, params);
+                break;
+            case "resetaway":
+                resetaway(user, nick, params);
+                break;
+            case "resetsimple":
+                resetsimple(user, nick, params);
+                break;
+            case "trim":
+                trim(user, nick, params);
+                break;
+            default:
+                break;
+        }
     }
     
     @Override
@@ -344,7 +398,7 @@ public class TexasTourney extends TexasPoker {
             informPlayer(nick, getMsg("no_parameter"));  
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -410,7 +464,7 @@ public class TexasTourney extends TexasPoker {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                bet(Integer.parseInt(params[0]) + currentBet);
+                bet(Long.parseLong(params[0]) + currentBet);
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -428,7 +482,7 @@ public class TexasTourney extends TexasPoker {
         } else if (state.equals(PokerState.CONTINUE_ROUND)) {
             informPlayer(nick, getMsg("game_lagging"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -462,8 +516,8 @@ public class TexasTourney extends TexasPoker {
         } else if (currentPlayer == null) {
             informPlayer(nick, getMsg("nobody_turn"));
         } else {
-            showMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get("bet"), 
-                    currentPlayer.get("bet"), currentBet, getCashInPlay(), currentPlayer.get("cash")-currentPlayer.get("bet"));
+            showTurnMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get(Stat.BET), 
+                    currentPlayer.get(Stat.BET), currentBet, getCashInPlay(), currentPlayer.get(Stat.CASH)-currentPlayer.get(Stat.BET));
         }
     }
     
@@ -483,9 +537,7 @@ public class TexasTourney extends TexasPoker {
     
     @Override
     protected void rank(String nick, String[] params) {
-        if (isInProgress()) {
-            informPlayer(nick, getMsg("tt_wait_for_end"));
-        } else if (params.length > 1){
+        if (params.length > 1){
             try {
                 showPlayerRank(params[1], params[0]);
             } catch (IllegalArgumentException e) {
@@ -504,9 +556,7 @@ public class TexasTourney extends TexasPoker {
     
     @Override
     protected void top(String nick, String[] params) {
-        if (isInProgress()) {
-            informPlayer(nick, getMsg("tt_wait_for_end"));
-        } else if (params.length > 1){
+        if (params.length > 1){
             try {
                 showTopPlayers(params[1], Integer.parseInt(params[0]));
             } catch (IllegalArgumentException e) {
@@ -633,7 +683,7 @@ public class TexasTourney extends TexasPoker {
             informPlayer(nick, getMsg("no_parameter"));       
         } else {
             try {
-                bet(Integer.parseInt(params[0]));
+                bet(Long.parseLong(params[0]));
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -651,7 +701,7 @@ public class TexasTourney extends TexasPoker {
         } else if (state.equals(PokerState.CONTINUE_ROUND)) {
             informPlayer(nick, getMsg("game_lagging"));
         } else {
-            bet(currentPlayer.get("cash"));
+            bet(currentPlayer.get(Stat.CASH));
         }
     }
     
@@ -669,7 +719,7 @@ public class TexasTourney extends TexasPoker {
             informPlayer(nick, getMsg("no_parameter"));
         } else {
             try {
-                bet(Integer.parseInt(params[0]) + currentBet);
+                bet(Long.parseLong(params[0]) + currentBet);
             } catch (NumberFormatException e) {
                 informPlayer(nick, getMsg("bad_parameter"));
             }
@@ -827,15 +877,15 @@ public class TexasTourney extends TexasPoker {
             case PRE_START:
                 removeJoined(p);
                 showMsg(getMsg("tt_unjoin"), p.getNickStr());
-                blacklist.add(0, p);
+                addBlacklisted(p);
                 break;
             case BETTING:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 if (p == currentPlayer){
                     fold();
-                } else if (!p.has("fold")){
-                    p.set("fold", 1);
+                } else if (!p.has(Stat.FOLD)){
+                    p.set(Stat.FOLD, 1);
                     // Remove this player from any existing pots
                     if (currentPot != null && currentPot.hasPlayer(p)){
                         currentPot.removePlayer(p);
@@ -854,12 +904,12 @@ public class TexasTourney extends TexasPoker {
                 }
                 break;
             case BLINDS: case CONTINUE_ROUND:
-                p.set("quit", 1);
-                p.set("fold", 1);
+                p.set(Stat.QUIT, 1);
+                p.set(Stat.FOLD, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 break;
             case SHOWDOWN: case END_ROUND:
-                p.set("quit", 1);
+                p.set(Stat.QUIT, 1);
                 informPlayer(p.getNick(), getMsg("remove_end_round"));
                 break;
             default:
@@ -871,11 +921,25 @@ public class TexasTourney extends TexasPoker {
     protected void removeJoined(Player p){
         User user = findUser(p.getNick());
         joined.remove(p);
+        joinedMap.remove(p.getNick().toLowerCase());
+        manager.unindexPlayer(p.getNick(), this);
         if (user != null){
             manager.deVoice(channel, user);
         }
     }
     
+    /**
+     * Adds an eliminated player to the front of the blacklist, so that the
+     * blacklist lists players from last out to first out.
+     * @param p the player
+     */
+    @Override
+    protected void addBlacklisted(Player p){
+        blacklist.add(0, p);
+        blacklistMap.put(p.getNick().toLowerCase(), p);
+        manager.indexBlacklisted(p.getNick(), this);
+    }
+    
     @Override
     protected void devoiceAll(){
         String modeSet = "";
@@ -943,7 +1007,7 @@ public class TexasTourney extends TexasPoker {
          * topBettor then stop looking.
          */
         Player nextPlayer = getPlayerAfter(currentPlayer);
-        while ((nextPlayer.has("fold") || nextPlayer.has("allin")) && 
+        while ((nextPlayer.has(Stat.FOLD) || nextPlayer.has(Stat.ALLIN)) && 
                 nextPlayer != currentPlayer && nextPlayer != topBettor) {
             nextPlayer = getPlayerAfter(nextPlayer);
         }
@@ -970,7 +1034,7 @@ public class TexasTourney extends TexasPoker {
             // If we reach the firstPlayer or topBettor, then we have reached 
             // the end of a round of betting and we should deal community cards.
             // Reset minimum raise (override)
-            minRaise = (int) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
+            minRaise = (long) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
             addBetsToPot();
             currentPlayer = null;
             topBettor = null;
@@ -983,30 +1047,11 @@ public class TexasTourney extends TexasPoker {
                 /* 
                  * Check for showdown. Show player hands and their win/tie 
                  * probabilities immediately and each time additional community
-                 * cards are revealed. Adds a dramatic delay between each reveal.
+                 * cards are revealed. Each reveal is scheduled after a 
+                 * dramatic delay so the bot isn't blocked in the meantime.
                  */
                 state = PokerState.SHOWDOWN;
-                PokerSimulator sim;
-                ArrayList<PokerPlayer> players = pots.get(0).getPlayers();
-                
-                while (!betState.equals(PokerBet.RIVER)) {
-                    sim = new PokerSimulator(players, community);
-                    String showdownStr = formatHeader(" Showdown: ") + " ";
-                    for (PokerPlayer p : players) {
-                        showdownStr += p.getNickStr() + " (" + p.getHand() + "||" + formatBold(Math.round(sim.getWinPct(p)) + "/" + Math.round(sim.getTiePct(p)) + "%%") + "), ";
-                    }
-                    showMsg(showdownStr);
-
-                   // Add a delay for dramatic effect
-                   try { Thread.sleep(get("showdown") * 1000); } catch (InterruptedException e){}
-                   
-                   // Deal some community cards
-                   burnCard();
-                   dealCommunity();
-                   betState = betState.next();
-                   showCommunityCards(false);
-                }
-                endRound();
+                showShowdown();
             } else {
                 burnCard();
                 dealCommunity();
@@ -1018,8 +1063,8 @@ public class TexasTourney extends TexasPoker {
         } else {
             state = PokerState.BETTING;
             currentPlayer = nextPlayer;
-            showMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get("bet"), 
-                        currentPlayer.get("bet"), currentBet, getCashInPlay(), currentPlayer.get("cash")-currentPlayer.get("bet"));
+            showTurnMsg(getMsg("tp_turn"), currentPlayer.getNickStr(), currentBet-currentPlayer.get(Stat.BET), 
+                        currentPlayer.get(Stat.BET), currentBet, getCashInPlay(), currentPlayer.get(Stat.CASH)-currentPlayer.get(Stat.BET));
             setIdleOutTask();
         }
     }
@@ -1034,11 +1079,9 @@ public class TexasTourney extends TexasPoker {
             // Give all non-folded players the community cards
             for (int ctr = 0; ctr < joined.size(); ctr++){
                 p = (PokerPlayer) joined.get(ctr);
-                if (!p.has("fold")){
+                if (!p.has(Stat.FOLD)){
                     p.getPokerHand().addAll(p.getHand());
                     p.getPokerHand().addAll(community);
-                    Collections.sort(p.getPokerHand());
-                    Collections.reverse(p.getPokerHand());
                 }
             }
 
@@ -1056,18 +1099,18 @@ public class TexasTourney extends TexasPoker {
                 p = (PokerPlayer) joined.get(ctr);
                 
                 // Bankrupts
-                if (!p.has("cash")) {
+                if (!p.has(Stat.CASH)) {
                     // Show that player has gone bankrupt and has been removed
                     // from the tournament
-                    blacklist.add(0, p);
+                    addBlacklisted(p);
                     removeJoined(p);
                     showMsg(getMsg("tt_unjoin"), p.getNickStr());
                     ctr--;
                     newPlayerOut = true;
                     newOutList.add(p);
                 // Quitters
-                } else if (p.has("quit")) {
-                    blacklist.add(0, p);
+                } else if (p.has(Stat.QUIT)) {
+                    addBlacklisted(p);
                     removeJoined(p);
                     showMsg(getMsg("tt_unjoin"), p.getNickStr());
                     ctr--;
@@ -1085,7 +1128,7 @@ public class TexasTourney extends TexasPoker {
     public void endGame() {
         cancelStartRoundTask();
         cancelIdleOutTask();
-        gameTimer.cancel();
+        cancelShowdownTask();
         deck = null;
         community = null;
         pots.clear();
@@ -1098,8 +1141,7 @@ public class TexasTourney extends TexasPoker {
         tourneyStats = null;
         devoiceAll();
         showMsg(getMsg("game_end"), getGameNameStr());
-        joined.clear();
-        blacklist.clear();
+        clearPlayers();
         newOutList.clear();
         awayList.clear();
         notSimpleList.clear();
@@ -1132,8 +1174,7 @@ public class TexasTourney extends TexasPoker {
         newPlayerOut = false;
         newOutList.clear();
         devoiceAll();
-        joined.clear();
-        blacklist.clear();
+        clearPlayers();
     }
     
     /**
@@ -1149,20 +1190,22 @@ public class TexasTourney extends TexasPoker {
         // Declare a winner if only one player is left
         } else if (joined.size() == 1) {
             p = (PokerPlayer) joined.get(0);
-            p.add("ttwins", 1);
-            p.add("ttplayed", 1);
+            p.add(Stat.TTWINS, 1);
+            p.add(Stat.TTPLAYED, 1);
+            beginPlayerData();
             savePlayerData(p);
-            showMsg(getMsg("tt_winner"), p.getNickStr(), p.get("ttwins"));
+            showMsg(getMsg("tt_winner"), p.getNickStr(), p.get(Stat.TTWINS));
             for (int ctr = 0; ctr < blacklist.size(); ctr++) {
                 p = (PokerPlayer) blacklist.get(ctr);
-                p.add("ttplayed", 1);
+                p.add(Stat.TTPLAYED, 1);
                 savePlayerData(p);
             }
+            commitPlayerData();
             
             // Display tournament results
             showTourneyResults();
             
-            tourneyStats.increment("numtourneys");
+            tourneyStats.increment(Stat.NUMTOURNEYS);
             if (tourneyStats.getBiggestTourney() < joined.size() + blacklist.size()) {
                 tourneyStats.setWinner(new PokerPlayer(joined.get(0).getNick(), ""));
                 tourneyStats.getPlayers().clear();
@@ -1178,12 +1221,12 @@ public class TexasTourney extends TexasPoker {
         // Automatically start a new round if more than 1 player left
         } else {
             if (tourneyRounds % get("doubleblinds") == 0) {
-                int newBlind = (int) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
+                long newBlind = (long) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
                 showMsg(getMsg("tt_double_blinds"), tourneyRounds, newBlind/2, newBlind);
             }
             if (newPlayerOut) {
                 numOuts++;
-                int newBlind = (int) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
+                long newBlind = (long) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
                 if (newOutList.size() > 1) {
                     String nicks = "";
                     for (Player o : newOutList) {
@@ -1206,11 +1249,11 @@ public class TexasTourney extends TexasPoker {
     @Override
     protected void resetPlayer(Player p) {
         discardPlayerHand((TourneyPokerPlayer) p);
-        p.clear("fold");
-        p.clear("quit");
-        p.clear("allin");
-        p.clear("change");
-        p.clear("cancel");
+        p.clear(Stat.FOLD);
+        p.clear(Stat.QUIT);
+        p.clear(Stat.ALLIN);
+        p.clear(Stat.CHANGE);
+        p.clear(Stat.CANCEL);
     }
     
     /**
@@ -1219,22 +1262,22 @@ public class TexasTourney extends TexasPoker {
     @Override
     protected void setBlindBets(){
         // Calculate the current blind bet
-        int newBlind = (int) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
+        long newBlind = (long) (get("minbet")*(Math.pow(2, tourneyRounds/get("doubleblinds") + numOuts)));
         
         // Set the small blind
-        if (newBlind/2 > smallBlind.get("cash")) {
-            smallBlind.set("allin", 1);
-            smallBlind.set("bet", smallBlind.get("cash"));
+        if (newBlind/2 > smallBlind.get(Stat.CASH)) {
+            smallBlind.set(Stat.ALLIN, 1);
+            smallBlind.set(Stat.BET, smallBlind.get(Stat.CASH));
         } else {
-            smallBlind.set("bet", newBlind/2);
+            smallBlind.set(Stat.BET, newBlind/2);
         }
         
         // Set the big blind
-        if (newBlind > bigBlind.get("cash")) {
-            bigBlind.set("allin", 1);
-            bigBlind.set("bet", bigBlind.get("cash"));
+        if (newBlind > bigBlind.get(Stat.CASH)) {
+            bigBlind.set(Stat.ALLIN, 1);
+            bigBlind.set(Stat.BET, bigBlind.get(Stat.CASH));
         } else {
-            bigBlind.set("bet", newBlind);
+            bigBlind.set(Stat.BET, newBlind);
         }
         
         // Set the current bet to the bigger of the two blinds.
@@ -1249,15 +1292,15 @@ public class TexasTourney extends TexasPoker {
      */
     protected void requestCancel(String nick) {
         TourneyPokerPlayer p = (TourneyPokerPlayer) findJoined(nick);
-        if (p.has("cancel")) {
+        if (p.has(Stat.CANCEL)) {
             informPlayer(nick, getMsg("tt_already_cancel"));
         } else {
             showMsg(getMsg("tt_cancel"), p.getNickStr(false));
-            p.set("cancel", 1);
+            p.set(Stat.CANCEL, 1);
             
             // Check if all players have made a request
             for (Player pp : joined) {
-                if (!pp.has("cancel")) {
+                if (!pp.has(Stat.CANCEL)) {
                     return;
                 }
             }
@@ -1293,6 +1336,10 @@ public class TexasTourney extends TexasPoker {
         settings.put("startwait", 5);
         settings.put("showdown", 10);
         settings.put("revealcommunity", 0);
+        settings.put("exactplayers", PokerSimulator.defaultExactPlayers);
+        settings.put("simmargin", (int) Math.round(PokerSimulator.defaultMargin * 100));
+        settings.put("simtrials", PokerSimulator.defaultMaxTrials);
+        settings.put("simtime", (int) PokerSimulator.defaultMaxTime);
         settings.put("doubleblinds", 10);
         settings.put("doubleonbankrupt", 0);
         settings.put("ping", 600);
@@ -1342,6 +1389,14 @@ public class TexasTourney extends TexasPoker {
             out.println("showdown=" + get("showdown"));
             out.println("#Whether or not to reveal community when not required");
             out.println("revealcommunity=" + get("revealcommunity"));
+            out.println("#The maximum number of players for exact pre-flop showdown odds");
+            out.println("exactplayers=" + get("exactplayers"));
+            out.println("#The target margin of error of sampled showdown odds in hundredths of a percent");
+            out.println("simmargin=" + get("simmargin"));
+            out.println("#The maximum number of boards sampled for showdown odds");
+            out.println("simtrials=" + get("simtrials"));
+            out.println("#The time limit in milliseconds for sampling showdown odds");
+            out.println("simtime=" + get("simtime"));
             out.println("#The number of rounds in between doubling of blinds");
             out.println("doubleblinds=" + get("doubleblinds"));
             out.println("#Whether or not to double blinds when a player goes out");
@@ -1365,84 +1420,43 @@ public class TexasTourney extends TexasPoker {
      */
     @Override
     protected void loadPlayerData(Player p) {
-        try {
-            boolean found = false;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-
-            for (PlayerRecord statLine : records) {
-                if (p.getNick().equalsIgnoreCase(statLine.getNick())) {
-                    p.set("cash", get("cash"));
-                    p.set("ttwins", statLine.get("ttwins"));
-                    p.set("ttplayed", statLine.get("ttplayed"));
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                p.set("cash", get("cash"));
-            }
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
+        PlayerRecord record = loadPlayerRecord(p.getNick());
+        p.set(Stat.CASH, get("cash"));
+        if (record != null) {
+            p.set(Stat.TTWINS, record.get(Stat.TTWINS));
+            p.set(Stat.TTPLAYED, record.get(Stat.TTPLAYED));
         }
     }
     
     /**
-     * For tournament mode, we don't want to save a player's cash. Also, only
-     * values which are applicable will be overwritten.
+     * For tournament mode, we don't want to save a player's cash. A new
+     * record starts with the default cash instead.
      * @param p the player to save
+     * @return the record to save
      */
     @Override
-    protected void savePlayerData(Player p){
-        boolean found = false;
-        ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-        
-        try {
-            loadPlayerFile(records);
-            for (PlayerRecord record : records) {
-                if (p.getNick().equalsIgnoreCase(record.getNick())) {
-                    record.set("ttwins", p.get("ttwins"));
-                    record.set("ttplayed", p.get("ttplayed"));
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                records.add(new PlayerRecord(p.getNick(), get("cash"),
-                                        p.get("bank"), p.get("bankrupts"),
-                                        p.get("bjwinnings"), p.get("bjrounds"),
-                                        p.get("tpwinnings"), p.get("tprounds"),
-                                        p.get("ttwins"), p.get("ttplayed")));
-            }
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
-        }
-
-        try {
-            savePlayerFile(records);
-        } catch (IOException e) {
-            manager.log("Error writing to players.txt!");
-        }
+    protected PlayerRecord getPlayerRecord(Player p){
+        return new PlayerRecord(p.getNick(), get("cash"),
+                                p.get(Stat.BANK), p.get(Stat.BANKRUPTS),
+                                p.get(Stat.BJWINNINGS), p.get(Stat.BJROUNDS),
+                                p.get(Stat.TPWINNINGS), p.get(Stat.TPROUNDS),
+                                p.get(Stat.TTWINS), p.get(Stat.TTPLAYED));
+    }
+    
+    /**
+     * Only the tournament stats are saved, so an existing record keeps the
+     * values saved by the other games.
+     * @return the tournament stats
+     */
+    @Override
+    protected Stat[] getSavedStats() {
+        return new Stat[] {Stat.TTWINS, Stat.TTPLAYED};
     }
     
     @Override
     public int getTotalPlayers(){
-        try {
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int total = 0;
-            
-            for (PlayerRecord record : records) {
-                if (record.has("ttplayed")){
-                    total++;
-                }
-            }
-            return total;
-        } catch (IOException e){
-            manager.log("Error reading players.txt!");
-            return 0;
-        }
-    }  
+        return manager.getPlayerStore().countRecords("ttplayed");
+    }
     
     ///////////////////////////////////////
     //// Game stats management methods ////
@@ -1463,7 +1477,7 @@ public class TexasTourney extends TexasPoker {
                             break;
                         }
                         st = new StringTokenizer(str);
-                        tourneyStats.set("numtourneys", Integer.parseInt(st.nextToken()));
+                        tourneyStats.set(Stat.NUMTOURNEYS, Integer.parseInt(st.nextToken()));
                         tourneyStats.setWinner(new PokerPlayer(st.nextToken(), ""));
                         while (st.hasMoreTokens()) {
                             tourneyStats.addPlayer(new PokerPlayer(st.nextToken(), ""));
@@ -1520,7 +1534,7 @@ public class TexasTourney extends TexasPoker {
             lines.add("#texastourney");
             index = lines.size();
         }
-        lines.add(index, tourneyStats.get("numtourneys") + " " + tourneyStats.getWinner().getNick() + " " + tourneyStats.getPlayersString());
+        lines.add(index, tourneyStats.get(Stat.NUMTOURNEYS) + " " + tourneyStats.getWinner().getNick() + " " + tourneyStats.getPlayersString());
         try {
             PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter("housestats.txt")));
             for (int ctr = 0; ctr < lines.size(); ctr++) {
@@ -1544,8 +1558,7 @@ public class TexasTourney extends TexasPoker {
         // Show introduction to end results
         showMsg(formatHeader(" Results: "));
         players = pots.get(0).getPlayers();
-        Collections.sort(players);
-        Collections.reverse(players);
+        PokerPlayer.sortByHand(players);
         // Show each remaining player's hand
         if (pots.get(0).getNumPlayers() > 1){
             for (int ctr = 0; ctr < players.size(); ctr++){
@@ -1558,11 +1571,10 @@ public class TexasTourney extends TexasPoker {
             winners = 1;
             currentPot = pots.get(ctr);
             players = currentPot.getPlayers();
-            Collections.sort(players);
-            Collections.reverse(players);
+            PokerPlayer.sortByHand(players);
             // Determine number of winners
             for (int ctr2=1; ctr2 < currentPot.getNumPlayers(); ctr2++){
-                if (players.get(0).compareTo(players.get(ctr2)) == 0){
+                if (players.get(0).getPokerHand().getStrength() == players.get(ctr2).getPokerHand().getStrength()){
                     winners++;
                 }
             }
@@ -1570,9 +1582,9 @@ public class TexasTourney extends TexasPoker {
             // Output winners
             for (int ctr2=0; ctr2<winners; ctr2++){
                 p = players.get(ctr2);
-                p.add("cash", currentPot.getTotal()/winners);
-                p.add("tpwinnings", currentPot.getTotal()/winners);
-                p.add("change", currentPot.getTotal()/winners);
+                p.add(Stat.CASH, currentPot.getTotal()/winners);
+                p.add(Stat.TPWINNINGS, currentPot.getTotal()/winners);
+                p.add(Stat.CHANGE, currentPot.getTotal()/winners);
                 showMsg(Colors.YELLOW+",01 Pot #" + (ctr+1) + ": " + Colors.NORMAL + " " + 
                     p.getNickStr() + " wins $" + formatNumber(currentPot.getTotal()/winners) + 
                     ". (" + getPlayerListString(currentPot.getPlayers()) + ")");
@@ -1607,16 +1619,16 @@ public class TexasTourney extends TexasPoker {
     public void showPlayerTourneysPlayed(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("tt_player_played"), p.getNick(false), p.get("ttplayed"));
+            showMsg(getMsg("tt_player_played"), p.getNick(false), p.get(Stat.TTPLAYED));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("tt_player_played"), p.getNick(false), p.get("ttplayed"));
+            showMsg(getMsg("tt_player_played"), p.getNick(false), p.get(Stat.TTPLAYED));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("tt_player_played"), record.getNick(false), record.get("ttplayed"));
+                showMsg(getMsg("tt_player_played"), record.getNick(false), record.get(Stat.TTPLAYED));
             }
         }
     }
@@ -1628,16 +1640,16 @@ public class TexasTourney extends TexasPoker {
     public void showPlayerTourneyWins(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("tt_player_wins"), p.getNick(false), p.get("ttwins"));
+            showMsg(getMsg("tt_player_wins"), p.getNick(false), p.get(Stat.TTWINS));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("tt_player_wins"), p.getNick(false), p.get("ttwins"));
+            showMsg(getMsg("tt_player_wins"), p.getNick(false), p.get(Stat.TTWINS));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("tt_player_wins"), record.getNick(false), record.get("ttwins"));
+                showMsg(getMsg("tt_player_wins"), record.getNick(false), record.get(Stat.TTWINS));
             }
         }
     }
@@ -1646,26 +1658,26 @@ public class TexasTourney extends TexasPoker {
     public void showPlayerWinRate(String nick) {
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            if (p.get("ttplayed") == 0) {
+            if (p.get(Stat.TTPLAYED) == 0) {
                 showMsg(getMsg("tt_player_no_tourneys"), p.getNick(false));
             } else {
-                showMsg(getMsg("tt_player_winrate"), p.getNick(false), Math.round((double) p.get("ttwins")/ (double) p.get("ttplayed") * 100));
+                showMsg(getMsg("tt_player_winrate"), p.getNick(false), Math.round((double) p.get(Stat.TTWINS)/ (double) p.get(Stat.TTPLAYED) * 100));
             }
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            if (p.get("ttplayed") == 0) {
+            if (p.get(Stat.TTPLAYED) == 0) {
                 showMsg(getMsg("tt_player_no_tourneys"), p.getNick(false));
             } else {
-                showMsg(getMsg("tt_player_winrate"), p.getNick(false), Math.round((double) p.get("ttwins")/ (double) p.get("ttplayed") * 100));
+                showMsg(getMsg("tt_player_winrate"), p.getNick(false), Math.round((double) p.get(Stat.TTWINS)/ (double) p.get(Stat.TTPLAYED) * 100));
             }
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
-            }  else if (record.get("ttplayed") == 0) {
+            }  else if (record.get(Stat.TTPLAYED) == 0) {
                 showMsg(getMsg("tt_player_no_tourneys"), record.getNick(false));
             } else {
-                showMsg(getMsg("tt_player_winrate"), record.getNick(false), Math.round((double) record.get("ttwins")/ (double) record.get("ttplayed") * 100));
+                showMsg(getMsg("tt_player_winrate"), record.getNick(false), Math.round((double) record.get(Stat.TTWINS)/ (double) record.get(Stat.TTPLAYED) * 100));
             }
         }
     }
@@ -1674,16 +1686,16 @@ public class TexasTourney extends TexasPoker {
     public void showPlayerAllStats(String nick){
         if (isBlacklisted(nick)) {
             Player p = findBlacklisted(nick);
-            showMsg(getMsg("tt_player_all_stats"), p.getNick(false), p.get("ttwins"), p.get("ttplayed"));
+            showMsg(getMsg("tt_player_all_stats"), p.getNick(false), p.get(Stat.TTWINS), p.get(Stat.TTPLAYED));
         } else if (isJoined(nick)) {
             Player p = findJoined(nick);
-            showMsg(getMsg("tt_player_all_stats"), p.getNick(false), p.get("ttwins"), p.get("ttplayed"));
+            showMsg(getMsg("tt_player_all_stats"), p.getNick(false), p.get(Stat.TTWINS), p.get(Stat.TTPLAYED));
         } else {
             PlayerRecord record = loadPlayerRecord(nick);
             if (record == null) {
                 showMsg(getMsg("no_data"), formatNoPing(nick));
             } else {
-                showMsg(getMsg("tt_player_all_stats"), record.getNick(false), record.get("ttwins"), record.get("ttplayed"));
+                showMsg(getMsg("tt_player_all_stats"), record.getNick(false), record.get(Stat.TTWINS), record.get(Stat.TTPLAYED));
             }
         }
     }
@@ -1695,79 +1707,39 @@ public class TexasTourney extends TexasPoker {
             return;
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int length = records.size();
-            String line = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex, rank = 0;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Integer> winrates = new ArrayList<Integer>();
-                
-                for (int ctr = 0; ctr < length; ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("ttplayed") == 0){
-                        winrates.add(0);
-                    } else {
-                        winrates.add((int) Math.round((double) aRecord.get("ttwins") / (double) aRecord.get("ttplayed") * 100));
-                    }
-                }
-                
-                line += "Texas Hold'em Tournament Win Rate: ";
-                
-                // Find the player with the highest value and check if it is 
-                // the requested player. Repeat until found or end.
-                for (int ctr = 0; ctr < length; ctr++){
-                    highIndex = 0;
-                    rank++;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    if (nick.equalsIgnoreCase(nicks.get(highIndex))){
-                        line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " " + formatNumber(winrates.get(highIndex)) + "%% ";
-                        break;
-                    } else {
-                        nicks.remove(highIndex);
-                        winrates.remove(highIndex);
-                    }
-                }
-            } else {
-                String statName = "";
-                if (stat.equals("wins")){
-                    statName = "ttwins";
-                    line += "Texas Hold'em Tournament Wins: ";
-                } else if (stat.equals("tourneys")) {
-                    statName = "ttplayed";
-                    line += "Texas Hold'em Tournaments Played: ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-
-                // Find the player in the records and output rank
-                for (int ctr = 0; ctr < length; ctr++){
-                    aRecord = records.get(ctr);
-                    if (nick.equalsIgnoreCase(aRecord.getNick())){
-                        line += "#" + (ctr+1) + " " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " ";
-                        break;
-                    }
-                }
-            }
-
-            // Show rank
-            showMsg(line);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
+        String statName;
+        String line = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "ttwinrate";
+            line += "Texas Hold'em Tournament Win Rate: ";
+        } else if (stat.equals("wins")){
+            statName = "ttwins";
+            line += "Texas Hold'em Tournament Wins: ";
+        } else if (stat.equals("tourneys")) {
+            statName = "ttplayed";
+            line += "Texas Hold'em Tournaments Played: ";
+        } else {
+            throw new IllegalArgumentException();
+        }
+        
+        // Look up the rank of the player
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int rank = board.getRank(nick);
+        Leaderboard.Entry entry = board.getEntry(nick);
+        if (rank == 0 || entry == null) {
+            showMsg(getMsg("no_data"), formatNoPing(nick));
+            return;
+        }
+        
+        if (statName.equals("ttwinrate")) {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber((long) entry.getScore()) + "%% ";
+        } else {
+            line += "#" + rank + " " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " ";
         }
+
+        // Show rank
+        showMsg(line);
     }
     
     @Override
@@ -1776,83 +1748,42 @@ public class TexasTourney extends TexasPoker {
             throw new IllegalArgumentException();
         }
         
-        try {
-            PlayerRecord aRecord;
-            ArrayList<PlayerRecord> records = new ArrayList<PlayerRecord>();
-            loadPlayerFile(records);
-            int end = Math.min(n, records.size());
-            int start = Math.max(end - 10, 0);
-            String title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end;
-            String list = Colors.BLACK + ",08";
-            
-            if (stat.equalsIgnoreCase("winrate")) {
-                int highIndex;
-                ArrayList<String> nicks = new ArrayList<String>();
-                ArrayList<Integer> winrates = new ArrayList<Integer>();
-                
-                for (int ctr = 0; ctr < records.size(); ctr++) {
-                    aRecord = records.get(ctr);
-                    nicks.add(aRecord.getNick());
-                    if (aRecord.get("ttplayed") == 0){
-                        winrates.add(0);
-                    } else {
-                        winrates.add((int) Math.round((double) aRecord.get("ttwins") / (double) aRecord.get("ttplayed") * 100));
-                    }
-                }
-                
-                title += " Texas Hold'em Tournament Win Rate ";
-                
-                // Find the player with the highest value and check if it is 
-                // the requested player. Repeat until found or end.
-                for (int ctr = 0; ctr < records.size(); ctr++){
-                    highIndex = 0;
-                    for (int ctr2 = 0; ctr2 < nicks.size(); ctr2++) {
-                        if (winrates.get(ctr2) > winrates.get(highIndex)) {
-                            highIndex = ctr2;
-                        }
-                    }
-                    
-                    // Only add those in the required range.
-                    if (ctr >= start) {
-                        list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(nicks.get(highIndex)) + " " + formatNumber(winrates.get(highIndex)) + "%% " + Colors.BLACK + ",08";
-                    }
-                    
-                    nicks.remove(highIndex);
-                    winrates.remove(highIndex);
-                    
-                    // Break when we've reached the end of required range
-                    if (ctr + 1 == end) {
-                        break;
-                    }
-                }
+        String statName;
+        String title;
+        String list = Colors.BLACK + ",08";
+        
+        if (stat.equalsIgnoreCase("winrate")) {
+            statName = "ttwinrate";
+            title = " Texas Hold'em Tournament Win Rate ";
+        } else if (stat.equals("wins")){
+            statName = "ttwins";
+            title = " Texas Hold'em Tournament Wins ";
+        } else if (stat.equals("tourneys")) {
+            statName = "ttplayed";
+            title = " Texas Hold'em Tournaments Played ";
+        } else {
+            throw new IllegalArgumentException();
+        }
+        
+        // Only fetch the players in the required range
+        Leaderboard board = manager.getPlayerStore().getLeaderboard(statName);
+        int end = Math.min(n, board.size());
+        int start = Math.max(end - 10, 0);
+        title = Colors.BOLD + Colors.BLACK + ",08 Top " + (start+1) + "-" + end + title;
+        
+        int rank = start;
+        for (Leaderboard.Entry entry : board.getEntries(start, end)) {
+            rank++;
+            if (statName.equals("ttwinrate")) {
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber((long) entry.getScore()) + "%% " + Colors.BLACK + ",08";
             } else {
-                String statName = "";
-                if (stat.equals("wins")){
-                    statName = "ttwins";
-                    title += " Texas Hold'em Tournament Wins ";
-                } else if (stat.equals("tourneys")) {
-                    statName = "ttplayed";
-                    title += " Texas Hold'em Tournaments Played ";
-                } else {
-                    throw new IllegalArgumentException();
-                }
-
-                // Sort based on stat
-                Collections.sort(records, PlayerRecord.getComparator(statName));
-
-                // Add the players in the required range
-                for (int ctr = start; ctr < end; ctr++){
-                    aRecord = records.get(ctr);
-                    list += " #" + (ctr+1) + ": " + Colors.WHITE + ",04 " + formatNoPing(aRecord.getNick()) + " " + formatNumber(aRecord.get(statName)) + " " + Colors.BLACK + ",08";
-                }
+                list += " #" + rank + ": " + Colors.WHITE + ",04 " + formatNoPing(entry.getNick()) + " " + formatNumber(entry.getValue()) + " " + Colors.BLACK + ",08";
             }
-            
-            // Output the title and list
-            showMsg(title);
-            showMsg(list);
-        } catch (IOException e) {
-            manager.log("Error reading players.txt!");
         }
+        
+        // Output the title and list
+        showMsg(title);
+        showMsg(list);
     }
     
     @Override
@@ -1863,17 +1794,17 @@ public class TexasTourney extends TexasPoker {
         
         // Add players still in the tournament
         for (Player p : list) {
-            if (p.get("cash") == 0 || p.has("quit")) {
+            if (p.get(Stat.CASH) == 0 || p.has(Stat.QUIT)) {
                 msg += p.getNick(false) + " (" + Colors.RED + formatBold("OUT") + Colors.NORMAL + "), ";
             } else {
-                msg += p.getNick(false) + " (" + formatBold("$" + formatNumber(p.get("cash")));
+                msg += p.getNick(false) + " (" + formatBold("$" + formatNumber(p.get(Stat.CASH)));
                 // Add player stack change
-                if (p.get("change") > 0) {
-                    msg += "[" + Colors.DARK_GREEN + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
-                } else if (p.get("change") < 0) {
-                    msg += "[" + Colors.RED + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
+                if (p.get(Stat.CHANGE) > 0) {
+                    msg += "[" + Colors.DARK_GREEN + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
+                } else if (p.get(Stat.CHANGE) < 0) {
+                    msg += "[" + Colors.RED + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
                 } else {
-                    msg += "[" + Colors.BOLD + "$" + formatNumber(p.get("change")) + Colors.NORMAL + "]";
+                    msg += "[" + Colors.BOLD + "$" + formatNumber(p.get(Stat.CHANGE)) + Colors.NORMAL + "]";
                 }
                 msg += "), ";
             }
@@ -19,6 +19,7 @@
 
 package irccasino.texastourney;
 
+import irccasino.Stat;
 import irccasino.texaspoker.PokerPlayer;
 
 /**
@@ -34,6 +35,6 @@ public class TourneyPokerPlayer extends PokerPlayer {
      */
     public TourneyPokerPlayer (String nick, String host) {
         super(nick, host);
-        set("cancel", 0);
+        set(Stat.CANCEL, 0);
     }
 }
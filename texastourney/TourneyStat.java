@@ -19,6 +19,7 @@
 
 package irccasino.texastourney;
 
+import irccasino.Stat;
 import irccasino.Stats;
 import irccasino.cardgame.CardGame;
 import irccasino.cardgame.Player;
@@ -38,7 +39,7 @@ public class TourneyStat extends Stats{
     
     public TourneyStat(int num) {
         super();
-        set("numtourneys", num);
+        set(Stat.NUMTOURNEYS, num);
         players = new ArrayList<Player>();
         winner = null;
     }
@@ -87,6 +88,6 @@ public class TourneyStat extends Stats{
     
     @Override
     public String toString() {
-        return "Total Tournaments: " + CardGame.formatNumber(get("numtourneys")) + ". Biggest Tournament: " + getToStringList() + ".";
+        return "Total Tournaments: " + CardGame.formatNumber(get(Stat.NUMTOURNEYS)) + ". Biggest Tournament: " + getToStringList() + ".";
     }
 }